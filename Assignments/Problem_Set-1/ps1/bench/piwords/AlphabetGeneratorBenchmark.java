@@ -0,0 +1,51 @@
+package piwords;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of AlphabetGenerator, training a frequency alphabet of base
+ * 26 and base 100 on dictionaries of dictionarySize words, sequentially and
+ * on all available processors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlphabetGeneratorBenchmark {
+    @Param({"26", "100"})
+    public int base;
+
+    @Param({"1000", "100000", "1000000"})
+    public int dictionarySize;
+
+    private String[] words;
+
+    @Setup
+    public void setUp() {
+    	words = BenchmarkData.dictionary(dictionarySize);
+    }
+
+    @Benchmark
+    public char[] generateFrequencyAlphabet() {
+    	return AlphabetGenerator.generateFrequencyAlphabet(base, words);
+    }
+
+    @Benchmark
+    public char[] generateFrequencyAlphabetParallel() {
+    	return AlphabetGenerator.generateFrequencyAlphabetParallel(base, words);
+    }
+}
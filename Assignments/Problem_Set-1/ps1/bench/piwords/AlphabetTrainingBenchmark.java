@@ -0,0 +1,188 @@
+package piwords;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of frequency alphabet training: letter counting over a
+ * training corpus with each of AlphabetGenerator's counting paths,
+ * 
+ *   1. sequential: countLetters over the corpus as a list of words.
+ *   2. parallel: countLettersParallel over the same list.
+ *   3. reader: countLetters over a UTF-8 Reader of the corpus file.
+ *   4. mapped: countLettersParallel over the memory-mapped corpus file.
+ * 
+ * The corpus is the text file at path, or if path is empty, copies of
+ * Main.WORD_LIST with megabytes * 10^6 chars in all, one word per line of a
+ * temporary file. The setup checks that the paths all agree.
+ *
+ * Throughput is reported per byte, in the ":bytes" rows, in bytes per
+ * second (which JMH labels ops/s; divide by 10^6 for MB/s): a byte is a
+ * char of the list for the first two paths, and a byte of the file for the
+ * last two.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlphabetTrainingBenchmark {
+    @Param({""})
+    public String path;
+
+    @Param({"64"})
+    public long megabytes;
+
+    private List<String> corpus;
+    private long chars;
+    private File file;
+    private boolean temporary;
+
+    /**
+     * The bytes of the corpus counted in an iteration, for each thread.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+    	public long bytes;
+
+    	@Setup(Level.Iteration)
+    	public void reset() {
+    		bytes = 0;
+    	}
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+    	if (path.isEmpty()) {
+    		corpus = syntheticCorpus(megabytes * 1000000);
+    		file = File.createTempFile("corpus", ".txt");
+    		temporary = true;
+    		writeWords(corpus, file);
+    	} else {
+    		file = new File(path);
+    		corpus = readWords(file);
+    	}
+    	chars = 0;
+    	for (String word : corpus) {
+    		chars = chars + word.length();
+    	}
+    	// line breaks are no letters, so the file and its lines agree
+    	Bytes counted = new Bytes();
+    	long[] expected = sequential(counted);
+    	if (!Arrays.equals(expected, parallel(counted)) ||
+    			!Arrays.equals(expected, reader(counted)) ||
+    			!Arrays.equals(expected, mapped(counted))) {
+    		throw new AssertionError("letter counts differ");
+    	}
+    }
+
+    @TearDown
+    public void tearDown() {
+    	if (temporary) {
+    		file.delete();
+    	}
+    }
+
+    @Benchmark
+    public long[] sequential(Bytes counted) {
+    	counted.bytes = counted.bytes + chars;
+    	return AlphabetGenerator.countLetters(corpus);
+    }
+
+    @Benchmark
+    public long[] parallel(Bytes counted) {
+    	counted.bytes = counted.bytes + chars;
+    	return AlphabetGenerator.countLettersParallel(corpus);
+    }
+
+    @Benchmark
+    public long[] reader(Bytes counted) throws IOException {
+    	counted.bytes = counted.bytes + file.length();
+    	Reader reader = new InputStreamReader(new FileInputStream(file),
+    			Charset.forName("UTF-8"));
+    	try {
+    		return AlphabetGenerator.countLetters(reader);
+    	} finally {
+    		reader.close();
+    	}
+    }
+
+    @Benchmark
+    public long[] mapped(Bytes counted) throws IOException {
+    	counted.bytes = counted.bytes + file.length();
+    	return AlphabetGenerator.countLettersParallel(file);
+    }
+
+    // Returns the lines of a UTF-8 file.
+    private static List<String> readWords(File file) throws IOException {
+    	List<String> words = new ArrayList<String>();
+    	BufferedReader reader = new BufferedReader(new InputStreamReader(
+    			new FileInputStream(file), Charset.forName("UTF-8")));
+    	try {
+    		String line;
+    		while ((line = reader.readLine()) != null) {
+    			words.add(line);
+    		}
+    	} finally {
+    		reader.close();
+    	}
+    	return words;
+    }
+
+    // Writes words to a UTF-8 file, one per line.
+    private static void writeWords(List<String> words, File file)
+    		throws IOException {
+    	Writer writer = new OutputStreamWriter(new FileOutputStream(file),
+    			Charset.forName("UTF-8"));
+    	try {
+    		for (String word : words) {
+    			writer.write(word);
+    			writer.write('\n');
+    		}
+    	} finally {
+    		writer.close();
+    	}
+    }
+
+    // Returns copies of Main.WORD_LIST with about chars chars in all.
+    private static List<String> syntheticCorpus(long chars) {
+    	List<String> words = new ArrayList<String>();
+    	long total = 0;
+    	while (total < chars) {
+    		for (String word : Main.WORD_LIST) {
+    			words.add(word);
+    			total = total + word.length();
+    		}
+    	}
+    	return words;
+    }
+}
@@ -0,0 +1,66 @@
+package piwords;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the BaseTranslator engines, translating hex digits into
+ * base 26 (the basic alphabet) and base 100 (the frequency alphabet), as
+ * piwords.Main does, with as many output digits as input digits.
+ * 
+ * The schoolbook engine, far too slow at a million digits, is measured
+ * on smaller inputs by BaseTranslatorSchoolbookBenchmark. The packed engine
+ * is quadratic too, but takes minutes there; narrow the parameters with -p
+ * to skip those runs, e.g. -p engine=divideAndConquer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BaseTranslatorBenchmark {
+    @Param({"26", "100"})
+    public int baseB;
+
+    @Param({"10000", "100000", "1000000"})
+    public int digits;
+
+    @Param({"packed", "divideAndConquer"})
+    public String engine;
+
+    private int[] input;
+
+    @Setup
+    public void setUp() {
+    	// random hex digits are as hard to translate as those of pi, and
+    	// much faster to produce
+    	Random random = new Random(6005);
+    	input = new int[digits];
+    	for (int i = 0; i < digits; i = i + 1) {
+    		input[i] = random.nextInt(16);
+    	}
+    }
+
+    @Benchmark
+    public int[] convertBase() {
+    	if (engine.equals("packed")) {
+    		return BaseTranslator.convertBasePacked(input, 16, baseB, digits);
+    	} else {
+    		return BaseTranslator.convertBaseDivideAndConquer(input, 16, baseB,
+    				digits);
+    	}
+    }
+}
@@ -0,0 +1,53 @@
+package piwords;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of BaseTranslator.convertBaseSchoolbook, the baseline of
+ * BaseTranslatorBenchmark, on the same inputs but at most 100000 digits:
+ * it is quadratic without limb packing, so a million digits take far too
+ * long.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BaseTranslatorSchoolbookBenchmark {
+    @Param({"26", "100"})
+    public int baseB;
+
+    @Param({"10000", "100000"})
+    public int digits;
+
+    private int[] input;
+
+    @Setup
+    public void setUp() {
+    	// the same random hex digits as BaseTranslatorBenchmark
+    	Random random = new Random(6005);
+    	input = new int[digits];
+    	for (int i = 0; i < digits; i = i + 1) {
+    		input[i] = random.nextInt(16);
+    	}
+    }
+
+    @Benchmark
+    public int[] convertBase() {
+    	return BaseTranslator.convertBaseSchoolbook(input, 16, baseB, digits);
+    }
+}
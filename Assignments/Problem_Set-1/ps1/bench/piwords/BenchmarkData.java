@@ -0,0 +1,54 @@
+package piwords;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The inputs shared by the piwords benchmarks. They are random, from fixed
+ * seeds, so that every run measures the same work.
+ */
+class BenchmarkData {
+    private static final int SEED = 6005;
+
+    /**
+     * Returns size distinct lower-case words: those of Main.WORD_LIST first,
+     * then random words of 3 to 10 letters.
+     */
+    static String[] dictionary(int size) {
+    	Set<String> words = new LinkedHashSet<String>(
+    			Arrays.asList(Main.WORD_LIST));
+    	Random random = new Random(SEED);
+    	while (words.size() < size) {
+    		char[] chars = new char[3 + random.nextInt(8)];
+    		for (int i = 0; i < chars.length; i = i + 1) {
+    			chars[i] = (char) ('a' + random.nextInt(26));
+    		}
+    		words.add(new String(chars));
+    	}
+    	return Arrays.copyOf(words.toArray(new String[words.size()]), size);
+    }
+
+    /**
+     * Returns count random digits in base; random digits are as hard to
+     * handle as those of pi, and much faster to produce.
+     */
+    static int[] digits(int count, int base) {
+    	Random random = new Random(SEED);
+    	int[] digits = new int[count];
+    	for (int i = 0; i < count; i = i + 1) {
+    		digits[i] = random.nextInt(base);
+    	}
+    	return digits;
+    }
+
+    /**
+     * Returns length random base-26 digits encoded with Main.BASIC_ALPHABET,
+     * the text that piwords.Main searches.
+     */
+    static String haystack(int length) {
+    	return DigitsToStringConverter.convertDigitsToString(
+    			digits(length, 26), 26, Main.BASIC_ALPHABET);
+    }
+}
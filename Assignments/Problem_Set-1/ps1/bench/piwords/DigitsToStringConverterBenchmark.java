@@ -0,0 +1,71 @@
+package piwords;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of DigitsToStringConverter, encoding precision digits in
+ * base 26 (the basic alphabet) and base 100 (a frequency alphabet) into a
+ * new String, into a reused char[], and into a reused direct ByteBuffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DigitsToStringConverterBenchmark {
+    @Param({"26", "100"})
+    public int base;
+
+    @Param({"10000", "1000000"})
+    public int precision;
+
+    private int[] digits;
+    private char[] alphabet;
+    private char[] chars;
+    private ByteBuffer bytes;
+
+    @Setup
+    public void setUp() {
+    	digits = BenchmarkData.digits(precision, base);
+    	alphabet = (base == 26) ? Main.BASIC_ALPHABET :
+    			AlphabetGenerator.generateFrequencyAlphabet(base,
+    					Main.WORD_LIST);
+    	chars = new char[precision];
+    	bytes = ByteBuffer.allocateDirect(precision);
+    }
+
+    @Benchmark
+    public String convertDigitsToString() {
+    	return DigitsToStringConverter.convertDigitsToString(digits, base,
+    			alphabet);
+    }
+
+    @Benchmark
+    public char[] convertDigitsIntoChars() {
+    	DigitsToStringConverter.convertDigitsInto(digits, 0, precision, base,
+    			alphabet, chars, 0);
+    	return chars;
+    }
+
+    @Benchmark
+    public ByteBuffer convertDigitsIntoDirectBuffer() {
+    	bytes.clear();
+    	DigitsToStringConverter.convertDigitsInto(digits, 0, precision, base,
+    			alphabet, bytes);
+    	return bytes;
+    }
+}
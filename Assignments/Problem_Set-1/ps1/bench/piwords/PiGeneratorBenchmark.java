@@ -0,0 +1,58 @@
+package piwords;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of PiGenerator: a single digit at increasing positions with
+ * piDigit, whose cost grows with the position, and the first precision
+ * digits with computePiInHex and computePiInHexParallel, as piwords.Main
+ * computes them.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class PiGeneratorBenchmark {
+    @State(Scope.Benchmark)
+    public static class Position {
+    	@Param({"1000", "10000", "100000"})
+    	public int position;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Precision {
+    	@Param({"1000", "10000"})
+    	public int precision;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public int piDigit(Position state) {
+    	return PiGenerator.piDigit(state.position);
+    }
+
+    @Benchmark
+    public int[] computePiInHex(Precision state) {
+    	return PiGenerator.computePiInHex(state.precision);
+    }
+
+    @Benchmark
+    public int[] computePiInHexParallel(Precision state) {
+    	return PiGenerator.computePiInHexParallel(state.precision);
+    }
+}
@@ -0,0 +1,89 @@
+package piwords;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the modular exponentiations available to the BBP series,
+ * on the inputs that the left sums of PiGenerator feed them when computing
+ * the digit at offset d, that is 16^(d - k) mod (8k + 1) for every
+ * 0 <= k <= d; each call does all d + 1 of them.
+ * 
+ * recursive is the original recursive int version of powerMod, which
+ * overflows once the modulus passes 46341, so it only runs at the offsets
+ * of smallOffset.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PowerModBenchmark {
+    @State(Scope.Benchmark)
+    public static class Offset {
+    	@Param({"5000", "100000", "1000000"})
+    	public long offset;
+    }
+
+    @State(Scope.Benchmark)
+    public static class SmallOffset {
+    	// 8 * 5000 + 1 <= 46341
+    	@Param({"1000", "5000"})
+    	public long smallOffset;
+    }
+
+    @Benchmark
+    public long recursive(SmallOffset state) {
+    	long d = state.smallOffset;
+    	long sum = 0;
+    	for (long k = 0; k <= d; k = k + 1) {
+    		sum = sum + recursivePowerMod(16, (int) (d - k), (int) (8 * k + 1));
+    	}
+    	return sum;
+    }
+
+    @Benchmark
+    public long powerMod(Offset state) {
+    	long d = state.offset;
+    	long sum = 0;
+    	for (long k = 0; k <= d; k = k + 1) {
+    		sum = sum + PiGenerator.powerMod(16, (int) (d - k),
+    				(int) (8 * k + 1));
+    	}
+    	return sum;
+    }
+
+    @Benchmark
+    public long montgomery(Offset state) {
+    	long d = state.offset;
+    	long sum = 0;
+    	for (long k = 0; k <= d; k = k + 1) {
+    		sum = sum + PiGenerator.montgomeryPowerMod(16, d - k, 8 * k + 1);
+    	}
+    	return sum;
+    }
+
+    // The original recursive PiGenerator.powerMod, kept here for comparison.
+    private static int recursivePowerMod(int a, int b, int m) {
+    	if (a == 0) {
+    		return 0;
+    	} else if (b == 0) {
+    		return 1 % m;
+    	} else if ((b % 2) == 0) {
+    		int half = recursivePowerMod(a, b / 2, m);
+    		return (half * half) % m;
+    	} else {
+    		return (a * recursivePowerMod(a, b - 1, m)) % m;
+    	}
+    }
+}
@@ -0,0 +1,62 @@
+package piwords;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of WordFinder over a random base-26 text of precision
+ * chars: getSubstrings with the needles given as an array (which builds the
+ * automaton on every call) and as a CompiledDictionary (which does not), and
+ * the counting mode, for dictionaries of dictionarySize words.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordFinderBenchmark {
+    @Param({"10000", "1000000"})
+    public int precision;
+
+    @Param({"100", "1000", "10000"})
+    public int dictionarySize;
+
+    private String haystack;
+    private String[] words;
+    private CompiledDictionary dictionary;
+
+    @Setup
+    public void setUp() {
+    	haystack = BenchmarkData.haystack(precision);
+    	words = BenchmarkData.dictionary(dictionarySize);
+    	dictionary = new CompiledDictionary(words);
+    }
+
+    @Benchmark
+    public Map<String, Integer> getSubstrings() {
+    	return WordFinder.getSubstrings(haystack, words);
+    }
+
+    @Benchmark
+    public Map<String, Integer> getSubstringsCompiled() {
+    	return WordFinder.getSubstrings(haystack, dictionary);
+    }
+
+    @Benchmark
+    public Map<String, Integer> getSubstringCountsCompiled() {
+    	return WordFinder.getSubstringCounts(haystack, dictionary);
+    }
+}
@@ -1,12 +1,34 @@
 package piwords;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
 
 public class AlphabetGenerator {
+    /**
+     * The number of letters a-z that the frequency alphabets are made of.
+     */
+    public static final int LETTERS = 26;
+
+    /**
+     * The number of chars or bytes of a corpus that a parallel count counts
+     * on one thread.
+     */
+    static final int PARALLEL_LEAF_CHARS = 1 << 20;
+
+    // The number of chars read from a Reader at a time, and of bytes copied
+    // out of a file mapping at a time.
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    // The largest part of a file that is mapped at once.
+    private static final long MAPPING_SIZE = 1L << 30;
+
     /**
      * Given a numeric base, return a char[] that maps every digit that is
      * representable in that base to a lower-case char.
@@ -58,271 +80,397 @@ public class AlphabetGenerator {
      */
     public static char[] generateFrequencyAlphabet(int base,
                                                    String[] trainingData) {
+    	if ((base < 2) || (trainingData.length == 0)) {
+    		return null;
+    	}
+    	long[] counts = countLetters(Arrays.asList(trainingData));
+    	if (total(counts) == 0) {
+    		// training strings without a single letter weight nothing
+    		return new char[base];
+    	}
+    	return generateFrequencyAlphabet(base, counts);
+    }
+
+    /**
+     * Same as generateFrequencyAlphabet(int, String[]), but counts the
+     * letters of the training strings on all available processors. The
+     * result is exactly that of generateFrequencyAlphabet(int, String[]).
+     *
+     * @param base A numeric base to get an alphabet for.
+     * @param trainingData The training data from which to generate frequency
+     *                     counts. This array is not mutated.
+     * @return A char[] that maps every digit of the base to a char that the
+     *         digit should be translated into.
+     */
+    public static char[] generateFrequencyAlphabetParallel(int base,
+            String[] trainingData) {
+    	if ((base < 2) || (trainingData.length == 0)) {
+    		return null;
+    	}
+    	long[] counts = countLettersParallel(Arrays.asList(trainingData));
+    	if (total(counts) == 0) {
+    		return new char[base];
+    	}
+    	return generateFrequencyAlphabet(base, counts);
+    }
+
+    /**
+     * Same as generateFrequencyAlphabet(int, String[]), but takes the
+     * training strings one at a time from an Iterable, so that they need not
+     * all be in memory at once.
+     *
+     * If base < 2, or trainingData has no letters a-z at all, return null.
+     *
+     * @param base A numeric base to get an alphabet for.
+     * @param trainingData The training data from which to generate frequency
+     *                     counts.
+     * @return A char[] that maps every digit of the base to a char that the
+     *         digit should be translated into.
+     */
+    public static char[] generateFrequencyAlphabet(int base,
+            Iterable<? extends CharSequence> trainingData) {
     	if (base < 2) {
     		return null;
-    	} else {
-    		int trainingSetSize = trainingData.length;
-    		if (trainingSetSize == 0) { // trainingData is an empty set {}, return null
-    			return null;
-    		} else {
-    			Map<Character, Integer> alphabetOccurrenceMap = new TreeMap<Character, Integer>();
-    			alphabetOccurrenceMap = countAlphabetOccurrenceInStringArray(trainingData);
-    			
-    			Map<Character, Double> alphabetPDFMap = new TreeMap<Character, Double>();
-    			alphabetPDFMap = computeAlphabetPDFMap(alphabetOccurrenceMap);
-    			
-    			Map<Character, Double> alphabetCDFMap = new TreeMap<Character, Double>();
-    			alphabetCDFMap = computeAlphabetCDFMap(alphabetPDFMap);
-    			
-    			Map<Character, Integer> alphabetDistribution =
-    					computeAlphabetCumulativeDistributionMap(base, alphabetCDFMap);
-    			
-    			char[] outputAlphabets = new char[base];
-    			outputAlphabets = generateOutputAlphabets(base, alphabetDistribution);
-    			Arrays.sort(outputAlphabets);
-    			
-    			return outputAlphabets;
-    		}
     	}
+    	return generateFrequencyAlphabet(base, countLetters(trainingData));
     }
-    
+
     /**
-     * Given an array of strings, return a Map<Character, Integer> that
-     * associate each alphabet with its occurrence this array.
-     * 
-     * Alphabets should be counted despite their cases.
-     * For example, 'E' and 'e' should be regarded as the same alphabet,
-     * and the occurrence of alphabet 'e' in string "Middle East" should be 2,
-     * rather than 1.
-     * 
-     * Besides, all the alphabets should occur in lower-case and int lexicographically
-     * ascending order in the return map.
-     * 
-     * If a String in the array has any characters outside the range a-z,
-     * ignore those characters and continue.
-     * 
-     * A sample application:
-     * 1. input: stringArray = {"People@Mars", "Egypt", "Middle East", "2 eggplants"}
-     * 2. output: strArrAlphOccurMap = <<'a', 3>,
-     * 									<'d', 2>,
-     * 									<'e', 6>,
-     * 									<'g', 3>,
-     * 									<'i', 1>,
-     * 									<'l', 3>,
-     * 									<'m', 2>,
-     * 									<'n', 1>,
-     * 									<'o', 1>,
-     * 									<'p', 4>,
-     * 									<'r', 1>
-     * 									<'s', 2>,
-     * 									<'t', 3>,
-     * 									<'y',1>>
-     * 
-     * 
-     * @param stringArray The array of strings to count for alphabet occurrence.
-     * @return A map that associates each alphabet with its occurrence in this array.
+     * Same as generateFrequencyAlphabet(int, String[]), but reads the
+     * training data from a Reader, in blocks of constant size, up to its end.
+     * The reader is not closed.
+     *
+     * If base < 2, or trainingData has no letters a-z at all, return null.
+     *
+     * @param base A numeric base to get an alphabet for.
+     * @param trainingData The training data from which to generate frequency
+     *                     counts.
+     * @return A char[] that maps every digit of the base to a char that the
+     *         digit should be translated into.
+     * @throws IOException if reading trainingData fails.
      */
-    private static Map<Character, Integer> countAlphabetOccurrenceInStringArray(String[] stringArray) {
-    	Map<Character, Integer> stringArrayAlphabetOccurenceMap = new TreeMap<Character, Integer>();
-    	int stringArrayLength = stringArray.length;
-    	
-    	Map<Character, Integer> stringAlphabetOccurenceMap = new TreeMap<Character, Integer>();
-    	
-    	for (int i = 0; i < stringArrayLength; i = i + 1) {
-    		stringAlphabetOccurenceMap = countAlphabetOccurrenceInString(stringArray[i]);
-    		stringArrayAlphabetOccurenceMap = augmentMap(stringArrayAlphabetOccurenceMap,
-    				stringAlphabetOccurenceMap);
+    public static char[] generateFrequencyAlphabet(int base,
+            Reader trainingData) throws IOException {
+    	if (base < 2) {
+    		return null;
     	}
-    	return stringArrayAlphabetOccurenceMap;
+    	return generateFrequencyAlphabet(base, countLetters(trainingData));
     }
-    
+
     /**
-     * Given a strings, return a Map<Character, Integer> that associate each
-     * alphabet with its occurrence this string.
-     * 
-     * Alphabets should be counted despite their cases.
-     * For example, 'E' and 'e' should be regarded as the same alphabet,
-     * and the occurrence of alphabet 'e' in string "Middle East" should be 2,
-     * rather than 1.
-     * 
-     * Besides, all the alphabets should occur in lower-case and in lexicographically
-     * ascending order in the return map.
-     * 
-     * If a String in the array has any characters outside the range a-z,
-     * ignore those characters and continue.
-     * 
-     * A sample application:
-     * 1. input: mixedCaseString = "People@Venus"
-     * 2. output: strAlphOccurMap = <<'e', 3>,
-     * 								 <'l', 1>,
-     * 								 <'n', 1>,
-     * 								 <'o', 1>,
-     * 								 <'p', 2>,
-     * 								 <'s', 1>,
-     * 								 <'v', 1>>
-     * 
-     * @param mixedCaseString The strings of mixed-case characters to count for
-     * 		  alphabet occurrence.
-     * @return A map that associates each alphabet with its occurrence in this string.
+     * Given a numeric base and the number of occurrences of each letter,
+     * return the frequency alphabet of generateFrequencyAlphabet(int,
+     * String[]): letter c gets the digits from round(CDF(c - 1) * base) up
+     * to round(CDF(c) * base), where the CDF is computed in a single prefix
+     * sum over the counts.
+     *
+     * If base < 2, counts.length != LETTERS, a count is < 0, or all counts
+     * are 0, return null.
+     *
+     * @param base A numeric base to get an alphabet for.
+     * @param counts counts[i] is the number of occurrences of letter 'a' + i.
+     *               This array is not mutated.
+     * @return A char[] that maps every digit of the base to a char that the
+     *         digit should be translated into.
      */
-    private static Map<Character, Integer> countAlphabetOccurrenceInString(String mixedCaseString) {
-    	Map<Character, Integer> alphaOccurMap = new TreeMap<Character, Integer>();
-    	int strLen = mixedCaseString.length();
-    	String lowerCaseStr = mixedCaseString.toLowerCase();
-    	for (int i = 0; i < strLen; i = i + 1) {
-    		char checkChar = lowerCaseStr.charAt(i);
-    		if (Character.isAlphabetic(checkChar)) {
-    			if (alphaOccurMap.containsKey(checkChar)) {
-    				alphaOccurMap.put(checkChar, alphaOccurMap.get(checkChar) + 1);
-    			} else {
-    				alphaOccurMap.put(checkChar, 1);
-    			}
+    public static char[] generateFrequencyAlphabet(int base, long[] counts) {
+    	if ((base < 2) || (counts.length != LETTERS)) {
+    		return null;
+    	}
+    	long total = 0;
+    	for (int i = 0; i < LETTERS; i = i + 1) {
+    		if (counts[i] < 0) {
+    			return null;
+    		}
+    		total = total + counts[i];
+    	}
+    	if (total == 0) {
+    		return null;
+    	}
+
+    	char[] alphabet = new char[base];
+    	long cumulative = 0;
+    	int digit = 0;
+    	for (int i = 0; i < LETTERS; i = i + 1) {
+    		cumulative = cumulative + counts[i];
+    		// the last endpoint is exactly base, since total / total == 1
+    		int end = (int) Math.round((double) cumulative / total * base);
+    		while (digit < end) {
+    			alphabet[digit] = (char) ('a' + i);
+    			digit = digit + 1;
     		}
     	}
-    	return alphaOccurMap;
+    	return alphabet;
     }
-    
+
     /**
-     * Given a base map (Map<Character, Integer> baseMap) and a supplement map
-     * (Map<Character, Integer> supplementMap), return the baseMap augmented by
-     * entries in the supplementMap.
-     * 
-     * If an entry of key K from supplementMap does not appears in baseMap,
-     * then put that entry into baseMap. Otherwise, increase the value of entry K
-     * in baseMap by the value of entry K in supplementMap.
-     * 
-     * @param baseMap The base map to be augmented.
-     * @param supplementMap The supplement map which is used to augmented the baseMap.
-     * @return The new baseMap augmented by entries in the supplementMap.
+     * Counts the letters of a corpus of strings. Upper-case letters A-Z are
+     * counted as their lower-case letters; all other characters are ignored.
+     *
+     * @param corpus The strings to count the letters of.
+     * @return An array of LETTERS counts, where element i is the number of
+     *         occurrences of letter 'a' + i.
      */
-    private static Map<Character, Integer> augmentMap(Map<Character, Integer> baseMap,
-    		Map<Character, Integer> supplementMap) {
-    	Iterator<Entry<Character, Integer>> iter = supplementMap.entrySet().iterator();
-    	while (iter.hasNext()) {
-    		Map.Entry<Character, Integer> entry = (Map.Entry<Character, Integer>) iter.next();
-    		char addKey = entry.getKey();
-    		int addVal = entry.getValue();
-    		if (baseMap.containsKey(addKey)) {
-    			baseMap.put(addKey, baseMap.get(addKey) + addVal);
-    		} else {
-    			baseMap.put(addKey, addVal);
+    public static long[] countLetters(Iterable<? extends CharSequence> corpus) {
+    	long[] counts = new long[LETTERS];
+    	int[] partial = new int[LETTERS];
+    	// the number of chars counted into partial, which bounds its counts
+    	int pending = 0;
+    	for (CharSequence text : corpus) {
+    		int length = text.length();
+    		if (pending > Integer.MAX_VALUE - length) {
+    			flush(partial, counts);
+    			pending = 0;
     		}
+    		pending = pending + length;
+    		countInto(text, 0, length, partial);
     	}
-    	return baseMap;
+    	flush(partial, counts);
+    	return counts;
     }
-    
+
     /**
-     * Given a map, return the sum of values in all its entries.
-     * 
-     * If there is no entry in the map, return 0.
-     * 
-     * @param map The map to count for entry value sum.
-     * @return Sum of values in all the map's entries.
+     * Same as countLetters(Iterable), but reads the corpus from a Reader, in
+     * blocks of constant size, up to its end. The reader is not closed.
+     *
+     * @param corpus The text to count the letters of.
+     * @return An array of LETTERS counts, where element i is the number of
+     *         occurrences of letter 'a' + i.
+     * @throws IOException if reading corpus fails.
      */
-    private static int mapSumValue(Map<Character, Integer> map) {
-    	int sumVal = 0;
-    	Iterator<Entry<Character, Integer>> iter = map.entrySet().iterator();
-    	while (iter.hasNext()) {
-    		Map.Entry<Character, Integer> entry = (Map.Entry<Character, Integer>) iter.next();
-    		int val = entry.getValue();
-    		sumVal = sumVal + val;
+    public static long[] countLetters(Reader corpus) throws IOException {
+    	long[] counts = new long[LETTERS];
+    	int[] partial = new int[LETTERS];
+    	char[] buffer = new char[READ_BUFFER_SIZE];
+    	int read;
+    	while ((read = corpus.read(buffer, 0, buffer.length)) != -1) {
+    		for (int i = 0; i < read; i = i + 1) {
+    			int letter = (buffer[i] | 0x20) - 'a';
+    			if ((letter >= 0) && (letter < LETTERS)) {
+    				partial[letter] = partial[letter] + 1;
+    			}
+    		}
+    		flush(partial, counts);
     	}
-    	return sumVal;
+    	return counts;
     }
-    
+
     /**
-     * Given a map of alphabet occurrence, return a map of probability of each
-     * character a-z, which is a Probability Distribution Function (PDF) of all
-     * the alphabets.
-     * 
-     * @param alphaOccurMap A map of alphabet occurrence.
-     * @return A map of probability of each alphabet.
+     * Same as countLetters(Iterable), but splits the corpus into parts that
+     * are counted on all available processors, each into its own histogram,
+     * and adds up the histograms.
+     *
+     * @param corpus The strings to count the letters of. This list is not
+     *               mutated, and should support fast random access.
+     * @return An array of LETTERS counts, where element i is the number of
+     *         occurrences of letter 'a' + i.
+     */
+    public static long[] countLettersParallel(
+            List<? extends CharSequence> corpus) {
+    	return ParallelPool.POOL.invoke(
+    			new CorpusTask(corpus, 0, corpus.size()));
+    }
+
+    /**
+     * Counts the letters of a text file as countLetters(Reader) would, but
+     * maps the file into memory and counts its parts on all available
+     * processors.
+     *
+     * The file is counted byte by byte, so it must be in an encoding in which
+     * the letters A-Z and a-z are the single bytes of their ASCII codes and
+     * no other character contains those bytes, such as ASCII, ISO-8859-1 or
+     * UTF-8.
+     *
+     * @param corpus The file to count the letters of.
+     * @return An array of LETTERS counts, where element i is the number of
+     *         occurrences of letter 'a' + i.
+     * @throws IOException if reading corpus fails.
      */
-    private static Map<Character, Double> computeAlphabetPDFMap(Map<Character, Integer> alphaOccurMap){
-    	
-    	Map<Character, Double> alphabetPDFMap = new TreeMap<Character, Double>();
-    	int totalAlphabetAmount = mapSumValue(alphaOccurMap);
-    	Iterator<Entry<Character, Integer>> iter = alphaOccurMap.entrySet().iterator();
-    	while (iter.hasNext()) {
-    		Map.Entry<Character, Integer> entry = (Map.Entry<Character, Integer>) iter.next();
-    		char alphabet = entry.getKey();
-    		int alphabetOccurrence = entry.getValue();
-    		// WARNING: Don't forget to cast both the numerator and denominator to floating-point
-    		//			value before division. Otherwise, the alphabetFreq will be zero.
-    		double alphabetFreq = (double)alphabetOccurrence / (double)totalAlphabetAmount;
-    		alphabetPDFMap.put(alphabet, alphabetFreq);
+    public static long[] countLettersParallel(File corpus) throws IOException {
+    	long[] counts = new long[LETTERS];
+    	RandomAccessFile input = new RandomAccessFile(corpus, "r");
+    	try {
+    		FileChannel channel = input.getChannel();
+    		long size = channel.size();
+    		for (long start = 0; start < size; start = start + MAPPING_SIZE) {
+    			long length = Math.min(MAPPING_SIZE, size - start);
+    			ByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY,
+    					start, length);
+    			long[] part = ParallelPool.POOL.invoke(
+    					new BytesTask(mapping, 0, (int) length));
+    			add(part, counts);
+    		}
+    	} finally {
+    		input.close();
     	}
-    	return alphabetPDFMap;
+    	return counts;
     }
-    
+
     /**
-     * Given a map of alphabet Probability Distribution Function (PDF), return a map
-     * of cumulative probability of each character a-z, which is a Cumulative Distribution
-     * Function (CDF) of all the alphabet.
-     * 
-     * @param alphabetPDFMap A map of probability of each alphabet.
-     * @return A map of cumulative probability of each alphabet.
+     * Counts the letters of the strings corpus[from .. to - 1].
      */
-    private static Map<Character, Double> computeAlphabetCDFMap(Map<Character, Double> alphabetPDFMap){
-    	Map<Character, Double> alphabetCDFMap = new TreeMap<Character, Double>();
-    	Iterator<Entry<Character, Double>> iter = alphabetPDFMap.entrySet().iterator();
-    	double CDF = 0.0;
-    	while (iter.hasNext()) {
-    		Map.Entry<Character, Double> entry = (Map.Entry<Character, Double>) iter.next();
-    		char alphabet = entry.getKey();
-    		double alphabetPDF = entry.getValue();
-    		CDF = alphabetPDF + CDF;
-    		alphabetCDFMap.put(alphabet, CDF);
+    private static class CorpusTask extends RecursiveTask<long[]> {
+    	private static final long serialVersionUID = 1L;
+
+    	private final List<? extends CharSequence> corpus;
+    	private final int from;
+    	private final int to;
+
+    	CorpusTask(List<? extends CharSequence> corpus, int from, int to) {
+    		this.corpus = corpus;
+    		this.from = from;
+    		this.to = to;
+    	}
+
+    	@Override
+    	protected long[] compute() {
+    		if (to - from == 1) {
+    			// a single long string is split by position instead
+    			CharSequence text = corpus.get(from);
+    			return new TextTask(text, 0, text.length()).compute();
+    		}
+    		long chars = 0;
+    		for (int i = from; (i < to) && (chars <= PARALLEL_LEAF_CHARS);
+    				i = i + 1) {
+    			chars = chars + corpus.get(i).length();
+    		}
+    		if (chars <= PARALLEL_LEAF_CHARS) {
+    			long[] counts = new long[LETTERS];
+    			int[] partial = new int[LETTERS];
+    			for (int i = from; i < to; i = i + 1) {
+    				CharSequence text = corpus.get(i);
+    				countInto(text, 0, text.length(), partial);
+    			}
+    			// fewer than PARALLEL_LEAF_CHARS letters, so no overflow
+    			flush(partial, counts);
+    			return counts;
+    		}
+    		int middle = from + (to - from) / 2;
+    		CorpusTask right = new CorpusTask(corpus, middle, to);
+    		right.fork();
+    		long[] counts = new CorpusTask(corpus, from, middle).compute();
+    		add(right.join(), counts);
+    		return counts;
     	}
-    	return alphabetCDFMap;
     }
-    
+
     /**
-     * Given a base and a map of alphabet Cumulative Distribution Function (CDF), return a map
-     * of cumulative distribution of each character a-z.
-     * 
-     * @param base A numeric base to get an alphabet for.
-     * @param alphabetCDFMap A map of cumulative probability of each alphabet.
-     * @return A map of cumulative distribution of each alphabet.
+     * Counts the letters of text[from .. to - 1].
      */
-    private static Map<Character, Integer> computeAlphabetCumulativeDistributionMap(int base,
-    	Map<Character, Double> alphabetCDFMap) {
-    	
-    	Map<Character, Integer> alphabetCumulativeDistributionMap = new TreeMap<Character, Integer>();
-    	Iterator<Entry<Character, Double>> iter = alphabetCDFMap.entrySet().iterator();
-    	while (iter.hasNext()) {
-    		Map.Entry<Character, Double> entry = (Map.Entry<Character, Double>) iter.next();
-    		char alphabet = entry.getKey();
-    		double alphabetCDF = entry.getValue();
-    		int alphabetDistribution = (int) Math.round(alphabetCDF * base);
-    		alphabetCumulativeDistributionMap.put(alphabet, alphabetDistribution);
+    private static class TextTask extends RecursiveTask<long[]> {
+    	private static final long serialVersionUID = 1L;
+
+    	private final CharSequence text;
+    	private final int from;
+    	private final int to;
+
+    	TextTask(CharSequence text, int from, int to) {
+    		this.text = text;
+    		this.from = from;
+    		this.to = to;
+    	}
+
+    	@Override
+    	protected long[] compute() {
+    		if (to - from <= PARALLEL_LEAF_CHARS) {
+    			long[] counts = new long[LETTERS];
+    			int[] partial = new int[LETTERS];
+    			countInto(text, from, to, partial);
+    			flush(partial, counts);
+    			return counts;
+    		}
+    		int middle = from + (to - from) / 2;
+    		TextTask right = new TextTask(text, middle, to);
+    		right.fork();
+    		long[] counts = new TextTask(text, from, middle).compute();
+    		add(right.join(), counts);
+    		return counts;
     	}
-    	return alphabetCumulativeDistributionMap;
     }
-    
+
     /**
-     * Given a base and a map of cumulative distribution of each alphabet, return an char[]
-     * where alphabets are distributed by the alphabet cumulative distribution map.
-     * 
-     * @param base A numeric base to get an alphabet for.
-     * @param alphabetDistributionMap A map of cumulative distribution of each alphabet.
-     * @return A char[] in which alphabets are distributed by the alphabet cumulative
-     * 		   distribution map.
+     * Counts the letters of the bytes bytes[from .. to - 1], where bytes is
+     * shared with other tasks and only read through absolute positions.
      */
-    private static char[] generateOutputAlphabets(int base, Map<Character, Integer> alphabetDistributionMap){
-    	
-    	char[] outputAlphabetArray = new char[base];
-    	Iterator<Entry<Character, Integer>> iter = alphabetDistributionMap.entrySet().iterator();
-    	int i = 0;
-    	while (iter.hasNext()) {
-    		Map.Entry<Character, Integer> entry = (Map.Entry<Character, Integer>) iter.next();
-    		char alphabet = entry.getKey();
-    		int alphabetDistribEndpoint = entry.getValue();
-    		while (i < alphabetDistribEndpoint) {
-    			outputAlphabetArray[i] = alphabet;
-    			i = i + 1;
+    private static class BytesTask extends RecursiveTask<long[]> {
+    	private static final long serialVersionUID = 1L;
+
+    	private final ByteBuffer bytes;
+    	private final int from;
+    	private final int to;
+
+    	BytesTask(ByteBuffer bytes, int from, int to) {
+    		this.bytes = bytes;
+    		this.from = from;
+    		this.to = to;
+    	}
+
+    	@Override
+    	protected long[] compute() {
+    		if (to - from <= PARALLEL_LEAF_CHARS) {
+    			long[] counts = new long[LETTERS];
+    			int[] partial = new int[LETTERS];
+    			byte[] buffer = new byte[Math.min(READ_BUFFER_SIZE, to - from)];
+    			// a view of our own, since bulk reads move the position
+    			ByteBuffer view = bytes.duplicate();
+    			view.position(from);
+    			for (int start = from; start < to; start = start + buffer.length) {
+    				int length = Math.min(buffer.length, to - start);
+    				view.get(buffer, 0, length);
+    				for (int i = 0; i < length; i = i + 1) {
+    					int letter = (buffer[i] | 0x20) - 'a';
+    					if ((letter >= 0) && (letter < LETTERS)) {
+    						partial[letter] = partial[letter] + 1;
+    					}
+    				}
+    			}
+    			flush(partial, counts);
+    			return counts;
+    		}
+    		int middle = from + (to - from) / 2;
+    		BytesTask right = new BytesTask(bytes, middle, to);
+    		right.fork();
+    		long[] counts = new BytesTask(bytes, from, middle).compute();
+    		add(right.join(), counts);
+    		return counts;
+    	}
+    }
+
+    // Counts the letters of text[from .. to - 1] into partial.
+    private static void countInto(CharSequence text, int from, int to,
+    		int[] partial) {
+    	for (int i = from; i < to; i = i + 1) {
+    		// folds A-Z onto a-z; nothing else lands in a-z
+    		int letter = (text.charAt(i) | 0x20) - 'a';
+    		if ((letter >= 0) && (letter < LETTERS)) {
+    			partial[letter] = partial[letter] + 1;
     		}
     	}
-    	return outputAlphabetArray;
+    }
+
+    // Adds counts to sum, element by element.
+    private static void add(long[] counts, long[] sum) {
+    	for (int i = 0; i < LETTERS; i = i + 1) {
+    		sum[i] = sum[i] + counts[i];
+    	}
+    }
+
+    // Adds the counts of partial to counts, and clears partial. Counting into
+    // ints, and flushing them before they can overflow, keeps the inner
+    // loops on ints.
+    private static void flush(int[] partial, long[] counts) {
+    	for (int i = 0; i < LETTERS; i = i + 1) {
+    		counts[i] = counts[i] + partial[i];
+    		partial[i] = 0;
+    	}
+    }
+
+    // Returns the sum of counts.
+    private static long total(long[] counts) {
+    	long total = 0;
+    	for (int i = 0; i < counts.length; i = i + 1) {
+    		total = total + counts[i];
+    	}
+    	return total;
     }
 }
@@ -2,6 +2,17 @@ package piwords;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Test;
 
 public class AlphabetGeneratorTest {
@@ -155,4 +166,135 @@ public class AlphabetGeneratorTest {
                 AlphabetGenerator.generateFrequencyAlphabet(
                         64, trainingData));
     }
+
+    @Test
+    public void countLettersTest() throws IOException {
+    	String[] trainingData = {"People@Mars", "Egypt", "Middle East",
+    			"2 eggplants", "[`{}]"};
+    	long[] expected = new long[AlphabetGenerator.LETTERS];
+    	expected['a' - 'a'] = 3;
+    	expected['d' - 'a'] = 2;
+    	expected['e' - 'a'] = 6;
+    	expected['g' - 'a'] = 3;
+    	expected['i' - 'a'] = 1;
+    	expected['l' - 'a'] = 3;
+    	expected['m' - 'a'] = 2;
+    	expected['n' - 'a'] = 1;
+    	expected['o' - 'a'] = 1;
+    	expected['p' - 'a'] = 4;
+    	expected['r' - 'a'] = 1;
+    	expected['s' - 'a'] = 3;
+    	expected['t' - 'a'] = 3;
+    	expected['y' - 'a'] = 1;
+
+    	assertArrayEquals(expected,
+    			AlphabetGenerator.countLetters(Arrays.asList(trainingData)));
+    	StringBuilder joined = new StringBuilder();
+    	for (String s : trainingData) {
+    		joined.append(s);
+    	}
+    	assertArrayEquals(expected, AlphabetGenerator.countLetters(
+    			new StringReader(joined.toString())));
+    }
+
+    @Test
+    public void streamingCorpusTest() throws IOException {
+    	// Main.WORD_LIST as a list of CharSequences and as one long text
+    	List<CharSequence> corpus = new ArrayList<CharSequence>();
+    	StringBuilder text = new StringBuilder();
+    	for (String word : Main.WORD_LIST) {
+    		corpus.add(new StringBuilder(word));
+    		text.append(word).append('\n');
+    	}
+    	for (int base = 2; base <= 100; base = base + 1) {
+    		char[] expected = AlphabetGenerator.generateFrequencyAlphabet(
+    				base, Main.WORD_LIST);
+    		assertArrayEquals(expected,
+    				AlphabetGenerator.generateFrequencyAlphabet(base, corpus));
+    		assertArrayEquals(expected,
+    				AlphabetGenerator.generateFrequencyAlphabet(base,
+    						new StringReader(text.toString())));
+    	}
+    }
+
+    @Test
+    public void countsAlphabetTest() {
+    	long[] counts = new long[AlphabetGenerator.LETTERS];
+    	// CDF(f) * 5 = 7 / 14 * 5 = 2.5 exactly, which rounds up
+    	counts['b' - 'a'] = 1;
+    	counts['c' - 'a'] = 3;
+    	counts['d' - 'a'] = 1;
+    	counts['e' - 'a'] = 1;
+    	counts['f' - 'a'] = 1;
+    	counts['u' - 'a'] = 7;
+    	char[] expectedOutput = {'c', 'd', 'f', 'u', 'u'};
+    	assertArrayEquals(expectedOutput,
+    			AlphabetGenerator.generateFrequencyAlphabet(5, counts));
+
+    	// billions of occurrences do not overflow
+    	counts['u' - 'a'] = 7L << 40;
+    	assertArrayEquals(new char[] {'u', 'u', 'u', 'u', 'u'},
+    			AlphabetGenerator.generateFrequencyAlphabet(5, counts));
+    }
+
+    @Test
+    public void invalidCountsTest() throws IOException {
+    	long[] counts = new long[AlphabetGenerator.LETTERS];
+    	assertNull(AlphabetGenerator.generateFrequencyAlphabet(10, counts));
+    	assertNull(AlphabetGenerator.generateFrequencyAlphabet(10, new long[3]));
+    	counts[0] = -1;
+    	counts[1] = 2;
+    	assertNull(AlphabetGenerator.generateFrequencyAlphabet(10, counts));
+    	assertNull(AlphabetGenerator.generateFrequencyAlphabet(10,
+    			new StringReader("1 + 1 = 2")));
+    	assertNull(AlphabetGenerator.generateFrequencyAlphabet(1,
+    			new StringReader("abc")));
+    }
+
+    @Test
+    public void parallelTrainingTest() throws IOException {
+    	// enough copies of the word list for several parallel parts, with a
+    	// single long string among them
+    	List<CharSequence> corpus = new ArrayList<CharSequence>();
+    	StringBuilder text = new StringBuilder();
+    	while (text.length() < 3 * AlphabetGenerator.PARALLEL_LEAF_CHARS) {
+    		for (String word : Main.WORD_LIST) {
+    			corpus.add(word);
+    			text.append(word).append('\n');
+    		}
+    	}
+    	corpus.add(text);
+    	long[] expected = AlphabetGenerator.countLetters(corpus);
+    	assertArrayEquals(expected,
+    			AlphabetGenerator.countLettersParallel(corpus));
+
+    	for (int base = 2; base <= 100; base = base + 1) {
+    		assertArrayEquals(
+    				AlphabetGenerator.generateFrequencyAlphabet(
+    						base, Main.WORD_LIST),
+    				AlphabetGenerator.generateFrequencyAlphabetParallel(
+    						base, Main.WORD_LIST));
+    	}
+    	assertNull(AlphabetGenerator.generateFrequencyAlphabetParallel(
+    			10, new String[0]));
+    }
+
+    @Test
+    public void parallelFileTrainingTest() throws IOException {
+    	File file = File.createTempFile("corpus", ".txt");
+    	file.deleteOnExit();
+    	StringBuilder text = new StringBuilder();
+    	while (text.length() < 3 * AlphabetGenerator.PARALLEL_LEAF_CHARS) {
+    		// letters, non-letters, and multi-byte UTF-8 characters
+    		text.append("Caf\u00e9 [na\u00efve] \u00c0 la Z\u00fcrich @`{\n");
+    	}
+    	Writer writer = new OutputStreamWriter(new FileOutputStream(file),
+    			Charset.forName("UTF-8"));
+    	writer.write(text.toString());
+    	writer.close();
+
+    	assertArrayEquals(
+    			AlphabetGenerator.countLetters(new StringReader(text.toString())),
+    			AlphabetGenerator.countLettersParallel(file));
+    }
 }
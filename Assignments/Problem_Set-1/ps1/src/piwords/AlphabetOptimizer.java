@@ -0,0 +1,378 @@
+package piwords;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Searches for the alphabet that, applied to a given string of digits, finds
+ * the most words of a dictionary in the encoded text, instead of the alphabet
+ * that only follows letter frequencies.
+ *
+ * The search starts from a given alphabet, improves it greedily one digit at
+ * a time (trying every letter of the dictionary for each digit, and keeping
+ * the best) until no single change helps, and then goes on with simulated
+ * annealing for the rest of its budget, keeping the best alphabet it sees.
+ *
+ * Each candidate is scored incrementally: the number of times each word
+ * occurs is kept up to date, and changing the letter of digit d only rescans
+ * the text around the positions of d (up to the longest word on each side)
+ * with the dictionary's automaton, instead of the whole text.
+ */
+public class AlphabetOptimizer {
+    /**
+     * The number of candidate alphabets that optimizeAlphabet scores when it
+     * is not told otherwise.
+     */
+    public static final int DEFAULT_ITERATIONS = 100000;
+
+    // The annealing temperature, in words, at the start and at the end of
+    // the annealing; it falls geometrically in between.
+    private static final double START_TEMPERATURE = 2.0;
+    private static final double END_TEMPERATURE = 0.05;
+
+    /**
+     * Returns an alphabet for digits that covers at least as many of words
+     * as initial, found by scoring at most iterations candidates. The same
+     * arguments always give the same alphabet.
+     *
+     * The letters of the result are those of initial and those that occur in
+     * words.
+     *
+     * If base < 2, initial.length != base, iterations < 0, or digits[i] < 0
+     * or digits[i] >= base for any i, consider the input invalid, and return
+     * null.
+     *
+     * @param digits The digits to encode. This object is not mutated.
+     * @param base The base the digits are encoded in.
+     * @param words The words to find. This object is not mutated.
+     * @param initial The alphabet to start from. This object is not mutated.
+     * @param iterations The number of candidate alphabets to score.
+     * @param seed The seed of the random choices of the annealing.
+     * @return The best alphabet found.
+     */
+    public static char[] optimizeAlphabet(int[] digits, int base,
+                                          String[] words, char[] initial,
+                                          int iterations, long seed) {
+    	return optimizeAlphabet(digits, base, new WordMatcher(words), initial,
+    			iterations, seed);
+    }
+
+    /**
+     * Same as optimizeAlphabet(int[], int, String[], char[], int, long),
+     * with the words of matcher.
+     */
+    public static char[] optimizeAlphabet(int[] digits, int base,
+                                          WordMatcher matcher, char[] initial,
+                                          int iterations, long seed) {
+    	if ((base < 2) || (initial.length != base) || (iterations < 0)) {
+    		return null;
+    	}
+    	for (int digit : digits) {
+    		if ((digit < 0) || (digit >= base)) {
+    			return null;
+    		}
+    	}
+    	int symbols = matcher.symbolCount();
+    	int[] start = new int[base];
+    	for (int d = 0; d < base; d = d + 1) {
+    		start[d] = matcher.symbolOf(initial[d]);
+    	}
+    	Coverage coverage = new Coverage(matcher, digits, base, start);
+    	int left = iterations;
+
+    	// the digits that occur at all; the others cannot change anything
+    	int[] used = new int[base];
+    	int usedCount = 0;
+    	for (int d = 0; d < base; d = d + 1) {
+    		if (coverage.occurrences(d) > 0) {
+    			used[usedCount] = d;
+    			usedCount = usedCount + 1;
+    		}
+    	}
+    	if ((symbols == 0) || (usedCount == 0)) {
+    		return initial.clone();
+    	}
+
+    	// 1. Greedy: the best letter for each digit in turn, until a round
+    	// over all digits changes nothing.
+    	boolean improved = true;
+    	while (improved && (left > 0)) {
+    		improved = false;
+    		for (int k = 0; (k < usedCount) && (left > 0); k = k + 1) {
+    			int d = used[k];
+    			int current = coverage.symbol(d);
+    			int bestSymbol = current;
+    			int best = coverage.covered();
+    			for (int s = 0; (s < symbols) && (left > 0); s = s + 1) {
+    				if (s != current) {
+    					int score = coverage.assign(d, s);
+    					coverage.undo();
+    					left = left - 1;
+    					if (score > best) {
+    						best = score;
+    						bestSymbol = s;
+    					}
+    				}
+    			}
+    			if (bestSymbol != current) {
+    				coverage.assign(d, bestSymbol);
+    				improved = true;
+    			}
+    		}
+    	}
+
+    	// 2. Annealing: random changes, kept if they do not lose words, or
+    	// with a probability that falls with the words lost and with time.
+    	int[] best = coverage.symbols();
+    	int bestCovered = coverage.covered();
+    	Random random = new Random(seed);
+    	double temperature = START_TEMPERATURE;
+    	double cooling = Math.pow(END_TEMPERATURE / START_TEMPERATURE,
+    			1.0 / Math.max(1, left));
+    	while (left > 0) {
+    		int d = used[random.nextInt(usedCount)];
+    		int s = random.nextInt(symbols);
+    		if (s != coverage.symbol(d)) {
+    			int before = coverage.covered();
+    			int after = coverage.assign(d, s);
+    			if ((after < before) && (random.nextDouble() >=
+    					Math.exp((after - before) / temperature))) {
+    				coverage.undo();
+    			} else if (after > bestCovered) {
+    				bestCovered = after;
+    				best = coverage.symbols();
+    			}
+    		}
+    		temperature = temperature * cooling;
+    		left = left - 1;
+    	}
+
+    	// back to chars; a digit that keeps its symbol keeps its char, which
+    	// need not occur in the words
+    	char[] charOfSymbol = new char[symbols];
+    	for (int w = 0; w < matcher.wordCount(); w = w + 1) {
+    		String word = matcher.word(w);
+    		for (int i = 0; i < word.length(); i = i + 1) {
+    			charOfSymbol[matcher.symbolOf(word.charAt(i))] = word.charAt(i);
+    		}
+    	}
+    	char[] alphabet = initial.clone();
+    	for (int d = 0; d < base; d = d + 1) {
+    		if (best[d] != start[d]) {
+    			alphabet[d] = charOfSymbol[best[d]];
+    		}
+    	}
+    	return alphabet;
+    }
+
+    /**
+     * The number of occurrences of each word of a WordMatcher in a digit
+     * string encoded with an alphabet of symbols, kept up to date as the
+     * symbol of one digit at a time changes.
+     *
+     * A Coverage is mutable and not safe for use by multiple threads.
+     */
+    static class Coverage {
+    	/*
+    	 * Rep invariant:
+    	 *     text[i] == symbolOfDigit[digit at i] for every position i
+    	 *     positions[first[d] .. first[d + 1] - 1] are the positions of
+    	 *     digit d, ascending
+    	 *     counts[w] is the number of positions of text at which word w
+    	 *     ends (1 for the empty word)
+    	 *     covered is the number of w with counts[w] > 0
+    	 *     journal[0 .. journalSize - 1] are the changes to counts made by
+    	 *     the last assign, w for +1 and ~w for -1, if lastDigit != -1
+    	 */
+    	private final WordMatcher matcher;
+    	private final int maxLength;
+    	private final int[] text;
+    	private final int[] symbolOfDigit;
+    	private final int[] first;
+    	private final int[] positions;
+    	private final int[] counts;
+    	private int covered = 0;
+    	private int[] journal = new int[64];
+    	private int journalSize = 0;
+    	private int lastDigit = -1;
+    	private int lastSymbol;
+
+    	/**
+    	 * Counts the words of matcher in digits encoded with symbolOfDigit,
+    	 * where symbol -1 is a char that occurs in no word.
+    	 *
+    	 * Requires 0 <= digits[i] < base for every i, and symbolOfDigit.length
+    	 * == base. symbolOfDigit is copied.
+    	 */
+    	Coverage(WordMatcher matcher, int[] digits, int base,
+    			int[] symbolOfDigit) {
+    		this.matcher = matcher;
+    		this.maxLength = Math.max(1, matcher.maxLength());
+    		this.symbolOfDigit = symbolOfDigit.clone();
+    		this.text = new int[digits.length];
+    		this.first = new int[base + 1];
+    		this.positions = new int[digits.length];
+    		for (int i = 0; i < digits.length; i = i + 1) {
+    			text[i] = symbolOfDigit[digits[i]];
+    			first[digits[i] + 1] = first[digits[i] + 1] + 1;
+    		}
+    		for (int d = 0; d < base; d = d + 1) {
+    			first[d + 1] = first[d + 1] + first[d];
+    		}
+    		int[] next = Arrays.copyOf(first, base);
+    		for (int i = 0; i < digits.length; i = i + 1) {
+    			positions[next[digits[i]]] = i;
+    			next[digits[i]] = next[digits[i]] + 1;
+    		}
+
+    		this.counts = new int[matcher.wordCount()];
+    		if (matcher.output(0) == 0) {
+    			// the empty word occurs in any text
+    			counts[matcher.wordOf(0)] = 1;
+    			covered = 1;
+    		}
+    		if (text.length > 0) {
+    			scan(0, text.length - 1, 1);
+    		}
+    	}
+
+    	/**
+    	 * @return the number of words that occur in the text.
+    	 */
+    	int covered() {
+    		return covered;
+    	}
+
+    	/**
+    	 * @return the number of positions at which word w of the matcher ends
+    	 *         in the text.
+    	 */
+    	int count(int w) {
+    		return counts[w];
+    	}
+
+    	/**
+    	 * @return the number of positions of digit d in the text.
+    	 */
+    	int occurrences(int d) {
+    		return first[d + 1] - first[d];
+    	}
+
+    	/**
+    	 * @return the symbol of digit d.
+    	 */
+    	int symbol(int d) {
+    		return symbolOfDigit[d];
+    	}
+
+    	/**
+    	 * @return a copy of the symbols of all digits.
+    	 */
+    	int[] symbols() {
+    		return symbolOfDigit.clone();
+    	}
+
+    	/**
+    	 * Changes the symbol of digit d to symbol, and recounts the words
+    	 * that end within maxLength - 1 positions after a position of d.
+    	 *
+    	 * @return the number of words that occur in the new text.
+    	 */
+    	int assign(int d, int symbol) {
+    		journalSize = 0;
+    		lastDigit = d;
+    		lastSymbol = symbolOfDigit[d];
+    		if (symbol != lastSymbol) {
+    			rescan(d, -1);
+    			setSymbol(d, symbol);
+    			rescan(d, 1);
+    		}
+    		return covered;
+    	}
+
+    	/**
+    	 * Takes back the last assign, if it was not taken back yet.
+    	 */
+    	void undo() {
+    		if (lastDigit == -1) {
+    			return;
+    		}
+    		for (int j = journalSize - 1; j >= 0; j = j - 1) {
+    			int w = journal[j];
+    			if (w >= 0) {
+    				counts[w] = counts[w] - 1;
+    				if (counts[w] == 0) {
+    					covered = covered - 1;
+    				}
+    			} else {
+    				counts[~w] = counts[~w] + 1;
+    				if (counts[~w] == 1) {
+    					covered = covered + 1;
+    				}
+    			}
+    		}
+    		setSymbol(lastDigit, lastSymbol);
+    		journalSize = 0;
+    		lastDigit = -1;
+    	}
+
+    	private void setSymbol(int d, int symbol) {
+    		symbolOfDigit[d] = symbol;
+    		for (int k = first[d]; k < first[d + 1]; k = k + 1) {
+    			text[positions[k]] = symbol;
+    		}
+    	}
+
+    	// Adds sign to the counts of the words that end at a position within
+    	// maxLength - 1 after a position of d, merging overlapping ranges.
+    	private void rescan(int d, int sign) {
+    		int k = first[d];
+    		int end = first[d + 1];
+    		while (k < end) {
+    			int from = positions[k];
+    			int to = from + maxLength - 1;
+    			k = k + 1;
+    			while ((k < end) && (positions[k] <= to + 1)) {
+    				to = positions[k] + maxLength - 1;
+    				k = k + 1;
+    			}
+    			scan(from, Math.min(to, text.length - 1), sign);
+    		}
+    	}
+
+    	// Adds sign to the counts of the words that end at a position in
+    	// [from, to]. The automaton starts maxLength - 1 positions early, so
+    	// that it has seen all of every such word.
+    	private void scan(int from, int to, int sign) {
+    		int state = 0;
+    		for (int i = Math.max(0, from - maxLength + 1); i <= to;
+    				i = i + 1) {
+    			state = matcher.next(state, text[i]);
+    			if (i >= from) {
+    				for (int u = matcher.output(state); u > 0;
+    						u = matcher.outputLink(u)) {
+    					add(matcher.wordOf(u), sign);
+    				}
+    			}
+    		}
+    	}
+
+    	private void add(int w, int sign) {
+    		counts[w] = counts[w] + sign;
+    		if ((sign > 0) && (counts[w] == 1)) {
+    			covered = covered + 1;
+    		} else if ((sign < 0) && (counts[w] == 0)) {
+    			covered = covered - 1;
+    		}
+    		if (lastDigit == -1) {
+    			// counting the whole text, which is never taken back
+    			return;
+    		}
+    		if (journalSize == journal.length) {
+    			journal = Arrays.copyOf(journal, 2 * journal.length);
+    		}
+    		journal[journalSize] = (sign > 0) ? w : ~w;
+    		journalSize = journalSize + 1;
+    	}
+    }
+}
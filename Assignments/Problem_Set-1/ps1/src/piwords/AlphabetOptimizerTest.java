@@ -0,0 +1,108 @@
+package piwords;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AlphabetOptimizerTest {
+    @Test
+    public void basicOptimizeAlphabetTest() {
+        // "xyzxyz" has no word; the digits can spell "cab" or "dog" twice,
+        // but not both.
+        int[] digits = {0, 1, 2, 0, 1, 2};
+        String[] words = {"cab", "dog"};
+        char[] alphabet = AlphabetOptimizer.optimizeAlphabet(digits, 3, words,
+                new char[] {'x', 'y', 'z'}, 1000, 0);
+        String text = DigitsToStringConverter.convertDigitsToString(digits, 3,
+                alphabet);
+        assertEquals(1, WordFinder.getSubstrings(text, words).size());
+    }
+
+    @Test
+    public void keepsUnusedCharsTest() {
+        // digit 2 never occurs, so its char cannot matter
+        int[] digits = {0, 1, 0, 1};
+        String[] words = {"hi"};
+        char[] alphabet = AlphabetOptimizer.optimizeAlphabet(digits, 3, words,
+                new char[] {'a', 'b', '?'}, 1000, 0);
+        assertEquals('?', alphabet[2]);
+        assertTrue(new String(alphabet, 0, 2).equals("hi") ||
+                new String(alphabet, 0, 2).equals("ih"));
+    }
+
+    @Test
+    public void neverWorseTest() {
+        int[] digits = BaseTranslator.convertBase(
+                PiGenerator.computePiInHex(2000), 16, 26, 2000);
+        String[] words = Main.WORD_LIST;
+        int initialCovered = WordFinder.getSubstrings(
+                DigitsToStringConverter.convertDigitsToString(digits, 26,
+                        Main.BASIC_ALPHABET), words).size();
+
+        char[] alphabet = AlphabetOptimizer.optimizeAlphabet(digits, 26, words,
+                Main.BASIC_ALPHABET, 5000, 42);
+        int covered = WordFinder.getSubstrings(
+                DigitsToStringConverter.convertDigitsToString(digits, 26,
+                        alphabet), words).size();
+        assertTrue(covered > initialCovered);
+        // the same seed gives the same alphabet
+        assertArrayEquals(alphabet, AlphabetOptimizer.optimizeAlphabet(digits,
+                26, words, Main.BASIC_ALPHABET, 5000, 42));
+        // no iterations keep the initial alphabet
+        assertArrayEquals(Main.BASIC_ALPHABET, AlphabetOptimizer
+                .optimizeAlphabet(digits, 26, words, Main.BASIC_ALPHABET, 0,
+                        42));
+    }
+
+    @Test
+    public void invalidOptimizeAlphabetTest() {
+        String[] words = {"a"};
+        char[] initial = {'a', 'b'};
+        assertNull(AlphabetOptimizer.optimizeAlphabet(new int[] {0, 1}, 1,
+                words, new char[] {'a'}, 10, 0));
+        assertNull(AlphabetOptimizer.optimizeAlphabet(new int[] {0, 1}, 3,
+                words, initial, 10, 0));
+        assertNull(AlphabetOptimizer.optimizeAlphabet(new int[] {0, 2}, 2,
+                words, initial, 10, 0));
+        assertNull(AlphabetOptimizer.optimizeAlphabet(new int[] {-1}, 2,
+                words, initial, 10, 0));
+        assertNull(AlphabetOptimizer.optimizeAlphabet(new int[] {0, 1}, 2,
+                words, initial, -1, 0));
+    }
+
+    @Test
+    public void incrementalCoverageTest() {
+        // the counts kept through assign and undo agree with a recount
+        WordMatcher matcher = new WordMatcher(new String[] {"ab", "ba", "aba",
+                "b", "abba", "", "cc"});
+        int base = 5;
+        Random random = new Random(7);
+        int[] digits = new int[300];
+        for (int i = 0; i < digits.length; i = i + 1) {
+            digits[i] = random.nextInt(base);
+        }
+        int[] symbols = {-1, -1, -1, -1, -1};
+        AlphabetOptimizer.Coverage coverage = new AlphabetOptimizer.Coverage(
+                matcher, digits, base, symbols);
+        assertEquals(1, coverage.covered());
+        for (int step = 0; step < 200; step = step + 1) {
+            int d = random.nextInt(base);
+            int symbol = random.nextInt(matcher.symbolCount() + 1) - 1;
+            coverage.assign(d, symbol);
+            if (random.nextBoolean()) {
+                coverage.undo();
+            } else {
+                symbols[d] = symbol;
+            }
+            AlphabetOptimizer.Coverage recount = new AlphabetOptimizer.Coverage(
+                    matcher, digits, base, symbols);
+            assertEquals(recount.covered(), coverage.covered());
+            for (int w = 0; w < matcher.wordCount(); w = w + 1) {
+                assertEquals(recount.count(w), coverage.count(w));
+            }
+            assertArrayEquals(symbols, coverage.symbols());
+        }
+    }
+}
@@ -1,6 +1,16 @@
 package piwords;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
 public class BaseTranslator {
+    /**
+     * convertBase uses convertBaseDivideAndConquer once the number of input
+     * digits times precisionB reaches this, and convertBasePacked below.
+     */
+    static final long SUBQUADRATIC_THRESHOLD = 1L << 32;
+
     /**
      * Converts an array where the ith digit corresponds to (1 / baseA)^(i + 1)
      * digits[i], return an array output of size precisionB where the ith digit
@@ -33,6 +43,18 @@ public class BaseTranslator {
      */
     public static int[] convertBase(int[] digits, int baseA,
                                     int baseB, int precisionB) {
+    	return convertBase(digits, baseA, baseB, precisionB,
+    			SUBQUADRATIC_THRESHOLD);
+    }
+
+    /**
+     * Same as convertBase, but uses convertBaseDivideAndConquer once the
+     * number of input digits times precisionB reaches threshold rather than
+     * SUBQUADRATIC_THRESHOLD, so that tests can reach that path with small
+     * inputs.
+     */
+    static int[] convertBase(int[] digits, int baseA, int baseB,
+    		int precisionB, long threshold) {
     	
     	// If baseA < 2, baseB < 2, precisionB < 1, or the input digits is empty, return null
     	if ((baseA < 2) || (baseB < 2) || (precisionB < 1) || (digits == null)) {
@@ -47,6 +69,25 @@ public class BaseTranslator {
     		}
     	}
     	
+    	if ((long) inputDigitsLength * precisionB < threshold) {
+    		return convertBasePacked(digits, baseA, baseB, precisionB);
+    	} else {
+    		return convertBaseDivideAndConquer(digits, baseA, baseB, precisionB);
+    	}
+    }
+
+    /**
+     * Same as convertBase, by the algorithm described there: multiply the
+     * whole fraction by baseB once per output digit. Takes time proportional
+     * to digits.length * precisionB. convertBase never calls it: it is the
+     * reference implementation, kept for differential tests and benchmarks
+     * of the faster engines.
+     * 
+     * Requires the inputs to be valid as defined by convertBase.
+     */
+    static int[] convertBaseSchoolbook(int[] digits, int baseA,
+    		int baseB, int precisionB) {
+    	int inputDigitsLength = digits.length;
     	long[] opDigits = new long[inputDigitsLength];
     	int opDigitsLength = inputDigitsLength;
     	for (int t = 0; t < inputDigitsLength; t = t + 1) {
@@ -66,4 +107,181 @@ public class BaseTranslator {
     	}
         return outputArray;
     }
-}
\ No newline at end of file
+
+    /**
+     * Same as convertBaseSchoolbook, but several digits at a time.
+     * 
+     * The input is packed into limbs of k baseA digits, i.e. digits in base
+     * baseA^k, and every pass multiplies the fraction by baseB^m and so
+     * yields m output digits at once. k and m are the largest that keep
+     * every limb * baseB^m + carry within a long, and cut the number of
+     * multiply/divide steps by a factor of k * m (48 for 16 -> 26).
+     * 
+     * When baseA is a power of two, so is the limb base, and the division
+     * and remainder by it become a shift and a mask.
+     * 
+     * Requires the inputs to be valid as defined by convertBase.
+     */
+    static int[] convertBasePacked(int[] digits, int baseA, int baseB,
+    		int precisionB) {
+    	// k digits per limb, limbBase = baseA^k <= 2^32
+    	int k = 0;
+    	long limbBase = 1;
+    	while (limbBase * baseA <= (1L << 32)) {
+    		limbBase = limbBase * baseA;
+    		k = k + 1;
+    	}
+    	// m digits per pass, multiplier = baseB^m <= Long.MAX_VALUE / limbBase
+    	int m = 0;
+    	long multiplier = 1;
+    	while (multiplier <= Long.MAX_VALUE / limbBase / baseB) {
+    		multiplier = multiplier * baseB;
+    		m = m + 1;
+    	}
+
+    	// Pack, padding the last limb with trailing zeros, which leave the
+    	// fraction unchanged.
+    	int limbCount = (digits.length + k - 1) / k;
+    	long[] limbs = new long[limbCount];
+    	for (int i = 0; i < limbCount; i = i + 1) {
+    		long limb = 0;
+    		for (int j = i * k; j < (i + 1) * k; j = j + 1) {
+    			limb = limb * baseA + ((j < digits.length) ? digits[j] : 0);
+    		}
+    		limbs[i] = limb;
+    	}
+
+    	int[] outputArray = new int[precisionB];
+    	boolean powerOfTwo = (Long.bitCount(limbBase) == 1);
+    	int shift = Long.numberOfTrailingZeros(limbBase);
+    	long mask = limbBase - 1;
+    	for (int i = 0; i < precisionB; i = i + m) {
+    		long carry = 0;
+    		if (powerOfTwo) {
+    			for (int j = limbCount - 1; j >= 0; j = j - 1) {
+    				long x = (limbs[j] * multiplier) + carry;
+    				limbs[j] = x & mask;
+    				carry = x >>> shift;
+    			}
+    		} else {
+    			for (int j = limbCount - 1; j >= 0; j = j - 1) {
+    				long x = (limbs[j] * multiplier) + carry;
+    				limbs[j] = x % limbBase;
+    				carry = x / limbBase;
+    			}
+    		}
+    		// carry < baseB^m holds the next m output digits
+    		for (int j = m - 1; j >= 0; j = j - 1) {
+    			if (i + j < precisionB) {
+    				outputArray[i + j] = (int) (carry % baseB);
+    			}
+    			carry = carry / baseB;
+    		}
+    	}
+    	return outputArray;
+    }
+
+    /**
+     * Same as convertBase, in time subquadratic in the number of digits.
+     * 
+     * digits is the fraction N / baseA^n, where n = digits.length and N is
+     * the integer that digits spell in baseA, so its first precisionB digits
+     * in baseB are those of the integer M = floor(N * baseB^precisionB /
+     * baseA^n). N is assembled from digits, and M taken apart into digits, by
+     * splitting the digit vector in halves recursively and joining or
+     * separating the halves with a precomputed power of the base. Then all
+     * the work is in a few multiplications and divisions of BigIntegers as
+     * large as the whole number, which BigInteger performs with Karatsuba,
+     * Toom-Cook and Burnikel-Ziegler.
+     * 
+     * Requires the inputs to be valid as defined by convertBase.
+     */
+    static int[] convertBaseDivideAndConquer(int[] digits, int baseA,
+    		int baseB, int precisionB) {
+    	List<BigInteger> powersOfA = new ArrayList<BigInteger>();
+    	BigInteger n = digitsToInteger(digits, 0, digits.length, baseA,
+    			powersOfA);
+    	BigInteger scaledN = n.multiply(BigInteger.valueOf(baseB).pow(precisionB));
+    	BigInteger m;
+    	if (Integer.bitCount(baseA) == 1) {
+    		// baseA^n is a power of two
+    		int shift = Integer.numberOfTrailingZeros(baseA) * digits.length;
+    		m = scaledN.shiftRight(shift);
+    	} else {
+    		m = scaledN.divide(BigInteger.valueOf(baseA).pow(digits.length));
+    	}
+
+    	int[] outputArray = new int[precisionB];
+    	List<BigInteger> powersOfB = new ArrayList<BigInteger>();
+    	integerToDigits(m, outputArray, 0, precisionB, baseB, powersOfB);
+    	return outputArray;
+    }
+
+    // Returns the integer that digits[from .. to - 1] spell in base.
+    // powers caches base^(2^k) at index k, and is extended as needed.
+    private static BigInteger digitsToInteger(int[] digits, int from, int to,
+    		int base, List<BigInteger> powers) {
+    	int length = to - from;
+    	if (length <= digitsPerLong(base)) {
+    		long value = 0;
+    		for (int i = from; i < to; i = i + 1) {
+    			value = value * base + digits[i];
+    		}
+    		return BigInteger.valueOf(value);
+    	}
+    	// the right part has a power-of-two length, so its power is cached
+    	int k = 31 - Integer.numberOfLeadingZeros(length - 1);
+    	int mid = to - (1 << k);
+    	BigInteger left = digitsToInteger(digits, from, mid, base, powers);
+    	BigInteger right = digitsToInteger(digits, mid, to, base, powers);
+    	return left.multiply(powerOfBase(base, k, powers)).add(right);
+    }
+
+    // Writes the length digits of value in base into output[from .. from +
+    // length - 1], most significant first. Requires value < base^length.
+    // powers caches base^(2^k) at index k, and is extended as needed.
+    private static void integerToDigits(BigInteger value, int[] output,
+    		int from, int length, int base, List<BigInteger> powers) {
+    	if (length <= digitsPerLong(base)) {
+    		long rest = value.longValue();
+    		for (int i = from + length - 1; i >= from; i = i - 1) {
+    			output[i] = (int) (rest % base);
+    			rest = rest / base;
+    		}
+    		return;
+    	}
+    	int k = 31 - Integer.numberOfLeadingZeros(length - 1);
+    	int rightLength = 1 << k;
+    	BigInteger[] quotientAndRemainder =
+    			value.divideAndRemainder(powerOfBase(base, k, powers));
+    	integerToDigits(quotientAndRemainder[0], output, from,
+    			length - rightLength, base, powers);
+    	integerToDigits(quotientAndRemainder[1], output,
+    			from + length - rightLength, rightLength, base, powers);
+    }
+
+    // Returns base^(2^k), squaring the largest cached power until it is
+    // reached.
+    private static BigInteger powerOfBase(int base, int k,
+    		List<BigInteger> powers) {
+    	if (powers.isEmpty()) {
+    		powers.add(BigInteger.valueOf(base));
+    	}
+    	while (powers.size() <= k) {
+    		BigInteger last = powers.get(powers.size() - 1);
+    		powers.add(last.multiply(last));
+    	}
+    	return powers.get(k);
+    }
+
+    // Returns the largest number of digits in base whose value always fits
+    // in a long, i.e. the largest d with base^d <= 2^63.
+    private static int digitsPerLong(int base) {
+    	int d = 0;
+    	long limit = Long.MAX_VALUE / base;
+    	for (long power = 1; power <= limit; power = power * base) {
+    		d = d + 1;
+    	}
+    	return d;
+    }
+}
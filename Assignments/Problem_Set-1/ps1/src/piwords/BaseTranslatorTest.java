@@ -2,6 +2,8 @@ package piwords;
 
 import static org.junit.Assert.*;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 public class BaseTranslatorTest {
@@ -821,4 +823,75 @@ public class BaseTranslatorTest {
     	assertArrayEquals(expectedOutput,
     			BaseTranslator.convertBase(input, 8, 16, 3));
     }
+    
+    // the divide-and-conquer conversion agrees with the schoolbook one
+    @Test
+    public void divideAndConquerTest() {
+    	Random random = new Random(6005);
+    	int[][] bases = {{2, 10}, {16, 26}, {16, 100}, {10, 16}, {3, 7}, {100, 2}};
+    	int[] lengths = {0, 1, 17, 64, 65, 300};
+    	for (int[] base : bases) {
+    		for (int length : lengths) {
+    			int[] input = new int[length];
+    			for (int i = 0; i < length; i = i + 1) {
+    				input[i] = random.nextInt(base[0]);
+    			}
+    			int precision = 1 + random.nextInt(400);
+    			assertArrayEquals(
+    					BaseTranslator.convertBaseSchoolbook(input, base[0], base[1], precision),
+    					BaseTranslator.convertBaseDivideAndConquer(input, base[0], base[1], precision));
+    		}
+    	}
+    }
+    
+    // convertBase keeps its meaning on the divide-and-conquer path, which a
+    // threshold of 0 forces (SUBQUADRATIC_THRESHOLD is far above any input
+    // a test can afford)
+    @Test
+    public void largeBaseTranslatorTest() {
+    	int[] input = PiGenerator.computePiInHex(1000);
+    	int[] output = BaseTranslator.convertBase(input, 16, 10, 1000, 0);
+    	assertArrayEquals(BaseTranslator.convertBaseSchoolbook(input, 16, 10, 1000), output);
+    	// pi = 3.14159265358979323846...
+    	int[] expectedPrefix = {1, 4, 1, 5, 9, 2, 6, 5, 3, 5, 8, 9, 7, 9, 3, 2, 3, 8, 4, 6};
+    	for (int i = 0; i < expectedPrefix.length; i = i + 1) {
+    		assertEquals(expectedPrefix[i], output[i]);
+    	}
+    }
+    
+    // whatever the threshold, convertBase validates its inputs before it
+    // dispatches, and both sides of the threshold agree
+    @Test
+    public void thresholdDispatchTest() {
+    	int[] input = {1, 2, 3, 15, 0, 7};
+    	for (long threshold : new long[] {0, 36, 37, Long.MAX_VALUE}) {
+    		assertArrayEquals(BaseTranslator.convertBasePacked(input, 16, 10, 6),
+    				BaseTranslator.convertBase(input, 16, 10, 6, threshold));
+    		assertNull(BaseTranslator.convertBase(new int[] {16}, 16, 10, 6,
+    				threshold));
+    		assertNull(BaseTranslator.convertBase(input, 16, 1, 6, threshold));
+    	}
+    }
+    
+    // the limb-packed conversion agrees with the schoolbook one, including
+    // bases whose limbs are not powers of two and partial last limbs/passes
+    @Test
+    public void packedTest() {
+    	Random random = new Random(6005);
+    	int[][] bases = {{2, 10}, {16, 26}, {16, 100}, {10, 16}, {3, 7},
+    					 {100, 2}, {65536, 1000}, {1000, 65536}};
+    	int[] lengths = {0, 1, 7, 8, 9, 100};
+    	for (int[] base : bases) {
+    		for (int length : lengths) {
+    			int[] input = new int[length];
+    			for (int i = 0; i < length; i = i + 1) {
+    				input[i] = random.nextInt(base[0]);
+    			}
+    			int precision = 1 + random.nextInt(100);
+    			assertArrayEquals(
+    					BaseTranslator.convertBaseSchoolbook(input, base[0], base[1], precision),
+    					BaseTranslator.convertBasePacked(input, base[0], base[1], precision));
+    		}
+    	}
+    }
 }
@@ -0,0 +1,210 @@
+package piwords;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+
+/**
+ * A CompiledDictionary is a set of distinct words together with its
+ * WordMatcher automaton and statistics of its word lengths. It is built once
+ * from a word list, and can be saved to a binary file and loaded back without
+ * rebuilding the automaton, so that programs that search with the same
+ * dictionary on every run do not pay for compiling it every time.
+ *
+ * The file is written and read through a memory mapping. Its layout, with
+ * all numbers little-endian (so that on most machines the tables are copied
+ * out of the mapping without swapping bytes), is:
+ *
+ *     int    MAGIC
+ *     int    VERSION
+ *     ...    the automaton, as written by WordMatcher.write
+ *
+ * A CompiledDictionary is immutable and safe for use by multiple threads.
+ */
+public class CompiledDictionary {
+    /**
+     * The first four bytes of a dictionary file: "PiWD".
+     */
+    static final int MAGIC = 0x44576950;
+
+    /**
+     * The version of the file layout that this class reads and writes.
+     */
+    static final int VERSION = 1;
+
+    private final WordMatcher matcher;
+    // lengthCounts[n] is the number of words of length n
+    private final int[] lengthCounts;
+    private final long totalLength;
+
+    /**
+     * Compiles the given word list. Words that occur more than once in it
+     * are kept once, at their first appearance.
+     *
+     * @param words The words of the dictionary. This array is not mutated.
+     * @throws IllegalArgumentException if a word is null.
+     */
+    public CompiledDictionary(String[] words) {
+    	this(new WordMatcher(words));
+    }
+
+    private CompiledDictionary(WordMatcher matcher) {
+    	this.matcher = matcher;
+    	int maxLength = 0;
+    	for (int w = 0; w < matcher.wordCount(); w = w + 1) {
+    		maxLength = Math.max(maxLength, matcher.word(w).length());
+    	}
+    	this.lengthCounts = new int[maxLength + 1];
+    	long total = 0;
+    	for (int w = 0; w < matcher.wordCount(); w = w + 1) {
+    		int length = matcher.word(w).length();
+    		lengthCounts[length] = lengthCounts[length] + 1;
+    		total = total + length;
+    	}
+    	this.totalLength = total;
+    }
+
+    /**
+     * Loads a dictionary that save(File) wrote.
+     *
+     * @param file The file to read.
+     * @return The dictionary saved in file.
+     * @throws IOException if file cannot be read, or is not a valid
+     *         dictionary file of this version.
+     */
+    public static CompiledDictionary load(File file) throws IOException {
+    	RandomAccessFile input = new RandomAccessFile(file, "r");
+    	try {
+    		FileChannel channel = input.getChannel();
+    		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+    				0, channel.size());
+    		buffer.order(ByteOrder.LITTLE_ENDIAN);
+    		if ((buffer.remaining() < 8) || (buffer.getInt() != MAGIC)) {
+    			throw new IOException("CompiledDictionary: " + file +
+    					" is not a dictionary file");
+    		}
+    		int version = buffer.getInt();
+    		if (version != VERSION) {
+    			throw new IOException("CompiledDictionary: " + file +
+    					" has unsupported version " + version);
+    		}
+    		return new CompiledDictionary(WordMatcher.read(buffer));
+    	} finally {
+    		input.close();
+    	}
+    }
+
+    /**
+     * Saves this dictionary to file, replacing its contents, in the format
+     * that load(File) reads.
+     *
+     * @param file The file to write.
+     * @throws IOException if file cannot be written.
+     */
+    public void save(File file) throws IOException {
+    	long size = 8 + matcher.serializedSize();
+    	if (size > Integer.MAX_VALUE) {
+    		throw new IOException("CompiledDictionary: dictionary too large");
+    	}
+    	RandomAccessFile output = new RandomAccessFile(file, "rw");
+    	try {
+    		output.setLength(size);
+    		MappedByteBuffer buffer = output.getChannel().map(
+    				FileChannel.MapMode.READ_WRITE, 0, size);
+    		buffer.order(ByteOrder.LITTLE_ENDIAN);
+    		buffer.putInt(MAGIC);
+    		buffer.putInt(VERSION);
+    		matcher.write(buffer);
+    		buffer.force();
+    	} finally {
+    		output.close();
+    	}
+    }
+
+    /**
+     * @return the automaton that searches for the words of this dictionary.
+     */
+    public WordMatcher matcher() {
+    	return matcher;
+    }
+
+    /**
+     * @return the distinct words of this dictionary, in order of first
+     *         appearance in the word list it was compiled from.
+     */
+    public String[] words() {
+    	String[] words = new String[matcher.wordCount()];
+    	for (int w = 0; w < words.length; w = w + 1) {
+    		words[w] = matcher.word(w);
+    	}
+    	return words;
+    }
+
+    /**
+     * @return the number of distinct words of this dictionary.
+     */
+    public int wordCount() {
+    	return matcher.wordCount();
+    }
+
+    /**
+     * @return the length of the longest word, or 0 if there are no words.
+     */
+    public int maxLength() {
+    	return lengthCounts.length - 1;
+    }
+
+    /**
+     * @return the length of the shortest word, or 0 if there are no words.
+     */
+    public int minLength() {
+    	for (int n = 0; n < lengthCounts.length; n = n + 1) {
+    		if (lengthCounts[n] > 0) {
+    			return n;
+    		}
+    	}
+    	return 0;
+    }
+
+    /**
+     * @return the sum of the lengths of the words.
+     */
+    public long totalLength() {
+    	return totalLength;
+    }
+
+    /**
+     * @param length A word length.
+     * @return the number of words of exactly that length.
+     */
+    public int countOfLength(int length) {
+    	if ((length < 0) || (length >= lengthCounts.length)) {
+    		return 0;
+    	}
+    	return lengthCounts[length];
+    }
+
+    /**
+     * Returns the same map as WordFinder.getSubstrings(haystack, words()).
+     *
+     * @param haystack The text to search.
+     * @return A map from each word found to its lowest index in haystack.
+     */
+    public Map<String, Integer> getSubstrings(CharSequence haystack) {
+    	return matcher.getSubstrings(haystack);
+    }
+
+    /**
+     * Same as matcher().findAll(haystack).
+     *
+     * @param haystack The text to search.
+     * @return The indexes of the occurrences of every word in haystack.
+     */
+    public WordOccurrences findAll(CharSequence haystack) {
+    	return matcher.findAll(haystack);
+    }
+}
@@ -0,0 +1,121 @@
+package piwords;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CompiledDictionaryTest {
+    @Test
+    public void basicCompiledDictionaryTest() {
+        String[] words = {"cup", "through", "a", "cup", "tea", "through"};
+        CompiledDictionary dictionary = new CompiledDictionary(words);
+
+        assertArrayEquals(new String[] {"cup", "through", "a", "tea"},
+                          dictionary.words());
+        assertEquals(4, dictionary.wordCount());
+        assertEquals(1, dictionary.minLength());
+        assertEquals(7, dictionary.maxLength());
+        assertEquals(14, dictionary.totalLength());
+        assertEquals(2, dictionary.countOfLength(3));
+        assertEquals(0, dictionary.countOfLength(2));
+        assertEquals(0, dictionary.countOfLength(8));
+    }
+
+    @Test
+    public void wordListDuplicatesTest() {
+        CompiledDictionary dictionary = new CompiledDictionary(Main.WORD_LIST);
+        assertTrue(dictionary.wordCount() < Main.WORD_LIST.length);
+        assertEquals(
+                WordFinder.getSubstrings("throughcupboard", Main.WORD_LIST),
+                WordFinder.getSubstrings("throughcupboard", dictionary));
+    }
+
+    @Test
+    public void emptyDictionaryTest() throws IOException {
+        CompiledDictionary dictionary = new CompiledDictionary(new String[0]);
+        assertEquals(0, dictionary.wordCount());
+        assertEquals(0, dictionary.maxLength());
+        assertTrue(dictionary.getSubstrings("abc").isEmpty());
+
+        File file = tempFile();
+        dictionary.save(file);
+        assertEquals(0, CompiledDictionary.load(file).wordCount());
+    }
+
+    @Test
+    public void saveAndLoadTest() throws IOException {
+        CompiledDictionary dictionary = new CompiledDictionary(Main.WORD_LIST);
+        File file = tempFile();
+        dictionary.save(file);
+        CompiledDictionary loaded = CompiledDictionary.load(file);
+
+        assertArrayEquals(dictionary.words(), loaded.words());
+        assertEquals(dictionary.maxLength(), loaded.maxLength());
+        assertEquals(dictionary.totalLength(), loaded.totalLength());
+        assertEquals(dictionary.matcher().stateCount(),
+                     loaded.matcher().stateCount());
+
+        Random random = new Random(10);
+        char[] haystack = new char[20000];
+        for (int i = 0; i < haystack.length; i = i + 1) {
+            haystack[i] = (char) ('a' + random.nextInt(26));
+        }
+        String text = new String(haystack);
+        assertEquals(dictionary.getSubstrings(text), loaded.getSubstrings(text));
+    }
+
+    @Test(expected = IOException.class)
+    public void notADictionaryTest() throws IOException {
+        File file = tempFile();
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        output.writeBytes("not a dictionary");
+        output.close();
+        CompiledDictionary.load(file);
+    }
+
+    @Test
+    public void truncatedOrCorruptFileTest() throws IOException {
+        File file = tempFile();
+        new CompiledDictionary(new String[] {"he", "she", "hers"}).save(file);
+        RandomAccessFile data = new RandomAccessFile(file, "rw");
+        byte[] bytes = new byte[(int) data.length()];
+        data.readFully(bytes);
+
+        // every truncation is rejected
+        for (int length = 0; length < bytes.length; length = length + 1) {
+            data.setLength(0);
+            data.write(Arrays.copyOf(bytes, length));
+            try {
+                CompiledDictionary.load(file);
+                fail("loaded a file truncated to " + length + " bytes");
+            } catch (IOException e) {
+                // expected
+            }
+        }
+
+        // a transition out of range is rejected
+        data.setLength(0);
+        data.write(bytes);
+        data.seek(bytes.length - 4);
+        data.writeInt(1000);
+        data.close();
+        try {
+            CompiledDictionary.load(file);
+            fail("loaded a corrupt file");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static File tempFile() throws IOException {
+        File file = File.createTempFile("dictionary", ".bin");
+        file.deleteOnExit();
+        return file;
+    }
+}
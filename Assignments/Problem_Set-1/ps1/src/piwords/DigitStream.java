@@ -0,0 +1,38 @@
+package piwords;
+
+/**
+ * A DigitStream yields a sequence of digits of some base one at a time, in
+ * most significant to least significant order, computing them on demand.
+ * 
+ * Streams let the stages of piwords run as a pipeline: a stage can consume
+ * digits as soon as the stage before it produces them, and no stage needs to
+ * hold the whole sequence.
+ */
+public interface DigitStream {
+    /**
+     * @return true if the stream has at least one more digit.
+     */
+    public boolean hasNext();
+
+    /**
+     * Returns the next digit of the stream and advances past it.
+     * 
+     * @return the next digit.
+     * @throws java.util.NoSuchElementException if the stream has no more
+     *         digits.
+     */
+    public int nextDigit();
+
+    /**
+     * Reads up to length digits of the stream into buffer, starting at
+     * buffer[offset], and advances past them. Reads fewer than length digits
+     * only if the stream ends first.
+     * 
+     * @param buffer The array to write the digits into.
+     * @param offset The index of buffer to write the first digit into.
+     * @param length The largest number of digits to read.
+     * @return The number of digits read, or -1 if the stream had no more
+     *         digits and length > 0.
+     */
+    public int read(int[] buffer, int offset, int length);
+}
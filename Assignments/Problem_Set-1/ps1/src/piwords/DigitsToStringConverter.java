@@ -1,11 +1,15 @@
 package piwords;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
 public class DigitsToStringConverter {
     /**
      * Given a list of digits, a base, and an mapping of digits of that base to
      * chars, convert the list of digits into a character string by applying the
      * mapping to each digit in the input.
-     * 
+     *
      * If digits[i] >= base or digits[i] < 0 for any i, consider the input
      * invalid, and return null.
      * If alphabet.length != base, consider the input invalid, and return null.
@@ -18,27 +22,195 @@ public class DigitsToStringConverter {
      */
     public static String convertDigitsToString(int[] digits, int base,
                                                char[] alphabet) {
-    	if (base < 2) {
-    		return null;
-    	} else if (alphabet.length != base) {
+    	char[] encodedAlphabetSeq = new char[digits.length];
+    	if (convertDigitsInto(digits, 0, digits.length, base, alphabet,
+    			encodedAlphabetSeq, 0) == -1) {
     		return null;
+    	}
+    	// Be careful!
+    	// Don't write it as "return encodedAlphabetSeq.toString();",
+    	// which returns a string in format "[x, y, z ...]", rather than
+    	// "xyz..." we want.
+    	return new String(encodedAlphabetSeq);
+    }
+
+    /**
+     * Same as convertDigitsToString, but encodes digits[offset .. offset +
+     * length - 1] straight into dest, starting at dest[destOffset], checking
+     * each digit as it is encoded.
+     *
+     * If base < 2, alphabet.length != base, or one of the digits is < 0 or
+     * >= base, consider the input invalid, and return -1. dest may then have
+     * been partly written.
+     *
+     * @param digits A list of digits to encode. This object is not mutated.
+     * @param offset The index of the first digit to encode.
+     * @param length The number of digits to encode.
+     * @param base The base the digits are encoded in.
+     * @param alphabet The mapping of digits to chars. This object is not
+     *                 mutated.
+     * @param dest The array to write the chars into.
+     * @param destOffset The index of dest to write the first char into.
+     * @return The number of chars written, which is length, or -1.
+     * @throws IndexOutOfBoundsException if a range is outside its array.
+     */
+    public static int convertDigitsInto(int[] digits, int offset, int length,
+                                        int base, char[] alphabet,
+                                        char[] dest, int destOffset) {
+    	checkRange(digits.length, offset, length);
+    	checkRange(dest.length, destOffset, length);
+    	if ((base < 2) || (alphabet.length != base)) {
+    		return -1;
+    	}
+    	for (int i = 0; i < length; i = i + 1) {
+    		int digit = digits[offset + i];
+    		if ((digit < 0) || (digit >= base)) {
+    			return -1;
+    		}
+    		dest[destOffset + i] = alphabet[digit];
+    	}
+    	return length;
+    }
+
+    /**
+     * Same as convertDigitsInto(int[], int, int, int, char[], char[], int),
+     * but writes into dest at its position, and advances the position past
+     * the chars written. Array-backed buffers are written through their
+     * array.
+     *
+     * If the input is invalid, return -1 and leave the position of dest
+     * unchanged; its contents past the position may have been partly
+     * written.
+     *
+     * @return The number of chars written, which is length, or -1.
+     * @throws IndexOutOfBoundsException if the digits are outside digits.
+     * @throws BufferOverflowException if dest.remaining() < length.
+     */
+    public static int convertDigitsInto(int[] digits, int offset, int length,
+                                        int base, char[] alphabet,
+                                        CharBuffer dest) {
+    	checkRange(digits.length, offset, length);
+    	if (dest.remaining() < length) {
+    		throw new BufferOverflowException();
+    	}
+    	int position = dest.position();
+    	if (dest.hasArray()) {
+    		if (convertDigitsInto(digits, offset, length, base, alphabet,
+    				dest.array(), dest.arrayOffset() + position) == -1) {
+    			return -1;
+    		}
+    	} else {
+    		if ((base < 2) || (alphabet.length != base)) {
+    			return -1;
+    		}
+    		for (int i = 0; i < length; i = i + 1) {
+    			int digit = digits[offset + i];
+    			if ((digit < 0) || (digit >= base)) {
+    				return -1;
+    			}
+    			dest.put(position + i, alphabet[digit]);
+    		}
+    	}
+    	dest.position(position + length);
+    	return length;
+    }
+
+    /**
+     * Same as convertDigitsInto(int[], int, int, int, char[], char[], int),
+     * but writes one ASCII byte per digit into dest, starting at
+     * dest[destOffset].
+     *
+     * If base < 2, alphabet.length != base, a char of alphabet is not ASCII
+     * (> 127), or one of the digits is < 0 or >= base, consider the input
+     * invalid, and return -1. dest may then have been partly written.
+     *
+     * @return The number of bytes written, which is length, or -1.
+     * @throws IndexOutOfBoundsException if a range is outside its array.
+     */
+    public static int convertDigitsInto(int[] digits, int offset, int length,
+                                        int base, char[] alphabet,
+                                        byte[] dest, int destOffset) {
+    	checkRange(digits.length, offset, length);
+    	checkRange(dest.length, destOffset, length);
+    	byte[] ascii = asciiAlphabet(base, alphabet);
+    	if (ascii == null) {
+    		return -1;
+    	}
+    	for (int i = 0; i < length; i = i + 1) {
+    		int digit = digits[offset + i];
+    		if ((digit < 0) || (digit >= base)) {
+    			return -1;
+    		}
+    		dest[destOffset + i] = ascii[digit];
+    	}
+    	return length;
+    }
+
+    /**
+     * Same as convertDigitsInto(int[], int, int, int, char[], byte[], int),
+     * but writes into dest at its position, and advances the position past
+     * the bytes written. Array-backed buffers are written through their
+     * array; others, such as direct and memory-mapped buffers, in place.
+     *
+     * If the input is invalid, return -1 and leave the position of dest
+     * unchanged; its contents past the position may have been partly
+     * written.
+     *
+     * @return The number of bytes written, which is length, or -1.
+     * @throws IndexOutOfBoundsException if the digits are outside digits.
+     * @throws BufferOverflowException if dest.remaining() < length.
+     */
+    public static int convertDigitsInto(int[] digits, int offset, int length,
+                                        int base, char[] alphabet,
+                                        ByteBuffer dest) {
+    	checkRange(digits.length, offset, length);
+    	if (dest.remaining() < length) {
+    		throw new BufferOverflowException();
+    	}
+    	int position = dest.position();
+    	if (dest.hasArray()) {
+    		if (convertDigitsInto(digits, offset, length, base, alphabet,
+    				dest.array(), dest.arrayOffset() + position) == -1) {
+    			return -1;
+    		}
     	} else {
-    		int digitSeqLength = digits.length;
-    		for (int i = 0; i < digitSeqLength; i = i + 1) {
-    			if ((digits[i] >= base) || (digits[i] < 0)) {
-    				return null;
+    		byte[] ascii = asciiAlphabet(base, alphabet);
+    		if (ascii == null) {
+    			return -1;
+    		}
+    		for (int i = 0; i < length; i = i + 1) {
+    			int digit = digits[offset + i];
+    			if ((digit < 0) || (digit >= base)) {
+    				return -1;
     			}
+    			dest.put(position + i, ascii[digit]);
     		}
-    		char[] encodedAlphabetSeq = new char[digitSeqLength];
-    		for (int j = 0; j < digitSeqLength; j = j + 1) {
-    			encodedAlphabetSeq[j] = alphabet[digits[j]];
+    	}
+    	dest.position(position + length);
+    	return length;
+    }
+
+    // Returns alphabet as ASCII bytes, or null if base < 2, alphabet.length
+    // != base, or a char of alphabet is not ASCII.
+    private static byte[] asciiAlphabet(int base, char[] alphabet) {
+    	if ((base < 2) || (alphabet.length != base)) {
+    		return null;
+    	}
+    	byte[] ascii = new byte[base];
+    	for (int i = 0; i < base; i = i + 1) {
+    		if (alphabet[i] > 127) {
+    			return null;
     		}
-    		
-    		// Be careful!
-    		// Don't write it as "return encodedAlphabetSeq.toString();",
-    		// which returns a string in format "[x, y, z ...]", rather than
-    		// "xyz..." we want.
-    		return new String(encodedAlphabetSeq);
+    		ascii[i] = (byte) alphabet[i];
+    	}
+    	return ascii;
+    }
+
+    // Throws IndexOutOfBoundsException unless [offset, offset + length) is
+    // within an array of the given size.
+    private static void checkRange(int size, int offset, int length) {
+    	if ((offset < 0) || (length < 0) || (offset > size - length)) {
+    		throw new IndexOutOfBoundsException();
     	}
     }
 }
@@ -2,6 +2,10 @@ package piwords;
 
 import static org.junit.Assert.*;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
 import org.junit.Test;
 
 public class DigitsToStringConverterTest {
@@ -245,4 +249,89 @@ public class DigitsToStringConverterTest {
     			DigitsToStringConverter.convertDigitsToString(
     					input, 4, alphabet));
     }
+
+    @Test
+    public void convertDigitsIntoArrayTest() {
+    	int[] input = {9, 0, 1, 2, 3, 9};
+    	char[] alphabet = {'d', 'c', 'b', 'a'};
+    	char[] dest = {'x', 'x', 'x', 'x', 'x', 'x'};
+    	assertEquals(4, DigitsToStringConverter.convertDigitsInto(
+    			input, 1, 4, 4, alphabet, dest, 2));
+    	assertArrayEquals(new char[] {'x', 'x', 'd', 'c', 'b', 'a'}, dest);
+
+    	byte[] bytes = new byte[4];
+    	assertEquals(4, DigitsToStringConverter.convertDigitsInto(
+    			input, 1, 4, 4, alphabet, bytes, 0));
+    	assertArrayEquals("dcba".getBytes(), bytes);
+    }
+
+    @Test
+    public void convertDigitsIntoInvalidTest() {
+    	int[] input = {0, 1, 4, 3};
+    	char[] alphabet = {'d', 'c', 'b', 'a'};
+    	assertEquals(-1, DigitsToStringConverter.convertDigitsInto(
+    			input, 0, 4, 4, alphabet, new char[4], 0));
+    	assertEquals(-1, DigitsToStringConverter.convertDigitsInto(
+    			input, 0, 2, 3, alphabet, new char[4], 0));
+    	assertEquals(-1, DigitsToStringConverter.convertDigitsInto(
+    			input, 0, 2, 1, new char[] {'a'}, new byte[4], 0));
+    	// not ASCII
+    	assertEquals(-1, DigitsToStringConverter.convertDigitsInto(
+    			input, 0, 2, 4, new char[] {'d', '\u00e9', 'b', 'a'},
+    			new byte[4], 0));
+
+    	CharBuffer chars = CharBuffer.allocate(4);
+    	assertEquals(-1, DigitsToStringConverter.convertDigitsInto(
+    			input, 0, 4, 4, alphabet, chars));
+    	assertEquals(0, chars.position());
+    	ByteBuffer bytes = ByteBuffer.allocateDirect(4);
+    	assertEquals(-1, DigitsToStringConverter.convertDigitsInto(
+    			input, 0, 4, 4, alphabet, bytes));
+    	assertEquals(0, bytes.position());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void convertDigitsIntoRangeTest() {
+    	DigitsToStringConverter.convertDigitsInto(new int[] {0, 1, 2}, 0, 3,
+    			4, new char[] {'d', 'c', 'b', 'a'}, new char[2], 0);
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void convertDigitsIntoOverflowTest() {
+    	DigitsToStringConverter.convertDigitsInto(new int[] {0, 1, 2}, 0, 3,
+    			4, new char[] {'d', 'c', 'b', 'a'}, ByteBuffer.allocate(2));
+    }
+
+    @Test
+    public void convertDigitsIntoBuffersTest() {
+    	int[] input = {0, 1, 2, 3, 2, 1};
+    	char[] alphabet = {'d', 'c', 'b', 'a'};
+
+    	// heap and direct buffers, written in two pieces after a prefix
+    	CharBuffer heapChars = CharBuffer.allocate(8);
+    	CharBuffer directChars = ByteBuffer.allocateDirect(16).asCharBuffer();
+    	for (CharBuffer chars : new CharBuffer[] {heapChars, directChars}) {
+    		chars.put('>');
+    		assertEquals(2, DigitsToStringConverter.convertDigitsInto(
+    				input, 0, 2, 4, alphabet, chars));
+    		assertEquals(4, DigitsToStringConverter.convertDigitsInto(
+    				input, 2, 4, 4, alphabet, chars));
+    		assertEquals(7, chars.position());
+    		chars.flip();
+    		assertEquals(">dcbabc", chars.toString());
+    	}
+
+    	ByteBuffer heapBytes = ByteBuffer.allocate(8);
+    	ByteBuffer directBytes = ByteBuffer.allocateDirect(8);
+    	for (ByteBuffer bytes : new ByteBuffer[] {heapBytes, directBytes}) {
+    		bytes.put((byte) '>');
+    		assertEquals(6, DigitsToStringConverter.convertDigitsInto(
+    				input, 0, 6, 4, alphabet, bytes));
+    		assertEquals(7, bytes.position());
+    		byte[] written = new byte[7];
+    		bytes.flip();
+    		bytes.get(written);
+    		assertArrayEquals(">dcbabc".getBytes(), written);
+    	}
+    }
 }
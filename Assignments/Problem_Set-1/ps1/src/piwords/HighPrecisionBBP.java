@@ -0,0 +1,242 @@
+package piwords;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Evaluations of the BBP formula in arithmetic more precise than double, for
+ * PiGenerator.piDigitBlock.
+ *
+ * Both evaluations follow PiGenerator's double evaluation: they compute the
+ * fractional part of 16^start * pi = 4 S1 - 2 S4 - S5 - S6, where Sj is the
+ * BBP series of index j shifted start digits to the left, bound its error,
+ * and write only the leading hex digits that are identical at both ends of
+ * the error interval.
+ *
+ * Double-double values are kept in double[2] arrays {hi, lo}, normalized so
+ * that |lo| <= ulp(hi) / 2; their value is the exact sum hi + lo.
+ */
+final class HighPrecisionBBP {
+    // 2^27 + 1: multiplying by it splits a double into two 26-bit halves
+    // whose pairwise products are exact.
+    private static final double SPLITTER = 134217729.0;
+
+    // Bits below which the right sum of a double-double series is dropped.
+    private static final int DOUBLE_DOUBLE_TAIL_BITS = 112;
+
+    // Decimal places kept by the exact evaluation, on top of the digits of
+    // the offset itself.
+    private static final int EXACT_SCALE = 40;
+
+    private static final BigDecimal SIXTEEN = BigDecimal.valueOf(16);
+
+    private HighPrecisionBBP() {
+    }
+
+    /**
+     * Evaluates the BBP formula at offset start in double-double arithmetic,
+     * and writes the proven hex digits of pi beginning at that offset into
+     * block.
+     *
+     * Requires 0 <= start < PiGenerator.MAX_POSITION.
+     *
+     * @return The number of digits written, between 0 and
+     *         min(block.length, PiGenerator.MAX_DIGITS_PER_BLOCK). 0 means
+     *         that not even the first digit is proven.
+     */
+    static int doubleDoubleDigitBlock(long start, int[] block) {
+    	double[] x = new double[2];
+    	double[] series = new double[2];
+    	doubleDoubleSeries(1, start, series);
+    	add(x, 4 * series[0], 4 * series[1]);
+    	doubleDoubleSeries(4, start, series);
+    	add(x, -2 * series[0], -2 * series[1]);
+    	doubleDoubleSeries(5, start, series);
+    	add(x, -series[0], -series[1]);
+    	doubleDoubleSeries(6, start, series);
+    	add(x, -series[0], -series[1]);
+    	add(x, -Math.floor(x[0]), 0);
+
+    	// Every term carries a few units of 2^-104 of rounding error, and the
+    	// four series are combined with weights adding up to 8.
+    	double error = (start + 2) * 0x1p-96;
+    	double[] lo = {x[0], x[1]};
+    	double[] hi = {x[0], x[1]};
+    	add(lo, -error, 0);
+    	add(hi, error, 0);
+
+    	// Scaling by 16 is exact. An interval that reaches below 0 or up to 1
+    	// yields a first digit of -1 or 16 at one end, and so no digits.
+    	int maxDigits = Math.min(block.length, PiGenerator.MAX_DIGITS_PER_BLOCK);
+    	int written = 0;
+    	while (written < maxDigits) {
+    		lo[0] = lo[0] * 16;
+    		lo[1] = lo[1] * 16;
+    		hi[0] = hi[0] * 16;
+    		hi[1] = hi[1] * 16;
+    		int digit = floor(lo);
+    		if (digit != floor(hi)) {
+    			break;
+    		}
+    		block[written] = digit;
+    		written = written + 1;
+    		add(lo, -digit, 0);
+    		add(hi, -digit, 0);
+    	}
+    	return written;
+    }
+
+    /**
+     * Evaluates the BBP formula at offset start in BigDecimal arithmetic, with
+     * enough decimal places that the error bound of the evaluation is far
+     * below the resolution of the digits, and writes the proven hex digits of
+     * pi beginning at that offset into block. If even so not one digit is
+     * proven, the first digit is truncated from the evaluated value.
+     *
+     * This is much slower than the double and double-double evaluations, and
+     * only meant for the rare offsets where they cannot prove a digit.
+     *
+     * Requires 0 <= start < PiGenerator.MAX_POSITION and block.length >= 1.
+     *
+     * @return The number of digits written, between 1 and
+     *         min(block.length, PiGenerator.MAX_DIGITS_PER_BLOCK).
+     */
+    static int exactDigitBlock(long start, int[] block) {
+    	int scale = EXACT_SCALE + Long.toString(start).length();
+    	BigDecimal x = exactSeries(1, start, scale).multiply(BigDecimal.valueOf(4))
+    			.subtract(exactSeries(4, start, scale).multiply(BigDecimal.valueOf(2)))
+    			.subtract(exactSeries(5, start, scale))
+    			.subtract(exactSeries(6, start, scale));
+    	x = x.subtract(x.setScale(0, RoundingMode.FLOOR));
+
+    	// Every term is truncated by less than 10^-scale; there are start + 1
+    	// left terms and fewer than 64 right terms per series, and the four
+    	// series are combined with weights adding up to 8 < 10.
+    	BigDecimal error = BigDecimal.valueOf(start + 64).movePointLeft(scale - 1);
+    	BigDecimal lo = x.subtract(error);
+    	BigDecimal hi = x.add(error);
+
+    	int maxDigits = Math.min(block.length, PiGenerator.MAX_DIGITS_PER_BLOCK);
+    	int written = 0;
+    	while (written < maxDigits) {
+    		lo = lo.multiply(SIXTEEN);
+    		hi = hi.multiply(SIXTEEN);
+    		BigDecimal digit = lo.setScale(0, RoundingMode.FLOOR);
+    		if (digit.compareTo(hi.setScale(0, RoundingMode.FLOOR)) != 0) {
+    			break;
+    		}
+    		block[written] = digit.intValue();
+    		written = written + 1;
+    		lo = lo.subtract(digit);
+    		hi = hi.subtract(digit);
+    	}
+    	if (written == 0) {
+    		block[0] = x.multiply(SIXTEEN).intValue();
+    		written = 1;
+    	}
+    	return written;
+    }
+
+    // Sets out to the BBP series of index j shifted d hex digits to the left,
+    // reduced mod 1 up to rounding, in double-double arithmetic.
+    private static void doubleDoubleSeries(int j, long d, double[] out) {
+    	// Left sum. Each term num / r is computed as q1 + q2, where q2 is the
+    	// correctly rounded quotient of the residual num - q1 * r by r.
+    	double sHi = 0;
+    	double sLo = 0;
+    	for (long k = 0; k <= d; k = k + 1) {
+    		double r = 8 * k + j;
+    		double num = PiGenerator.powerOf16Mod(d - k, 8 * k + j);
+    		double q1 = num / r;
+    		double p = q1 * r;
+    		// num - p is exact, since p is within a rounding of num
+    		double q2 = ((num - p) - productError(q1, r, p)) / r;
+
+    		double sum = sHi + q1;
+    		double bb = sum - sHi;
+    		double err = (sHi - (sum - bb)) + (q1 - bb) + sLo + q2;
+    		sHi = sum + err;
+    		sLo = err - (sHi - sum);
+
+    		double f = Math.floor(sHi);
+    		if (f != 0) {
+    			// dropping the integer part of sHi is exact
+    			sum = sHi - f;
+    			sHi = sum + sLo;
+    			sLo = sLo - (sHi - sum);
+    		}
+    	}
+    	out[0] = sHi;
+    	out[1] = sLo;
+
+    	// Right sum: 16^-m / r for m >= 1, where scaling by 16^-m is exact.
+    	for (int m = 1; 4 * m <= DOUBLE_DOUBLE_TAIL_BITS; m = m + 1) {
+    		double r = 8 * (d + m) + j;
+    		double q1 = 1 / r;
+    		double p = q1 * r;
+    		double q2 = ((1 - p) - productError(q1, r, p)) / r;
+    		double scale = Math.scalb(1.0, -4 * m);
+    		add(out, q1 * scale, q2 * scale);
+    	}
+    }
+
+    // Returns the BBP series of index j shifted d hex digits to the left,
+    // reduced mod 1, with every term truncated to scale decimal places.
+    private static BigDecimal exactSeries(int j, long d, int scale) {
+    	BigDecimal s = BigDecimal.ZERO.setScale(scale);
+    	for (long k = 0; k <= d; k = k + 1) {
+    		long r = 8 * k + j;
+    		BigDecimal term = BigDecimal.valueOf(PiGenerator.powerOf16Mod(d - k, r))
+    				.divide(BigDecimal.valueOf(r), scale, RoundingMode.DOWN);
+    		s = s.add(term);
+    		if (s.compareTo(BigDecimal.ONE) >= 0) {
+    			s = s.subtract(BigDecimal.ONE);
+    		}
+    	}
+
+    	// Right sum: 1 / (16^(k - d) * (8k + j)) for k > d, until the terms
+    	// truncate to zero.
+    	BigDecimal power = BigDecimal.ONE;
+    	for (long k = d + 1; true; k = k + 1) {
+    		power = power.multiply(SIXTEEN);
+    		BigDecimal term = BigDecimal.ONE.divide(
+    				power.multiply(BigDecimal.valueOf(8 * k + j)), scale,
+    				RoundingMode.DOWN);
+    		if (term.signum() == 0) {
+    			break;
+    		}
+    		s = s.add(term);
+    	}
+    	return s;
+    }
+
+    // Returns the rounding error of the product p = fl(a * b), that is
+    // a * b - p, exactly (Dekker's algorithm).
+    private static double productError(double a, double b, double p) {
+    	double t = SPLITTER * a;
+    	double aHi = t - (t - a);
+    	double aLo = a - aHi;
+    	t = SPLITTER * b;
+    	double bHi = t - (t - b);
+    	double bLo = b - bHi;
+    	return ((aHi * bHi - p) + aHi * bLo + aLo * bHi) + aLo * bLo;
+    }
+
+    // Adds the double-double bHi + bLo to a, in place.
+    private static void add(double[] a, double bHi, double bLo) {
+    	double sum = a[0] + bHi;
+    	double bb = sum - a[0];
+    	double err = (a[0] - (sum - bb)) + (bHi - bb) + a[1] + bLo;
+    	a[0] = sum + err;
+    	a[1] = err - (a[0] - sum);
+    }
+
+    // Returns the largest int not greater than the double-double a.
+    private static int floor(double[] a) {
+    	double f = Math.floor(a[0]);
+    	if ((f == a[0]) && (a[1] < 0)) {
+    		f = f - 1;
+    	}
+    	return (int) f;
+    }
+}
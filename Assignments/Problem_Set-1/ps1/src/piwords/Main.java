@@ -5,6 +5,8 @@
 
 package piwords;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Map;
 
@@ -21,9 +23,45 @@ public class Main {
         {'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n',
          'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z'};
 
-    public static void main(String[] args) {
-        System.out.println("Problem 1: Calculating Pi...");
-        int[] piHexDigits = PiGenerator.computePiInHex(PI_PRECISION);
+    /**
+     * Runs the five problems in order. Pi is computed on a single thread,
+     * unless the first argument is "parallel", in which case it is computed
+     * on all available processors, or "cached", in which case it is read
+     * from a PiDigitCache file (the second argument, or "pi.cache"), and
+     * only computed if the file does not hold enough digits yet.
+     * 
+     * @param args Optionally, "sequential", "parallel", or "cached" and a
+     *             file name.
+     */
+    public static void main(String[] args) throws IOException {
+        String mode = (args.length > 0) ? args[0] : "sequential";
+        if (!mode.equals("sequential") && !mode.equals("parallel") &&
+            !mode.equals("cached")) {
+            System.err.println(
+                    "usage: Main [sequential | parallel | cached [FILE]]");
+            return;
+        }
+
+        System.out.printf("Problem 1: Calculating Pi (%s)...\n", mode);
+        long started = System.nanoTime();
+        int[] piHexDigits;
+        if (mode.equals("cached")) {
+            PiDigitCache cache = new PiDigitCache(
+                    new File((args.length > 1) ? args[1] : "pi.cache"));
+            try {
+                piHexDigits = cache.digits(0, PI_PRECISION);
+            } finally {
+                cache.close();
+            }
+        } else if (mode.equals("parallel")) {
+            piHexDigits = PiGenerator.computePiInHexParallel(PI_PRECISION);
+        } else {
+            piHexDigits = PiGenerator.computePiInHex(PI_PRECISION);
+        }
+        long timeTaken = System.nanoTime() - started;
+        System.out.printf("Computed %d digits in %d ms (%.0f digits/second)\n",
+                          PI_PRECISION, timeTaken / 1000000,
+                          PI_PRECISION / (timeTaken / 1e9));
         System.out.printf(
                 "Digits of Pi in base-16: %s\n\n",
                 MaybeTruncateString(Arrays.toString(piHexDigits), 50));
@@ -43,14 +81,15 @@ public class Main {
                 MaybeTruncateString(basicConversion, 50));
 
         System.out.println("Problem 4: Getting word matches");
+        CompiledDictionary dictionary = new CompiledDictionary(WORD_LIST);
         Map<String, Integer> basicSubstrings =
-                WordFinder.getSubstrings(basicConversion, WORD_LIST);
+                WordFinder.getSubstrings(basicConversion, dictionary);
         for (Map.Entry<String, Integer> entry : basicSubstrings.entrySet()) {
             printWithContext(basicConversion, entry.getValue(),
                              entry.getKey(), 3, true);
         }
         System.out.printf("Word coverage using basic alphabet: %f\n\n",
-                ((double)basicSubstrings.size()) / WORD_LIST.length);
+                ((double)basicSubstrings.size()) / dictionary.wordCount());
         
         System.out.println("Problem 5: Getting word matches with base-100 and" +
         		           " frequency dictionary");
@@ -70,14 +109,14 @@ public class Main {
                 MaybeTruncateString(frequencyConversion, 50));
         
         Map<String, Integer> frequencySubstrings =
-                WordFinder.getSubstrings(frequencyConversion, WORD_LIST);
+                WordFinder.getSubstrings(frequencyConversion, dictionary);
         for (Map.Entry<String, Integer> entry :
              frequencySubstrings.entrySet()) {
             printWithContext(frequencyConversion, entry.getValue(),
                              entry.getKey(), 3, true);
         }
         System.out.printf("Word coverage using frequency alphabet: %f\n\n",
-                ((double)frequencySubstrings.size()) / WORD_LIST.length);
+                ((double)frequencySubstrings.size()) / dictionary.wordCount());
         
     }
     
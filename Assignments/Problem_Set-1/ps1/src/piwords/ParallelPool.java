@@ -0,0 +1,16 @@
+package piwords;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The fork/join pool of the parallel computations of piwords, shared so that
+ * they do not each start threads of their own.
+ */
+class ParallelPool {
+    // Its worker threads are created on demand and are daemon threads, so
+    // they never keep the JVM alive.
+    static final ForkJoinPool POOL = new ForkJoinPool();
+
+    private ParallelPool() {
+    }
+}
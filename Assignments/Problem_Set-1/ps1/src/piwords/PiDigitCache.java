@@ -0,0 +1,248 @@
+package piwords;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A PiDigitCache keeps the hexadecimal digits of pi computed so far in a
+ * file, so that later runs read them instead of computing them again. A
+ * request for digits that are not in the file yet computes only the missing
+ * digits after the end of the file, and appends them.
+ *
+ * The file holds the digits from offset 0 on, packed two to a byte (the
+ * digit at an even offset in the high nibble), after a header of HEADER_SIZE
+ * bytes:
+ *
+ *     int    MAGIC
+ *     int    VERSION
+ *     long   the number of digits in the file
+ *
+ * all big-endian. Digits are read through a memory mapping of the file. The
+ * digit count in the header is only updated after the digits it covers are
+ * written, so a run that is interrupted while appending leaves a valid
+ * file.
+ *
+ * A PiDigitCache is safe for use by multiple threads, but a file must not be
+ * used by more than one PiDigitCache at a time.
+ */
+public class PiDigitCache implements Closeable {
+    /**
+     * The first four bytes of a cache file: "PiHx".
+     */
+    static final int MAGIC = 0x50694878;
+
+    /**
+     * The version of the file layout that this class reads and writes.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The number of bytes before the first digit.
+     */
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * The largest number of digits computed before they are appended, so
+     * that a long computation that is interrupted keeps most of its work.
+     */
+    static final int APPEND_DIGITS = 1 << 16;
+
+    /*
+     * Rep invariant:
+     *     0 <= size <= PiGenerator.MAX_POSITION
+     *     appendDigits >= 1
+     *     the file holds the header, then (size + 1) / 2 bytes of digits
+     *     mapping maps the first HEADER_SIZE + (size + 1) / 2 bytes of the
+     *     file, or is null if the cache is closed
+     */
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final boolean parallel;
+    private final int appendDigits;
+    private long size;
+    private MappedByteBuffer mapping;
+
+    /**
+     * Opens the cache in file, creating it if file does not exist. Missing
+     * digits are computed on a single thread.
+     *
+     * @param file The cache file.
+     * @throws IOException if file cannot be read or written, or is not a
+     *         cache file of this version.
+     */
+    public PiDigitCache(File file) throws IOException {
+    	this(file, false);
+    }
+
+    /**
+     * Opens the cache in file, creating it if file does not exist.
+     *
+     * @param file The cache file.
+     * @param parallel If true, compute missing digits on all available
+     *                 processors.
+     * @throws IOException if file cannot be read or written, or is not a
+     *         cache file of this version.
+     */
+    public PiDigitCache(File file, boolean parallel) throws IOException {
+    	this(file, parallel, APPEND_DIGITS);
+    }
+
+    // Opens the cache in file like PiDigitCache(file, parallel), appending
+    // missing digits in pieces of at most appendDigits (at least 1), so
+    // that tests can append several pieces without computing many digits.
+    PiDigitCache(File file, boolean parallel, int appendDigits)
+    		throws IOException {
+    	this.file = new RandomAccessFile(file, "rw");
+    	this.channel = this.file.getChannel();
+    	this.parallel = parallel;
+    	this.appendDigits = appendDigits;
+    	try {
+    		if (channel.size() == 0) {
+    			writeHeader(0);
+    		}
+    		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    		channel.read(header, 0);
+    		header.flip();
+    		if ((header.remaining() < HEADER_SIZE) ||
+    				(header.getInt() != MAGIC)) {
+    			throw new IOException("PiDigitCache: " + file +
+    					" is not a pi digit cache");
+    		}
+    		int version = header.getInt();
+    		if (version != VERSION) {
+    			throw new IOException("PiDigitCache: " + file +
+    					" has unsupported version " + version);
+    		}
+    		long count = header.getLong();
+    		if ((count < 0) || (count > PiGenerator.MAX_POSITION) ||
+    				(channel.size() < HEADER_SIZE + (count + 1) / 2)) {
+    			throw new IOException("PiDigitCache: " + file +
+    					" is corrupt");
+    		}
+    		this.size = count;
+    		this.mapping = map();
+    	} catch (IOException e) {
+    		this.file.close();
+    		throw e;
+    	}
+    }
+
+    /**
+     * @return the number of digits in the cache file.
+     */
+    public synchronized long size() {
+    	return size;
+    }
+
+    /**
+     * Returns the count hex digits of pi beginning at offset start after the
+     * hexadecimal point, like PiGenerator.computePiInHex(start, count). The
+     * digits that are not in the file yet, from its end up to start + count,
+     * are computed and appended to it first.
+     *
+     * If start < 0, count < 1, or start + count > PiGenerator.MAX_POSITION,
+     * return null.
+     *
+     * @param start The offset after the hexadecimal point of the first digit.
+     * @param count The number of digits to return.
+     * @return The digits, between 0 and 15.
+     * @throws IOException if the cache file cannot be read or written.
+     */
+    public synchronized int[] digits(long start, int count) throws IOException {
+    	if ((start < 0) || (count < 1) ||
+    			(start > PiGenerator.MAX_POSITION - count)) {
+    		return null;
+    	}
+    	ensureOpen();
+    	if (start + count > size) {
+    		extend(start + count);
+    	}
+    	int[] digits = new int[count];
+    	for (int i = 0; i < count; i = i + 1) {
+    		long offset = start + i;
+    		int b = mapping.get((int) (HEADER_SIZE + offset / 2));
+    		digits[i] = ((offset % 2) == 0) ? ((b >> 4) & 0xF) : (b & 0xF);
+    	}
+    	return digits;
+    }
+
+    /**
+     * Closes the cache file. Later requests throw IOException.
+     */
+    public synchronized void close() throws IOException {
+    	mapping = null;
+    	file.close();
+    }
+
+    // Computes the digits from size up to end, appends them to the file in
+    // pieces of at most appendDigits, and maps the grown file.
+    private void extend(long end) throws IOException {
+    	// An odd size leaves the low nibble of the last byte free, so that
+    	// byte is written again with its high nibble. The mapping covers it
+    	// only before the first piece; later pieces carry the nibble over.
+    	int carry = ((size % 2) == 1) ?
+    			mapping.get((int) (HEADER_SIZE + size / 2)) & 0xF0 : 0;
+    	while (size < end) {
+    		int count = (int) Math.min(appendDigits, end - size);
+    		int[] digits = parallel ?
+    				PiGenerator.computePiInHexParallel(size, count) :
+    				PiGenerator.computePiInHex(size, count);
+
+    		long firstByte = HEADER_SIZE + size / 2;
+    		int shift = (int) (size % 2);
+    		ByteBuffer packed = ByteBuffer.allocate((shift + count + 1) / 2);
+    		int pending = (shift == 1) ? carry : 0;
+    		for (int i = 0; i < count; i = i + 1) {
+    			if (((shift + i) % 2) == 0) {
+    				pending = digits[i] << 4;
+    			} else {
+    				packed.put((byte) (pending | digits[i]));
+    				pending = -1;
+    			}
+    		}
+    		if (pending != -1) {
+    			packed.put((byte) pending);
+    			carry = pending;
+    		}
+    		packed.flip();
+    		while (packed.hasRemaining()) {
+    			channel.write(packed, firstByte + packed.position());
+    		}
+    		// the digits must be on disk before the header covers them
+    		channel.force(false);
+    		writeHeader(size + count);
+    		size = size + count;
+    	}
+    	mapping = map();
+    }
+
+    // Writes a header that says the file holds count digits.
+    private void writeHeader(long count) throws IOException {
+    	ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    	header.putInt(MAGIC);
+    	header.putInt(VERSION);
+    	header.putLong(count);
+    	header.flip();
+    	while (header.hasRemaining()) {
+    		channel.write(header, header.position());
+    	}
+    }
+
+    // Maps the header and the digits of the file.
+    private MappedByteBuffer map() throws IOException {
+    	return channel.map(FileChannel.MapMode.READ_ONLY, 0,
+    			HEADER_SIZE + (size + 1) / 2);
+    }
+
+    // Throws IOException if the cache is closed.
+    private void ensureOpen() throws IOException {
+    	if (mapping == null) {
+    		throw new IOException("PiDigitCache: closed");
+    	}
+    }
+}
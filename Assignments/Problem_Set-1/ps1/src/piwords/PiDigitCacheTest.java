@@ -0,0 +1,121 @@
+package piwords;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Test;
+
+public class PiDigitCacheTest {
+    @Test
+    public void basicPiDigitCacheTest() throws IOException {
+        PiDigitCache cache = new PiDigitCache(tempFile());
+        assertEquals(0, cache.size());
+        assertArrayEquals(PiGenerator.computePiInHex(0, 100),
+                          cache.digits(0, 100));
+        assertEquals(100, cache.size());
+        // served from the file
+        assertArrayEquals(PiGenerator.computePiInHex(40, 20),
+                          cache.digits(40, 20));
+        assertEquals(100, cache.size());
+        cache.close();
+    }
+
+    @Test
+    public void appendOddTailTest() throws IOException {
+        File file = tempFile();
+        PiDigitCache cache = new PiDigitCache(file);
+        // odd sizes leave half a byte to fill by the next append
+        assertArrayEquals(PiGenerator.computePiInHex(0, 101),
+                          cache.digits(0, 101));
+        assertArrayEquals(PiGenerator.computePiInHex(150, 53),
+                          cache.digits(150, 53));
+        assertEquals(203, cache.size());
+        assertEquals(PiDigitCache.HEADER_SIZE + 102, file.length());
+        assertArrayEquals(PiGenerator.computePiInHex(0, 203),
+                          cache.digits(0, 203));
+        cache.close();
+    }
+
+    @Test
+    public void appendOddTailAcrossPiecesTest() throws IOException {
+        File file = tempFile();
+        int piece = 64;
+        PiDigitCache cache = new PiDigitCache(file, false, piece);
+        assertArrayEquals(PiGenerator.computePiInHex(0, 3),
+                          cache.digits(0, 3));
+        // grows an odd size by more than one piece, so the half-filled
+        // byte of each piece is completed by the next
+        int count = 3 + piece + 10;
+        int[] digits = cache.digits(0, count);
+        assertEquals(count, cache.size());
+        assertEquals(PiDigitCache.HEADER_SIZE + (count + 1) / 2,
+                     file.length());
+        assertArrayEquals(PiGenerator.computePiInHex(0, count), digits);
+        cache.close();
+
+        PiDigitCache reopened = new PiDigitCache(file);
+        assertArrayEquals(digits, reopened.digits(0, count));
+        reopened.close();
+    }
+
+    @Test
+    public void reopenTest() throws IOException {
+        File file = tempFile();
+        PiDigitCache cache = new PiDigitCache(file);
+        int[] digits = cache.digits(0, 333);
+        cache.close();
+
+        PiDigitCache reopened = new PiDigitCache(file, true);
+        assertEquals(333, reopened.size());
+        assertArrayEquals(digits, reopened.digits(0, 333));
+        assertArrayEquals(PiGenerator.computePiInHex(300, 100),
+                          reopened.digits(300, 100));
+        reopened.close();
+    }
+
+    @Test
+    public void invalidRequestTest() throws IOException {
+        PiDigitCache cache = new PiDigitCache(tempFile());
+        assertNull(cache.digits(-1, 10));
+        assertNull(cache.digits(0, 0));
+        assertNull(cache.digits(PiGenerator.MAX_POSITION, 1));
+        assertEquals(0, cache.size());
+        cache.close();
+        try {
+            cache.digits(0, 1);
+            fail("read a closed cache");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void notACacheTest() throws IOException {
+        File file = tempFile();
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        output.writeBytes("not a pi digit cache");
+        output.close();
+        new PiDigitCache(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedCacheTest() throws IOException {
+        File file = tempFile();
+        PiDigitCache cache = new PiDigitCache(file);
+        cache.digits(0, 100);
+        cache.close();
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        output.setLength(PiDigitCache.HEADER_SIZE + 10);
+        output.close();
+        new PiDigitCache(file);
+    }
+
+    private static File tempFile() throws IOException {
+        File file = File.createTempFile("pidigits", ".cache");
+        file.deleteOnExit();
+        return file;
+    }
+}
@@ -0,0 +1,156 @@
+package piwords;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A PiDigitStream yields the hexadecimal digits of the fractional part of pi
+ * one at a time, in most significant to least significant order, starting at
+ * a given offset after the hexadecimal point.
+ *
+ * Digits are computed lazily in blocks: each evaluation of the BBP formula
+ * yields several digits (see PiGenerator.piDigitBlock), which are buffered
+ * and handed out before the next block is computed. A stream never holds
+ * more than one block, so arbitrarily long ranges can be read in constant
+ * memory.
+ *
+ * A PiDigitStream is mutable and not safe for use by multiple threads.
+ */
+public class PiDigitStream implements DigitStream {
+    /*
+     * Rep invariant:
+     *     0 <= position <= end <= PiGenerator.MAX_POSITION
+     *     0 <= blockIndex <= blockLength <= block.length
+     *     block[blockIndex .. blockLength - 1] are the digits at offsets
+     *     position .. position + blockLength - blockIndex - 1
+     */
+    private final int[] block = new int[PiGenerator.MAX_DIGITS_PER_BLOCK];
+    private int blockLength = 0;
+    private int blockIndex = 0;
+    private long position;
+    private final long end;
+    private final PiGenerator.Precision precision;
+
+    /**
+     * Creates a stream of every digit of pi from offset start up to
+     * PiGenerator.MAX_POSITION.
+     *
+     * @param start The offset after the hexadecimal point of the first digit.
+     * @throws IllegalArgumentException if start < 0 or
+     *         start > PiGenerator.MAX_POSITION.
+     */
+    public PiDigitStream(long start) {
+    	this(start, PiGenerator.MAX_POSITION - start);
+    }
+
+    /**
+     * Creates a stream of the count digits of pi beginning at offset start.
+     *
+     * @param start The offset after the hexadecimal point of the first digit.
+     * @param count The number of digits in the stream.
+     * @throws IllegalArgumentException if start < 0, count < 0, or
+     *         start + count > PiGenerator.MAX_POSITION.
+     */
+    public PiDigitStream(long start, long count) {
+    	this(start, count, PiGenerator.Precision.DOUBLE);
+    }
+
+    /**
+     * Creates a stream of the count digits of pi beginning at offset start,
+     * which sums the BBP series with the given precision.
+     *
+     * @param start The offset after the hexadecimal point of the first digit.
+     * @param count The number of digits in the stream.
+     * @param precision The arithmetic to sum the series in.
+     * @throws IllegalArgumentException if start < 0, count < 0, or
+     *         start + count > PiGenerator.MAX_POSITION.
+     */
+    public PiDigitStream(long start, long count,
+    		PiGenerator.Precision precision) {
+    	if ((start < 0) || (count < 0) ||
+    			(start > PiGenerator.MAX_POSITION - count)) {
+    		throw new IllegalArgumentException("PiDigitStream: invalid range " +
+    				start + " + " + count);
+    	}
+    	this.position = start;
+    	this.end = start + count;
+    	this.precision = precision;
+    }
+
+    /**
+     * @return true if the stream has at least one more digit.
+     */
+    public boolean hasNext() {
+    	return position < end;
+    }
+
+    /**
+     * @return the offset after the hexadecimal point of the digit that the
+     *         next call to nextDigit() returns.
+     */
+    public long position() {
+    	return position;
+    }
+
+    /**
+     * Returns the next digit of the stream and advances past it.
+     *
+     * @return the next hexadecimal digit, between 0 and 15.
+     * @throws NoSuchElementException if the stream has no more digits.
+     */
+    public int nextDigit() {
+    	if (!hasNext()) {
+    		throw new NoSuchElementException();
+    	}
+    	if (blockIndex == blockLength) {
+    		fillBlock();
+    	}
+    	int digit = block[blockIndex];
+    	blockIndex = blockIndex + 1;
+    	position = position + 1;
+    	return digit;
+    }
+
+    /**
+     * Reads up to length digits of the stream into buffer, starting at
+     * buffer[offset], and advances past them. Reads fewer than length digits
+     * only if the stream ends first.
+     *
+     * @param buffer The array to write the digits into.
+     * @param offset The index of buffer to write the first digit into.
+     * @param length The largest number of digits to read.
+     * @return The number of digits read, or -1 if the stream had no more
+     *         digits and length > 0.
+     */
+    public int read(int[] buffer, int offset, int length) {
+    	if ((offset < 0) || (length < 0) || (offset > buffer.length - length)) {
+    		throw new IndexOutOfBoundsException();
+    	}
+    	if (length == 0) {
+    		return 0;
+    	}
+    	if (!hasNext()) {
+    		return -1;
+    	}
+    	long remaining = end - position;
+    	int toRead = (int) Math.min(length, remaining);
+    	int read = 0;
+    	while (read < toRead) {
+    		if (blockIndex == blockLength) {
+    			fillBlock();
+    		}
+    		int n = Math.min(blockLength - blockIndex, toRead - read);
+    		System.arraycopy(block, blockIndex, buffer, offset + read, n);
+    		blockIndex = blockIndex + n;
+    		position = position + n;
+    		read = read + n;
+    	}
+    	return read;
+    }
+
+    // Computes the block of digits beginning at position.
+    // Requires the current block to be used up.
+    private void fillBlock() {
+    	blockLength = PiGenerator.piDigitBlock(position, block, precision);
+    	blockIndex = 0;
+    }
+}
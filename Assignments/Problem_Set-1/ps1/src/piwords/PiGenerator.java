@@ -1,6 +1,54 @@
 package piwords;
 
+import java.util.concurrent.RecursiveAction;
+
 public class PiGenerator {
+    /**
+     * The largest offset (exclusive) at which digits can be extracted by
+     * computePiInHex(long, int) and PiDigitStream. Past it the moduli 8k + j
+     * of the BBP series no longer fit in an int, and their squares overflow
+     * a long.
+     */
+    public static final long MAX_POSITION = (Integer.MAX_VALUE - 6) / 8;
+
+    /**
+     * The largest number of digits that one BBP evaluation can yield. The
+     * error bound of the series consumes a few bits of the 53 of a double, or
+     * of the 106 of a double-double, so an evaluation is exact to at most 11
+     * or 24 hex digits respectively.
+     */
+    static final int MAX_DIGITS_PER_BLOCK = 24;
+
+    /**
+     * The arithmetic used to sum the BBP series.
+     * 
+     * Whichever is chosen, a digit is only extracted once the error bound of
+     * the evaluation proves it exact. An evaluation that lands so close to a
+     * digit boundary that not even its first digit is proven is repeated in
+     * exact BigDecimal arithmetic, so both tiers yield the same digits; they
+     * differ in how many digits each evaluation yields, and in its cost.
+     */
+    public enum Precision {
+        /**
+         * Sums in double. Good for up to 11 digits per evaluation at low
+         * offsets, falling to about 5 at offsets in the tens of millions.
+         */
+        DOUBLE,
+        /**
+         * Sums in compensated double-double arithmetic. Good for 18 to 24
+         * digits per evaluation at any offset. The modular exponentiations
+         * dominate either way, so an evaluation costs little more than in
+         * DOUBLE, and a long range of digits usually takes less time.
+         */
+        DOUBLE_DOUBLE
+    }
+
+    /**
+     * A digit range of computePiInHexParallel is not split any further once
+     * it holds this many digits or fewer.
+     */
+    static final int PARALLEL_LEAF_DIGITS = 128;
+
     /**
      * Returns precision hexadecimal digits of the fractional part of pi.
      * Returns digits in most significant to least significant order.
@@ -17,11 +65,167 @@ public class PiGenerator {
     	} else if (precision == 0) {
     		return null;
     	} else {
-    		int[] piDigSeq = new int[precision];
-    		for (int i = 0; i < precision; i = i + 1) {
-    			piDigSeq[i] = piDigit(i+1);
+    		return computePiInHex(0, precision);
+    	}
+    }
+
+    /**
+     * Returns count hexadecimal digits of the fractional part of pi, starting
+     * at the given offset after the hexadecimal point. Returns digits in most
+     * significant to least significant order, so computePiInHex(0, p) returns
+     * the same digits as computePiInHex(p).
+     * 
+     * Digits are produced by a PiDigitStream, which extracts a block of
+     * several digits from every evaluation of the BBP formula instead of one,
+     * and only the digits in the requested range are ever computed.
+     * 
+     * If start < 0, count < 1, or start + count > MAX_POSITION, return null.
+     * 
+     * @param start The offset after the hexadecimal point of the first digit
+     *              to retrieve.
+     * @param count The number of digits to retrieve.
+     * @return count digits of pi in hexadecimal, beginning at offset start.
+     */
+    public static int[] computePiInHex(long start, int count) {
+    	return computePiInHex(start, count, Precision.DOUBLE);
+    }
+
+    /**
+     * Same as computePiInHex(long, int), but sums the BBP series with the
+     * given precision.
+     * 
+     * If start < 0, count < 1, or start + count > MAX_POSITION, return null.
+     * 
+     * @param start The offset after the hexadecimal point of the first digit
+     *              to retrieve.
+     * @param count The number of digits to retrieve.
+     * @param precision The arithmetic to sum the series in.
+     * @return count digits of pi in hexadecimal, beginning at offset start.
+     */
+    public static int[] computePiInHex(long start, int count,
+    		Precision precision) {
+    	if ((start < 0) || (count < 1) || (start > MAX_POSITION - count)) {
+    		return null;
+    	}
+    	int[] piDigSeq = new int[count];
+    	fillPiInHex(piDigSeq, 0, start, count, precision);
+    	return piDigSeq;
+    }
+
+    /**
+     * Same as computePiInHex(int), but spreads the digits over all available
+     * processors.
+     * 
+     * If precision < 1, return null.
+     * 
+     * @param precision The number of digits after the decimal place to
+     *                  retrieve.
+     * @return precision digits of pi in hexadecimal.
+     */
+    public static int[] computePiInHexParallel(int precision) {
+    	if (precision < 1) {
+    		return null;
+    	}
+    	return computePiInHexParallel(0, precision);
+    }
+
+    /**
+     * Same as computePiInHex(long, int), but spreads the digits over all
+     * available processors.
+     * 
+     * The range is split recursively into fork-join tasks. A digit at offset
+     * d costs O(d) to compute, so a range is not halved by count but at the
+     * offset that divides its total cost evenly; work stealing absorbs
+     * whatever imbalance remains.
+     * 
+     * If start < 0, count < 1, or start + count > MAX_POSITION, return null.
+     * 
+     * @param start The offset after the hexadecimal point of the first digit
+     *              to retrieve.
+     * @param count The number of digits to retrieve.
+     * @return count digits of pi in hexadecimal, beginning at offset start.
+     */
+    public static int[] computePiInHexParallel(long start, int count) {
+    	return computePiInHexParallel(start, count, Precision.DOUBLE);
+    }
+
+    /**
+     * Same as computePiInHexParallel(long, int), but sums the BBP series with
+     * the given precision.
+     * 
+     * If start < 0, count < 1, or start + count > MAX_POSITION, return null.
+     * 
+     * @param start The offset after the hexadecimal point of the first digit
+     *              to retrieve.
+     * @param count The number of digits to retrieve.
+     * @param precision The arithmetic to sum the series in.
+     * @return count digits of pi in hexadecimal, beginning at offset start.
+     */
+    public static int[] computePiInHexParallel(long start, int count,
+    		Precision precision) {
+    	if ((start < 0) || (count < 1) || (start > MAX_POSITION - count)) {
+    		return null;
+    	}
+    	int[] piDigSeq = new int[count];
+    	ParallelPool.POOL.invoke(
+    			new DigitRangeTask(piDigSeq, 0, start, count, precision));
+    	return piDigSeq;
+    }
+
+    // Writes the count digits of pi beginning at offset start into
+    // dest[offset .. offset + count - 1].
+    private static void fillPiInHex(int[] dest, int offset, long start,
+    		int count, Precision precision) {
+    	PiDigitStream stream = new PiDigitStream(start, count, precision);
+    	int filled = 0;
+    	while (filled < count) {
+    		filled = filled + stream.read(dest, offset + filled, count - filled);
+    	}
+    }
+
+    /**
+     * A fork-join task that writes the count digits of pi beginning at offset
+     * start into dest[offset .. offset + count - 1].
+     */
+    private static class DigitRangeTask extends RecursiveAction {
+    	private static final long serialVersionUID = 1L;
+
+    	// Fixed work per digit that does not depend on its offset (the right
+    	// sums, the digit extraction), measured in left-sum terms.
+    	private static final double FIXED_COST = 64;
+
+    	private final int[] dest;
+    	private final int offset;
+    	private final long start;
+    	private final int count;
+    	private final Precision precision;
+
+    	DigitRangeTask(int[] dest, int offset, long start, int count,
+    			Precision precision) {
+    		this.dest = dest;
+    		this.offset = offset;
+    		this.start = start;
+    		this.count = count;
+    		this.precision = precision;
+    	}
+
+    	@Override
+    	protected void compute() {
+    		if (count <= PARALLEL_LEAF_DIGITS) {
+    			fillPiInHex(dest, offset, start, count, precision);
+    			return;
     		}
-    		return piDigSeq;
+    		// The cost of the digits up to offset x grows as (x + FIXED_COST)^2,
+    		// so the cost midpoint of [a, b) lies at the root mean square of
+    		// a and b, shifted by FIXED_COST.
+    		double a = start + FIXED_COST;
+    		double b = start + count + FIXED_COST;
+    		long mid = (long) Math.sqrt((a * a + b * b) / 2) - (long) FIXED_COST;
+    		int leftCount = (int) Math.min(Math.max(mid - start, 1), count - 1);
+    		invokeAll(new DigitRangeTask(dest, offset, start, leftCount,
+    						precision),
+    				new DigitRangeTask(dest, offset + leftCount,
+    						start + leftCount, count - leftCount, precision));
     	}
     }
 
@@ -30,6 +234,9 @@ public class PiGenerator {
      * 
      * If a < 0, b < 0, or m < 0, return -1.
      * 
+     * Uses binary exponentiation on longs: every intermediate product is
+     * below m^2 < 2^62, so the result is exact for all int inputs.
+     * 
      * @param a
      * @param b
      * @param m
@@ -42,70 +249,214 @@ public class PiGenerator {
         	throw new ArithmeticException("powerMod: m can not equals to zero.");
         } else if (a == 0) {
         	return 0;
-        } else if (b == 0) {
-        	return 1 % m;
-        } else if (isEven(b)) {
-        	return (square(powerMod(a, b/2, m))) % m;
         } else {
-        	return (a * powerMod(a, (b - 1), m)) % m;
+        	long result = 1 % m;
+        	long base = a % m;
+        	while (b > 0) {
+        		if ((b & 1) == 1) {
+        			result = (result * base) % m;
+        		}
+        		base = (base * base) % m;
+        		b = b >>> 1;
+        	}
+        	return (int) result;
         }
     }
-    
-    private static boolean isEven(int x) {
-    	if ((x % 2) == 0) {
-    		return true;
-    	} else {
-    		return false;
+
+    /**
+     * Computes a^e mod m by binary exponentiation in Montgomery form, which
+     * replaces the division of every modular multiplication by two
+     * multiplications and a shift. This is the inner loop of the BBP series,
+     * where it runs once per term.
+     * 
+     * Requires 0 <= a, 0 <= e, and m odd with 0 < m <= Integer.MAX_VALUE.
+     * 
+     * @return a^e mod m
+     */
+    static long montgomeryPowerMod(long a, long e, long m) {
+    	assert (a >= 0) && (e >= 0) : "montgomeryPowerMod: negative input";
+    	assert ((m & 1) == 1) && (m <= Integer.MAX_VALUE) :
+    		"montgomeryPowerMod: modulus must be odd and fit in an int";
+    	if (m == 1) {
+    		return 0;
+    	}
+    	// Montgomery radix R = 2^32. negInverse = -m^-1 mod R, by Newton's
+    	// iteration, which doubles the number of correct low bits each step
+    	// (m is its own inverse mod 8, good for 3 bits).
+    	int inverse = (int) m;
+    	for (int i = 0; i < 4; i = i + 1) {
+    		inverse = inverse * (2 - (int) m * inverse);
+    	}
+    	long negInverse = (-inverse) & 0xFFFFFFFFL;
+
+    	long result = (1L << 32) % m;     // 1 * R mod m
+    	long base = ((a % m) << 32) % m;  // a * R mod m
+    	while (e > 0) {
+    		if ((e & 1) == 1) {
+    			result = montgomeryReduce(result * base, m, negInverse);
+    		}
+    		base = montgomeryReduce(base * base, m, negInverse);
+    		e = e >>> 1;
     	}
+    	return montgomeryReduce(result, m, negInverse);
     }
-    
-    private static int square(int x) {
-    	return x * x;
+
+    // Computes t * 2^-32 mod m, for 0 <= t < m * 2^32 and m < 2^31. The sum
+    // t + u * m stays below 2^64, so it is exact when read as unsigned.
+    private static long montgomeryReduce(long t, long m, long negInverse) {
+    	long u = ((t & 0xFFFFFFFFL) * negInverse) & 0xFFFFFFFFL;
+    	long reduced = (t + u * m) >>> 32;
+    	return (reduced >= m) ? reduced - m : reduced;
     }
     
     /**
      * Computes the nth digit of Pi in base-16.
      * 
-     * If n < 0, return -1.
+     * If n < 0 or n > MAX_POSITION, return -1.
      * 
      * @param n The digit of Pi to retrieve in base-16.
      * @return The nth digit of Pi in base-16.
      */
     public static int piDigit(int n) {
+        return piDigit(n, Precision.DOUBLE);
+    }
+
+    /**
+     * Same as piDigit(int), but sums the BBP series with the given precision.
+     * 
+     * If n < 0 or n > MAX_POSITION, return -1.
+     * 
+     * @param n The digit of Pi to retrieve in base-16.
+     * @param precision The arithmetic to sum the series in.
+     * @return The nth digit of Pi in base-16.
+     */
+    public static int piDigit(int n, Precision precision) {
         if (n < 0) return -1;
-        
-        n -= 1;
-        double x = 4 * piTerm(1, n) - 2 * piTerm(4, n) -
-                   piTerm(5, n) - piTerm(6, n);
-        x = x - Math.floor(x);
-        
-        return (int)(x * 16);
+        // digit n is at offset n - 1, which piDigitBlock needs below
+        // MAX_POSITION
+        if (n > MAX_POSITION) return -1;
+        // digit 0 is the integer part, 3
+        if (n == 0) return 3;
+
+        int[] block = new int[1];
+        piDigitBlock(n - 1, block, precision);
+        return block[0];
     }
-    
-    private static double piTerm(int j, int n) {
-        // Calculate the left sum
-        double s = 0;
-        for (int k = 0; k <= n; ++k) {
-            int r = 8 * k + j;
-            s += powerMod(16, n-k, r) / (double) r;
-            s = s - Math.floor(s);
-        }
-        
-        // Calculate the right sum
-        double t = 0;
-        int k = n+1;
-        // Keep iterating until t converges (stops changing)
-        while (true) {
-            int r = 8 * k + j;
-            double newt = t + Math.pow(16, n-k) / r;
-            if (t == newt) {
-                break;
-            } else {
-                t = newt;
-            }
-            ++k;
-        }
-        
-        return s+t;
+
+    /**
+     * Evaluates the BBP formula once at offset start, and writes the hex
+     * digits of pi beginning at that offset into block.
+     * 
+     * The evaluation yields the fractional part of 16^start * pi up to an
+     * error that grows linearly with start. Only the leading digits that are
+     * identical at both ends of that error interval are written, so every
+     * digit written is exact. If the value lies so close to a digit boundary
+     * that not even the first digit is certain, the evaluation is repeated in
+     * exact arithmetic by HighPrecisionBBP.
+     * 
+     * Requires 0 <= start < MAX_POSITION and block.length >= 1.
+     * 
+     * @param start The offset after the hexadecimal point of the first digit.
+     * @param block The array to write the digits into.
+     * @param precision The arithmetic to sum the series in.
+     * @return The number of digits written, between 1 and
+     *         min(block.length, MAX_DIGITS_PER_BLOCK).
+     */
+    static int piDigitBlock(long start, int[] block, Precision precision) {
+    	int written;
+    	if (precision == Precision.DOUBLE_DOUBLE) {
+    		written = HighPrecisionBBP.doubleDoubleDigitBlock(start, block);
+    	} else {
+    		written = doubleDigitBlock(start, block);
+    	}
+    	if (written == 0) {
+    		written = HighPrecisionBBP.exactDigitBlock(start, block);
+    	}
+    	return written;
+    }
+
+    // Same as piDigitBlock, summing in double, except that it writes no digit
+    // at all if not even the first one is certain.
+    private static int doubleDigitBlock(long start, int[] block) {
+    	double x = 4 * piSeries(1, start) - 2 * piSeries(4, start) -
+    			piSeries(5, start) - piSeries(6, start);
+    	x = x - Math.floor(x);
+
+    	// Every left-sum term carries a few ulps of rounding error, and the
+    	// four series are combined with weights adding up to 8.
+    	double error = (start + 2) * 0x1p-46;
+    	int maxDigits = Math.min(block.length, MAX_DIGITS_PER_BLOCK);
+    	int written = 0;
+    	double lo = x - error;
+    	double hi = x + error;
+    	if ((lo >= 0) && (hi < 1)) {
+    		// Scaling by 16 and dropping the integer part are both exact.
+    		while (written < maxDigits) {
+    			double loScaled = lo * 16;
+    			double hiScaled = hi * 16;
+    			int loDigit = (int) loScaled;
+    			if (loDigit != (int) hiScaled) {
+    				break;
+    			}
+    			block[written] = loDigit;
+    			written = written + 1;
+    			lo = loScaled - loDigit;
+    			hi = hiScaled - loDigit;
+    		}
+    	}
+    	return written;
+    }
+
+    /**
+     * Computes the fractional part of 16^d * sum_k 1 / (16^k * (8k + j)), the
+     * BBP series of index j shifted d hex digits to the left.
+     * 
+     * Requires 0 <= d < MAX_POSITION.
+     */
+    private static double piSeries(int j, long d) {
+    	// Left sum: the terms with 16^(d - k) >= 1, reduced mod 1 by taking
+    	// the numerator mod 8k + j.
+    	double s = 0;
+    	for (long k = 0; k <= d; k = k + 1) {
+    		long r = 8 * k + j;
+    		s = s + powerOf16Mod(d - k, r) / (double) r;
+    		s = s - Math.floor(s);
+    	}
+
+    	// Right sum: the tail with 16^(d - k) < 1, until it stops changing.
+    	double t = 0;
+    	long k = d + 1;
+    	while (true) {
+    		double newt = t + Math.pow(16, d - k) / (8 * k + j);
+    		if (t == newt) {
+    			break;
+    		}
+    		t = newt;
+    		k = k + 1;
+    	}
+    	return s + t;
+    }
+
+    /**
+     * Computes 16^e mod r, the numerator of a term of the left sum of a BBP
+     * series.
+     * 
+     * Montgomery reduction needs an odd modulus, but r = 8k + j is even for
+     * j = 4 and j = 6. There r = 2^s * q with q odd and s <= 2, and since 2^s
+     * divides 16^e for e >= 1, 16^e mod r = 2^s * ((16^e / 2^s) mod q).
+     * 
+     * Requires e >= 0 and 0 < r <= Integer.MAX_VALUE.
+     */
+    static long powerOf16Mod(long e, long r) {
+    	if ((r & 1) == 1) {
+    		return montgomeryPowerMod(16, e, r);
+    	} else if (e == 0) {
+    		return 1 % r;
+    	} else {
+    		int s = Long.numberOfTrailingZeros(r);
+    		long q = r >> s;
+    		long reduced = montgomeryPowerMod(16, e - 1, q) * (16 >> s);
+    		return (reduced % q) << s;
+    	}
     }
 }
@@ -2,6 +2,8 @@ package piwords;
 
 import static org.junit.Assert.*;
 
+import java.math.BigInteger;
+
 import org.junit.Test;
 
 public class PiGeneratorTest {
@@ -143,6 +145,12 @@ public class PiGeneratorTest {
     	assertEquals(0x02, PiGenerator.piDigit(1));
     	// n = 8, return 0x08
     	assertEquals(0x08, PiGenerator.piDigit(8));
+    	// n past MAX_POSITION, return -0x01
+    	int past = (int) PiGenerator.MAX_POSITION + 1;
+    	assertEquals(-0x01, PiGenerator.piDigit(past));
+    	assertEquals(-0x01, PiGenerator.piDigit(past,
+    			PiGenerator.Precision.DOUBLE_DOUBLE));
+    	assertEquals(-0x01, PiGenerator.piDigit(Integer.MAX_VALUE));
     }
     
     @Test
@@ -164,4 +172,121 @@ public class PiGeneratorTest {
     								0x0A, 0x03, 0x00, 0x08, 0x0D, 0x03, 0x01, 0x03, 0x01, 0x09},
     					  PiGenerator.computePiInHex(20));
     }
+    
+    @Test
+    public void computePiInHexRangeTest(){
+    	
+    	// start = -1, return null
+    	assertNull(PiGenerator.computePiInHex(-1L, 5));
+    	// count = 0, return null
+    	assertNull(PiGenerator.computePiInHex(0L, 0));
+    	// start + count past MAX_POSITION, return null
+    	assertNull(PiGenerator.computePiInHex(PiGenerator.MAX_POSITION - 2, 3));
+    	// start = 0, count = 3, return [0x02, 0x04, 0x03]
+    	assertArrayEquals(new int[]{0x02, 0x04, 0x03}, PiGenerator.computePiInHex(0L, 3));
+    	// start = 10, count = 10, return the last 10 of the first 20 digits
+    	assertArrayEquals(new int[]{0x0A, 0x03, 0x00, 0x08, 0x0D, 0x03, 0x01, 0x03, 0x01, 0x09},
+    					  PiGenerator.computePiInHex(10L, 10));
+    	// a range agrees with the same slice of a longer prefix
+    	int[] prefix = PiGenerator.computePiInHex(200);
+    	int[] range = PiGenerator.computePiInHex(150L, 50);
+    	for (int i = 0; i < 50; i = i + 1) {
+    		assertEquals(prefix[150 + i], range[i]);
+    	}
+    }
+    
+    @Test
+    public void piDigitStreamTest(){
+    	int[] prefix = PiGenerator.computePiInHex(40);
+    	
+    	// nextDigit yields the digits in order
+    	PiDigitStream stream = new PiDigitStream(5, 35);
+    	for (int i = 5; i < 40; i = i + 1) {
+    		assertTrue(stream.hasNext());
+    		assertEquals(i, stream.position());
+    		assertEquals(prefix[i], stream.nextDigit());
+    	}
+    	assertFalse(stream.hasNext());
+    	
+    	// read stops at the end of the stream, then returns -1
+    	stream = new PiDigitStream(30, 10);
+    	int[] buffer = new int[16];
+    	assertEquals(10, stream.read(buffer, 2, 14));
+    	for (int i = 0; i < 10; i = i + 1) {
+    		assertEquals(prefix[30 + i], buffer[2 + i]);
+    	}
+    	assertEquals(-1, stream.read(buffer, 0, 1));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void piDigitStreamNegativeStartTest(){
+    	new PiDigitStream(-1);
+    }
+    
+    @Test
+    public void computePiInHexParallelTest(){
+    	
+    	// precision = 0, return null
+    	assertNull(PiGenerator.computePiInHexParallel(0));
+    	// start = -1, return null
+    	assertNull(PiGenerator.computePiInHexParallel(-1L, 5));
+    	// small inputs are not split at all
+    	assertArrayEquals(PiGenerator.computePiInHex(20),
+    					  PiGenerator.computePiInHexParallel(20));
+    	// large inputs are split into many tasks, and must agree digit by digit
+    	assertArrayEquals(PiGenerator.computePiInHex(1000),
+    					  PiGenerator.computePiInHexParallel(1000));
+    	assertArrayEquals(PiGenerator.computePiInHex(700L, 600),
+    					  PiGenerator.computePiInHexParallel(700L, 600));
+    }
+    
+    @Test
+    public void largeModulusPowerModTest() {
+    	// moduli past 46341, where squaring a residue overflows an int
+    	int[][] cases = {{16, 5799, 46399}, {16, 123456, 987659},
+    					 {2147483646, 2147483647, 2147483647},
+    					 {123456789, 1000000007, 2147483629}};
+    	for (int[] c : cases) {
+    		int expected = BigInteger.valueOf(c[0]).modPow(BigInteger.valueOf(c[1]),
+    				BigInteger.valueOf(c[2])).intValue();
+    		assertEquals(expected, PiGenerator.powerMod(c[0], c[1], c[2]));
+    	}
+    }
+    
+    @Test
+    public void montgomeryPowerModTest() {
+    	// odd moduli only, as used by the BBP series
+    	long[] moduli = {1, 3, 9, 46399, 8000001, 2147483647};
+    	long[] exponents = {0, 1, 2, 15, 1000, 99999999};
+    	for (long m : moduli) {
+    		for (long e : exponents) {
+    			long expected = BigInteger.valueOf(16).modPow(BigInteger.valueOf(e),
+    					BigInteger.valueOf(m)).longValue();
+    			assertEquals(expected, PiGenerator.montgomeryPowerMod(16, e, m));
+    		}
+    	}
+    }
+    
+    @Test
+    public void precisionTest(){
+    	int[] prefix = PiGenerator.computePiInHex(500);
+    	
+    	// both precisions yield the same digits
+    	assertArrayEquals(prefix, PiGenerator.computePiInHex(0L, 500,
+    			PiGenerator.Precision.DOUBLE_DOUBLE));
+    	assertArrayEquals(PiGenerator.computePiInHex(3000L, 100),
+    			PiGenerator.computePiInHex(3000L, 100, PiGenerator.Precision.DOUBLE_DOUBLE));
+    	for (int i = 0; i < 50; i = i + 1) {
+    		assertEquals(prefix[i], PiGenerator.piDigit(i + 1,
+    				PiGenerator.Precision.DOUBLE_DOUBLE));
+    	}
+    	
+    	// the exact evaluation, otherwise only reached near digit boundaries
+    	int[] block = new int[PiGenerator.MAX_DIGITS_PER_BLOCK];
+    	int written = HighPrecisionBBP.exactDigitBlock(400, block);
+    	assertTrue(written > 1);
+    	for (int i = 0; i < written; i = i + 1) {
+    		assertEquals(prefix[400 + i], block[i]);
+    	}
+    }
 }
@@ -0,0 +1,738 @@
+package piwords;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The batch entry point of piwords: computes pi, translates it to another
+ * base, encodes it with an alphabet, and searches it for the words of a
+ * dictionary, printing the wall time, allocation and throughput of each of
+ * the four stages (generate, translate, encode, search), and of the
+ * alphabet optimization if there is one.
+ *
+ * Usage: PiWordsDriver [options], where the options are
+ *
+ *   --precision N         digits of pi to generate in the source base
+ *                         (default Main.PI_PRECISION)
+ *   --source-base B       base to generate pi in (default 16). Pi is
+ *                         computed in hex, and translated to B first if
+ *                         B != 16.
+ *   --target-base B       base to translate pi into (default 26)
+ *   --target-precision N  digits to translate into (default: precision)
+ *   --alphabet A          "basic" (a-z, target base 26 only), "frequency"
+ *                         (weighted by the letters of the dictionary),
+ *                         "optimized" (the frequency alphabet, improved by
+ *                         AlphabetOptimizer to find the most words in the
+ *                         translated digits), or the target-base chars of
+ *                         the alphabet themselves (default: basic for base
+ *                         26, frequency otherwise)
+ *   --iterations N        candidate alphabets to score for "optimized"
+ *                         (default AlphabetOptimizer.DEFAULT_ITERATIONS)
+ *   --dictionary FILE     a word list with one word per line, or a
+ *                         dictionary saved by CompiledDictionary.save
+ *                         (default Main.WORD_LIST)
+ *   --save-dictionary F   save the compiled dictionary to F
+ *   --parallel            generate and search on all available processors
+ *   --pi-cache FILE       read the hex digits of pi from a PiDigitCache
+ *                         file, computing and appending only those it does
+ *                         not hold yet
+ *   --output DIR          write the output of every stage to DIR
+ *   --resume              reuse the stage outputs found in DIR (which must
+ *                         be given with --output) instead of recomputing
+ *                         them
+ *
+ * Stage outputs are named after the parameters they depend on, so a later
+ * run with other parameters never resumes from them by mistake:
+ *
+ *   pi-B-N.digits               N digits of pi in base B (generate)
+ *   pi-B-N-to-C-M.digits        its translation to M digits in base C
+ *   pi-B-N-to-C-M-H.txt         the translation encoded with the alphabet
+ *                               whose SHA-256 digest is H, in hex
+ *   pi-B-N-to-C-M-H.matches     the words found, with their first index
+ *
+ * A .digits file holds the int MAGIC, the base, the number of digits, and
+ * then one byte per digit (four for bases above 256), big-endian. A .txt
+ * file holds the int TEXT_MAGIC, the base, the number of digits, the length
+ * of the alphabet and its chars, big-endian, and then one ASCII byte per
+ * digit; a resumed text must have the same alphabet, not just its digest.
+ *
+ * Each output is written to a file of the same name plus ".part", forced to
+ * the disk, and only then renamed to its own name, so a run that fails or
+ * is killed while writing never leaves an output for --resume to trust.
+ */
+public class PiWordsDriver {
+    // The first four bytes of a .digits file: "PiDg".
+    private static final int DIGITS_MAGIC = 0x50694467;
+    // The first four bytes of a .txt file: "PiTx".
+    private static final int TEXT_MAGIC = 0x50695478;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public static void main(String[] args) {
+    	int status = execute(args);
+    	if (status != 0) {
+    		System.exit(status);
+    	}
+    }
+
+    // Runs the driver with the command line args, printing errors to
+    // System.err, and returns the exit status: 0 on success, 1 if a file
+    // cannot be read or written, and 2 if args are not valid options.
+    static int execute(String[] args) {
+    	try {
+    		run(Options.parse(args));
+    		return 0;
+    	} catch (IllegalArgumentException e) {
+    		System.err.println("PiWordsDriver: " + e.getMessage());
+    		System.err.println("usage: PiWordsDriver [--precision N]" +
+    				" [--source-base B] [--target-base B]" +
+    				" [--target-precision N]" +
+    				" [--alphabet basic|frequency|optimized|CHARS]" +
+    				" [--iterations N]" +
+    				" [--dictionary FILE] [--save-dictionary FILE]" +
+    				" [--parallel] [--pi-cache FILE] [--output DIR [--resume]]");
+    		return 2;
+    	} catch (IOException e) {
+    		System.err.println("PiWordsDriver: " + e.getMessage());
+    		return 1;
+    	}
+    }
+
+    // Runs the four stages with the given options, and prints their report.
+    // Throws IllegalArgumentException if the options ask for an alphabet
+    // that does not exist for the target base.
+    static void run(Options options) throws IOException {
+    	Stage load = new Stage("dictionary");
+    	CompiledDictionary dictionary = loadDictionary(options.dictionary);
+    	load.done(dictionary.wordCount(), "words");
+    	if (options.saveDictionary != null) {
+    		dictionary.save(options.saveDictionary);
+    	}
+    	char[] alphabet = alphabet(options, dictionary);
+
+    	String sourceName = "pi-" + options.sourceBase + "-" + options.precision;
+    	String targetName = sourceName + "-to-" + options.targetBase + "-" +
+    			options.targetPrecision;
+
+    	// 1. generate
+    	Stage generate = new Stage("generate");
+    	int[] digits = options.resume ?
+    			readDigits(options.file(sourceName + ".digits"),
+    					options.sourceBase, options.precision) : null;
+    	if (digits == null) {
+    		digits = generate(options);
+    		if (options.output != null) {
+    			writeDigits(options.file(sourceName + ".digits"),
+    					options.sourceBase, digits);
+    		}
+    	} else {
+    		generate.resumed();
+    	}
+    	generate.done(digits.length, "digits");
+
+    	// 2. translate
+    	Stage translate = new Stage("translate");
+    	int[] translated = options.resume ?
+    			readDigits(options.file(targetName + ".digits"),
+    					options.targetBase, options.targetPrecision) : null;
+    	if (translated == null) {
+    		translated = BaseTranslator.convertBase(digits, options.sourceBase,
+    				options.targetBase, options.targetPrecision);
+    		if (options.output != null) {
+    			writeDigits(options.file(targetName + ".digits"),
+    					options.targetBase, translated);
+    		}
+    	} else {
+    		translate.resumed();
+    	}
+    	translate.done(translated.length, "digits");
+    	digits = null;
+
+    	// 2a. optimize the alphabet for the translated digits
+    	Stage optimize = null;
+    	if ("optimized".equals(options.alphabet)) {
+    		optimize = new Stage("optimize");
+    		alphabet = AlphabetOptimizer.optimizeAlphabet(translated,
+    				options.targetBase, dictionary.matcher(), alphabet,
+    				options.iterations, 0);
+    		optimize.done(options.iterations, "alphabets");
+    	}
+    	String textName = targetName + "-" + digest(alphabet);
+
+    	// 3. encode
+    	Stage encode = new Stage("encode");
+    	File textFile = (options.output != null) ?
+    			options.file(textName + ".txt") : null;
+    	CharSequence text = options.resume ? readText(textFile,
+    			options.targetBase, translated.length, alphabet) : null;
+    	if (text != null) {
+    		encode.resumed();
+    	} else if (options.output != null) {
+    		text = writeText(textFile, translated, options.targetBase, alphabet);
+    	} else {
+    		char[] chars = new char[translated.length];
+    		DigitsToStringConverter.convertDigitsInto(translated, 0,
+    				translated.length, options.targetBase, alphabet, chars, 0);
+    		text = new String(chars);
+    	}
+    	encode.done(text.length(), "chars");
+    	translated = null;
+
+    	// 4. search
+    	Stage search = new Stage("search");
+    	Map<String, Integer> found = options.parallel ?
+    			dictionary.matcher().getSubstringsParallel(text) :
+    			dictionary.getSubstrings(text);
+    	search.done(text.length(), "chars");
+    	if (options.output != null) {
+    		writeMatches(options.file(textName + ".matches"), found);
+    	}
+
+    	System.out.printf("Alphabet: %s\n",
+    			Main.MaybeTruncateString(new String(alphabet), 50));
+    	System.out.printf("Text: %s\n",
+    			Main.MaybeTruncateString(text.subSequence(0,
+    					Math.min(text.length(), 60)).toString(), 50));
+    	System.out.printf("Found %d of %d words (coverage %f)\n\n",
+    			found.size(), dictionary.wordCount(),
+    			((double) found.size()) / Math.max(1, dictionary.wordCount()));
+    	System.out.printf("%-10s %10s %12s %16s\n", "stage", "wall ms",
+    			"alloc MB", "throughput");
+    	for (Stage stage : new Stage[] {load, generate, translate, optimize,
+    			encode, search}) {
+    		if (stage != null) {
+    			System.out.println(stage);
+    		}
+    	}
+    }
+
+    // Returns options.precision digits of pi in options.sourceBase.
+    private static int[] generate(Options options) throws IOException {
+    	int hexDigits = options.precision;
+    	if (options.sourceBase != 16) {
+    		// enough hex digits for precision digits in the source base, and
+    		// a few more so that the last ones are right
+    		hexDigits = (int) Math.ceil(options.precision *
+    				Math.log(options.sourceBase) / Math.log(16)) + 4;
+    	}
+    	int[] hex;
+    	if (options.piCache != null) {
+    		PiDigitCache cache = new PiDigitCache(options.piCache,
+    				options.parallel);
+    		try {
+    			hex = cache.digits(0, hexDigits);
+    		} finally {
+    			cache.close();
+    		}
+    	} else if (options.parallel) {
+    		hex = PiGenerator.computePiInHexParallel(hexDigits);
+    	} else {
+    		hex = PiGenerator.computePiInHex(hexDigits);
+    	}
+    	if (options.sourceBase == 16) {
+    		return hex;
+    	}
+    	return BaseTranslator.convertBase(hex, 16, options.sourceBase,
+    			options.precision);
+    }
+
+    // Returns the alphabet that options ask for.
+    private static char[] alphabet(Options options,
+    		CompiledDictionary dictionary) {
+    	String name = options.alphabet;
+    	if (name == null) {
+    		name = (options.targetBase == 26) ? "basic" : "frequency";
+    	}
+    	char[] alphabet;
+    	if (name.equals("basic")) {
+    		alphabet = (options.targetBase == 26) ?
+    				Main.BASIC_ALPHABET.clone() : null;
+    	} else if (name.equals("frequency") || name.equals("optimized")) {
+    		// "optimized" starts from the frequency alphabet
+    		alphabet = AlphabetGenerator.generateFrequencyAlphabet(
+    				options.targetBase, Arrays.asList(dictionary.words()));
+    	} else {
+    		alphabet = (name.length() == options.targetBase) ?
+    				name.toCharArray() : null;
+    	}
+    	if (alphabet == null) {
+    		throw new IllegalArgumentException("no alphabet \"" + name +
+    				"\" for base " + options.targetBase);
+    	}
+    	return alphabet;
+    }
+
+    // Loads a dictionary saved by CompiledDictionary.save, or compiles a word
+    // list with one word per line.
+    private static CompiledDictionary loadDictionary(File file)
+    		throws IOException {
+    	if (file == null) {
+    		return new CompiledDictionary(Main.WORD_LIST);
+    	}
+    	if (isCompiledDictionary(file)) {
+    		return CompiledDictionary.load(file);
+    	}
+    	List<String> words = new ArrayList<String>();
+    	BufferedReader reader = new BufferedReader(new InputStreamReader(
+    			new FileInputStream(file), UTF_8));
+    	try {
+    		String line;
+    		while ((line = reader.readLine()) != null) {
+    			line = line.trim();
+    			if (line.length() > 0) {
+    				words.add(line);
+    			}
+    		}
+    	} finally {
+    		reader.close();
+    	}
+    	return new CompiledDictionary(words.toArray(new String[words.size()]));
+    }
+
+    // Returns true if file begins with the magic of a compiled dictionary.
+    private static boolean isCompiledDictionary(File file) throws IOException {
+    	DataInputStream input = new DataInputStream(new FileInputStream(file));
+    	try {
+    		// CompiledDictionary files are little-endian
+    		return (file.length() >= 4) &&
+    				(Integer.reverseBytes(input.readInt()) ==
+    				CompiledDictionary.MAGIC);
+    	} finally {
+    		input.close();
+    	}
+    }
+
+    // Writes digits in base to file, in the .digits format.
+    private static void writeDigits(File file, int base, int[] digits)
+    		throws IOException {
+    	int width = (base <= 256) ? 1 : 4;
+    	long size = 12 + (long) width * digits.length;
+    	File part = partFile(file);
+    	RandomAccessFile output = new RandomAccessFile(part, "rw");
+    	boolean written = false;
+    	try {
+    		output.setLength(size);
+    		MappedByteBuffer buffer = output.getChannel().map(
+    				FileChannel.MapMode.READ_WRITE, 0, size);
+    		buffer.putInt(DIGITS_MAGIC);
+    		buffer.putInt(base);
+    		buffer.putInt(digits.length);
+    		if (width == 1) {
+    			for (int i = 0; i < digits.length; i = i + 1) {
+    				buffer.put((byte) digits[i]);
+    			}
+    		} else {
+    			buffer.asIntBuffer().put(digits);
+    		}
+    		buffer.force();
+    		written = true;
+    	} finally {
+    		output.close();
+    		if (!written) {
+    			part.delete();
+    		}
+    	}
+    	commit(part, file);
+    }
+
+    // Returns the digits of a .digits file, or null if it does not exist or
+    // does not hold count digits in base.
+    private static int[] readDigits(File file, int base, int count)
+    		throws IOException {
+    	int width = (base <= 256) ? 1 : 4;
+    	if (file.length() != 12 + (long) width * count) {
+    		return null;
+    	}
+    	RandomAccessFile input = new RandomAccessFile(file, "r");
+    	try {
+    		MappedByteBuffer buffer = input.getChannel().map(
+    				FileChannel.MapMode.READ_ONLY, 0, file.length());
+    		if ((buffer.getInt() != DIGITS_MAGIC) || (buffer.getInt() != base) ||
+    				(buffer.getInt() != count)) {
+    			return null;
+    		}
+    		int[] digits = new int[count];
+    		if (width == 1) {
+    			for (int i = 0; i < count; i = i + 1) {
+    				digits[i] = buffer.get() & 0xFF;
+    			}
+    		} else {
+    			buffer.asIntBuffer().get(digits);
+    		}
+    		for (int i = 0; i < count; i = i + 1) {
+    			if (digits[i] >= base) {
+    				return null;
+    			}
+    		}
+    		return digits;
+    	} finally {
+    		input.close();
+    	}
+    }
+
+    // Encodes digits with alphabet straight into a memory mapping of file,
+    // in the .txt format, and returns the text of file, mapped.
+    private static CharSequence writeText(File file, int[] digits, int base,
+    		char[] alphabet) throws IOException {
+    	long header = 16 + 2L * alphabet.length;
+    	long size = header + digits.length;
+    	File part = partFile(file);
+    	RandomAccessFile output = new RandomAccessFile(part, "rw");
+    	boolean written = false;
+    	try {
+    		output.setLength(size);
+    		MappedByteBuffer buffer = output.getChannel().map(
+    				FileChannel.MapMode.READ_WRITE, 0, size);
+    		buffer.putInt(TEXT_MAGIC);
+    		buffer.putInt(base);
+    		buffer.putInt(digits.length);
+    		buffer.putInt(alphabet.length);
+    		buffer.asCharBuffer().put(alphabet);
+    		buffer.position((int) header);
+    		if (DigitsToStringConverter.convertDigitsInto(digits, 0,
+    				digits.length, base, alphabet, buffer) == -1) {
+    			throw new IOException("cannot write the text in ASCII: the" +
+    					" alphabet has non-ASCII chars");
+    		}
+    		buffer.force();
+    		written = true;
+    	} finally {
+    		output.close();
+    		if (!written) {
+    			part.delete();
+    		}
+    	}
+    	commit(part, file);
+    	return readText(file, base, digits.length, alphabet);
+    }
+
+    // Returns the text of a .txt file, mapped into memory, or null if it
+    // does not exist or does not hold count digits in base encoded with
+    // alphabet.
+    private static CharSequence readText(File file, int base, int count,
+    		char[] alphabet) throws IOException {
+    	long header = 16 + 2L * alphabet.length;
+    	if (file.length() != header + count) {
+    		return null;
+    	}
+    	RandomAccessFile input = new RandomAccessFile(file, "r");
+    	try {
+    		MappedByteBuffer buffer = input.getChannel().map(
+    				FileChannel.MapMode.READ_ONLY, 0, file.length());
+    		if ((buffer.getInt() != TEXT_MAGIC) || (buffer.getInt() != base) ||
+    				(buffer.getInt() != count) ||
+    				(buffer.getInt() != alphabet.length)) {
+    			return null;
+    		}
+    		char[] stored = new char[alphabet.length];
+    		buffer.asCharBuffer().get(stored);
+    		if (!Arrays.equals(alphabet, stored)) {
+    			return null;
+    		}
+    		buffer.position((int) header);
+    		return new AsciiText(buffer.slice());
+    	} finally {
+    		input.close();
+    	}
+    }
+
+    // Returns the SHA-256 digest of the chars of alphabet, in hex.
+    private static String digest(char[] alphabet) {
+    	MessageDigest sha;
+    	try {
+    		sha = MessageDigest.getInstance("SHA-256");
+    	} catch (NoSuchAlgorithmException e) {
+    		// every Java platform is required to support SHA-256
+    		throw new AssertionError(e);
+    	}
+    	for (char c : alphabet) {
+    		sha.update((byte) (c >> 8));
+    		sha.update((byte) c);
+    	}
+    	StringBuilder hex = new StringBuilder();
+    	for (byte b : sha.digest()) {
+    		hex.append(String.format("%02x", b & 0xFF));
+    	}
+    	return hex.toString();
+    }
+
+    // Writes each found word and its index to file, one per line, by index.
+    private static void writeMatches(File file, final Map<String, Integer> found)
+    		throws IOException {
+    	List<String> words = new ArrayList<String>(found.keySet());
+    	Collections.sort(words, new Comparator<String>() {
+    		public int compare(String a, String b) {
+    			int byIndex = found.get(a).compareTo(found.get(b));
+    			return (byIndex != 0) ? byIndex : a.compareTo(b);
+    		}
+    	});
+    	File part = partFile(file);
+    	FileOutputStream stream = new FileOutputStream(part);
+    	Writer writer = new BufferedWriter(new OutputStreamWriter(stream,
+    			UTF_8));
+    	boolean written = false;
+    	try {
+    		for (String word : words) {
+    			writer.write(found.get(word) + "\t" + word + "\n");
+    		}
+    		writer.flush();
+    		stream.getFD().sync();
+    		written = true;
+    	} finally {
+    		writer.close();
+    		if (!written) {
+    			part.delete();
+    		}
+    	}
+    	commit(part, file);
+    }
+
+    // Returns the file that the output for file is written to before it is
+    // complete.
+    private static File partFile(File file) {
+    	return new File(file.getPath() + ".part");
+    }
+
+    // Renames the complete output part, written to the disk, to file,
+    // replacing any earlier output there in one step.
+    private static void commit(File part, File file) throws IOException {
+    	Files.move(part.toPath(), file.toPath(),
+    			StandardCopyOption.REPLACE_EXISTING,
+    			StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The ASCII bytes of a ByteBuffer, between 0 and its limit, as chars.
+     */
+    private static class AsciiText implements CharSequence {
+    	private final ByteBuffer bytes;
+
+    	AsciiText(ByteBuffer bytes) {
+    		this.bytes = bytes;
+    	}
+
+    	public int length() {
+    		return bytes.limit();
+    	}
+
+    	public char charAt(int index) {
+    		return (char) (bytes.get(index) & 0xFF);
+    	}
+
+    	public CharSequence subSequence(int start, int end) {
+    		ByteBuffer view = bytes.duplicate();
+    		view.position(start);
+    		view.limit(end);
+    		return new AsciiText(view.slice());
+    	}
+
+    	@Override
+    	public String toString() {
+    		char[] chars = new char[length()];
+    		for (int i = 0; i < chars.length; i = i + 1) {
+    			chars[i] = charAt(i);
+    		}
+    		return new String(chars);
+    	}
+    }
+
+    /**
+     * The measurements of one stage: its wall time, the bytes allocated by
+     * all threads while it ran, and its throughput.
+     */
+    private static class Stage {
+    	private final String name;
+    	private final long startTime;
+    	private final long startAllocated;
+    	private long time;
+    	private long allocated;
+    	private long units;
+    	private String unitName;
+    	private boolean resumed = false;
+
+    	Stage(String name) {
+    		this.name = name;
+    		this.startAllocated = allocatedBytes();
+    		this.startTime = System.nanoTime();
+    	}
+
+    	// Marks the stage as read from a previous run's output.
+    	void resumed() {
+    		resumed = true;
+    	}
+
+    	// Ends the stage, which produced units of unitName.
+    	void done(long units, String unitName) {
+    		this.time = System.nanoTime() - startTime;
+    		long end = allocatedBytes();
+    		this.allocated = ((end < 0) || (startAllocated < 0)) ? -1 :
+    				end - startAllocated;
+    		this.units = units;
+    		this.unitName = unitName;
+    	}
+
+    	@Override
+    	public String toString() {
+    		String throughput = String.format("%.3g %s/s",
+    				units / Math.max(time / 1e9, 1e-9), unitName);
+    		return String.format("%-10s %10.1f %12s %16s%s", name, time / 1e6,
+    				(allocated < 0) ? "n/a" :
+    					String.format("%.1f", allocated / 1e6),
+    				throughput, resumed ? "  (resumed)" : "");
+    	}
+    }
+
+    // Returns the bytes allocated so far by all live threads, or -1 if the
+    // JVM does not count them.
+    private static long allocatedBytes() {
+    	ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    	if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+    		return -1;
+    	}
+    	com.sun.management.ThreadMXBean counting =
+    			(com.sun.management.ThreadMXBean) threads;
+    	if (!counting.isThreadAllocatedMemorySupported() ||
+    			!counting.isThreadAllocatedMemoryEnabled()) {
+    		return -1;
+    	}
+    	long total = 0;
+    	for (long bytes : counting.getThreadAllocatedBytes(
+    			threads.getAllThreadIds())) {
+    		if (bytes > 0) {
+    			total = total + bytes;
+    		}
+    	}
+    	return total;
+    }
+
+    /**
+     * The command line options of a run.
+     */
+    static class Options {
+    	int precision = Main.PI_PRECISION;
+    	int sourceBase = 16;
+    	int targetBase = 26;
+    	int targetPrecision = -1;
+    	String alphabet = null;
+    	int iterations = AlphabetOptimizer.DEFAULT_ITERATIONS;
+    	File dictionary = null;
+    	File saveDictionary = null;
+    	File piCache = null;
+    	boolean parallel = false;
+    	File output = null;
+    	boolean resume = false;
+
+    	// Returns the options of args.
+    	// Throws IllegalArgumentException if args are not valid options.
+    	static Options parse(String[] args) {
+    		Options options = new Options();
+    		for (int i = 0; i < args.length; i = i + 1) {
+    			String arg = args[i];
+    			if (arg.equals("--parallel")) {
+    				options.parallel = true;
+    			} else if (arg.equals("--resume")) {
+    				options.resume = true;
+    			} else if (i + 1 == args.length) {
+    				throw new IllegalArgumentException(
+    						"unknown option or missing value: " + arg);
+    			} else {
+    				i = i + 1;
+    				String value = args[i];
+    				if (arg.equals("--precision")) {
+    					options.precision = positive(arg, value);
+    				} else if (arg.equals("--source-base")) {
+    					options.sourceBase = positive(arg, value);
+    				} else if (arg.equals("--target-base")) {
+    					options.targetBase = positive(arg, value);
+    				} else if (arg.equals("--target-precision")) {
+    					options.targetPrecision = positive(arg, value);
+    				} else if (arg.equals("--alphabet")) {
+    					options.alphabet = value;
+    				} else if (arg.equals("--iterations")) {
+    					options.iterations = positive(arg, value);
+    				} else if (arg.equals("--dictionary")) {
+    					options.dictionary = new File(value);
+    				} else if (arg.equals("--save-dictionary")) {
+    					options.saveDictionary = new File(value);
+    				} else if (arg.equals("--pi-cache")) {
+    					options.piCache = new File(value);
+    				} else if (arg.equals("--output")) {
+    					options.output = new File(value);
+    				} else {
+    					throw new IllegalArgumentException(
+    							"unknown option: " + arg);
+    				}
+    			}
+    		}
+    		if (options.targetPrecision == -1) {
+    			options.targetPrecision = options.precision;
+    		}
+    		if ((options.sourceBase < 2) || (options.targetBase < 2)) {
+    			throw new IllegalArgumentException("bases must be >= 2");
+    		}
+    		if ((options.alphabet != null) &&
+    				!options.alphabet.equals("frequency") &&
+    				!options.alphabet.equals("optimized") &&
+    				(options.alphabet.equals("basic") ?
+    						(options.targetBase != 26) :
+    						(options.alphabet.length() != options.targetBase))) {
+    			throw new IllegalArgumentException("no alphabet \"" +
+    					options.alphabet + "\" for base " + options.targetBase);
+    		}
+    		if (options.resume && (options.output == null)) {
+    			throw new IllegalArgumentException("--resume needs --output");
+    		}
+    		if ((options.output != null) && !options.output.isDirectory() &&
+    				!options.output.mkdirs()) {
+    			throw new IllegalArgumentException(
+    					"cannot create directory " + options.output);
+    		}
+    		return options;
+    	}
+
+    	// Returns the file of a stage output in the output directory.
+    	File file(String name) {
+    		return new File(output, name);
+    	}
+
+    	// Returns value as an int >= 1.
+    	private static int positive(String option, String value) {
+    		int n;
+    		try {
+    			n = Integer.parseInt(value);
+    		} catch (NumberFormatException e) {
+    			n = 0;
+    		}
+    		if (n < 1) {
+    			throw new IllegalArgumentException(option +
+    					" needs a positive integer, not " + value);
+    		}
+    		return n;
+    	}
+    }
+}
@@ -0,0 +1,240 @@
+package piwords;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class PiWordsDriverTest {
+    @Test
+    public void parseDefaultsTest() {
+    	PiWordsDriver.Options options =
+    			PiWordsDriver.Options.parse(new String[0]);
+    	assertEquals(Main.PI_PRECISION, options.precision);
+    	assertEquals(16, options.sourceBase);
+    	assertEquals(26, options.targetBase);
+    	assertEquals(Main.PI_PRECISION, options.targetPrecision);
+    	assertNull(options.alphabet);
+    	assertFalse(options.parallel);
+    	assertNull(options.output);
+    	assertFalse(options.resume);
+    }
+
+    @Test
+    public void parseValuesTest() {
+    	PiWordsDriver.Options options = PiWordsDriver.Options.parse(
+    			new String[] {"--precision", "200", "--source-base", "10",
+    				"--target-base", "4", "--alphabet", "acgt", "--parallel",
+    				"--iterations", "7", "--dictionary", "words.txt"});
+    	assertEquals(200, options.precision);
+    	assertEquals(10, options.sourceBase);
+    	assertEquals(4, options.targetBase);
+    	// the target precision defaults to the precision
+    	assertEquals(200, options.targetPrecision);
+    	assertEquals("acgt", options.alphabet);
+    	assertTrue(options.parallel);
+    	assertEquals(7, options.iterations);
+    	assertEquals(new File("words.txt"), options.dictionary);
+    }
+
+    @Test
+    public void parseInvalidTest() {
+    	String[][] invalid = {
+    			{"--precision"},
+    			{"--precision", "0"},
+    			{"--precision", "ten"},
+    			{"--colour", "red"},
+    			{"--target-base", "1"},
+    			{"--resume"},
+    			{"--alphabet", "basic", "--target-base", "100"},
+    			{"--alphabet", "abc", "--target-base", "4"},
+    	};
+    	for (String[] args : invalid) {
+    		try {
+    			PiWordsDriver.Options.parse(args);
+    			fail("parsed " + Arrays.toString(args));
+    		} catch (IllegalArgumentException e) {
+    			// expected
+    		}
+    	}
+    	// frequency alphabets exist for every base
+    	PiWordsDriver.Options.parse(new String[] {"--alphabet", "frequency",
+    			"--target-base", "100"});
+    }
+
+    @Test
+    public void usageErrorTest() {
+    	// an alphabet that does not fit the base is a usage error, reported
+    	// without a stack trace
+    	PrintStream err = System.err;
+    	ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    	System.setErr(new PrintStream(captured));
+    	try {
+    		assertEquals(2, PiWordsDriver.execute(new String[] {
+    				"--precision", "200", "--alphabet", "basic",
+    				"--target-base", "100"}));
+    	} finally {
+    		System.setErr(err);
+    	}
+    	String message = captured.toString();
+    	assertTrue(message, message.contains("no alphabet \"basic\" for base 100"));
+    	assertTrue(message, message.contains("usage: PiWordsDriver"));
+    }
+
+    @Test
+    public void outputResumeRoundTripTest() throws IOException {
+    	File output = tempDirectory();
+    	File words = new File(output, "words.txt");
+    	FileOutputStream stream = new FileOutputStream(words);
+    	stream.write("a\nab\npi\nthe\ncat\ndog\nbe\non\n".getBytes("UTF-8"));
+    	stream.close();
+    	String[] args = {"--precision", "300", "--dictionary", words.getPath(),
+    			"--output", output.getPath()};
+
+    	String first = run(args);
+    	assertFalse(first, first.contains("(resumed)"));
+    	String[] names = {"pi-16-300.digits", "pi-16-300-to-26-300.digits"};
+    	for (String name : names) {
+    		assertTrue(name, new File(output, name).isFile());
+    	}
+    	File matches = matchesFile(output);
+    	assertNotNull(matches);
+    	byte[] found = readFile(matches);
+
+    	String[] resumeArgs = Arrays.copyOf(args, args.length + 1);
+    	resumeArgs[args.length] = "--resume";
+    	String second = run(resumeArgs);
+    	// generate, translate and encode are read back, not recomputed
+    	assertEquals(second, 3, second.split("\\(resumed\\)", -1).length - 1);
+    	assertArrayEquals(found, readFile(matchesFile(output)));
+    	assertEquals(textLine(first), textLine(second));
+
+    	for (File file : output.listFiles()) {
+    		file.delete();
+    	}
+    	output.delete();
+    }
+
+    @Test
+    public void resumeChecksAlphabetTest() throws IOException {
+    	// a text under the name of the basic alphabet, but encoded with
+    	// another, as if their digests collided, is not resumed
+    	File output = tempDirectory();
+    	String[] basic = {"--precision", "200", "--output", output.getPath()};
+    	String first = run(basic);
+    	File text = textFile(output);
+    	byte[] found = readFile(matchesFile(output));
+    	text.delete();
+    	matchesFile(output).delete();
+    	run(new String[] {"--precision", "200", "--output", output.getPath(),
+    			"--alphabet", "zyxwvutsrqponmlkjihgfedcba"});
+    	matchesFile(output).delete();
+    	assertTrue(textFile(output).renameTo(text));
+
+    	String[] resumeArgs = Arrays.copyOf(basic, basic.length + 1);
+    	resumeArgs[basic.length] = "--resume";
+    	String second = run(resumeArgs);
+    	// generate and translate are read back, but encode is recomputed
+    	assertEquals(second, 2, second.split("\\(resumed\\)", -1).length - 1);
+    	assertEquals(textLine(first), textLine(second));
+    	assertArrayEquals(found, readFile(matchesFile(output)));
+
+    	for (File file : output.listFiles()) {
+    		file.delete();
+    	}
+    	output.delete();
+    }
+
+    @Test
+    public void failedWriteLeavesNoOutputTest() throws IOException {
+    	// the text cannot be written in ASCII with a Cyrillic alphabet; the
+    	// failed write must not leave a text for --resume to trust
+    	File output = tempDirectory();
+    	char[] cyrillic = new char[26];
+    	for (int i = 0; i < cyrillic.length; i = i + 1) {
+    		cyrillic[i] = (char) ('\u0430' + i);
+    	}
+    	String[] args = {"--precision", "200", "--alphabet",
+    			new String(cyrillic), "--output", output.getPath()};
+    	PrintStream err = System.err;
+    	System.setErr(new PrintStream(new ByteArrayOutputStream()));
+    	try {
+    		assertEquals(1, PiWordsDriver.execute(args));
+    	} finally {
+    		System.setErr(err);
+    	}
+    	for (File file : output.listFiles()) {
+    		assertTrue(file.getName(), file.getName().endsWith(".digits"));
+    		file.delete();
+    	}
+    	output.delete();
+    }
+
+    // @return what PiWordsDriver.run(args) prints
+    private static String run(String[] args) throws IOException {
+    	PrintStream out = System.out;
+    	ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    	System.setOut(new PrintStream(captured));
+    	try {
+    		PiWordsDriver.run(PiWordsDriver.Options.parse(args));
+    	} finally {
+    		System.setOut(out);
+    	}
+    	return captured.toString();
+    }
+
+    // @return the line of report that begins "Found", for comparing runs
+    private static String textLine(String report) {
+    	for (String line : report.split("\n")) {
+    		if (line.startsWith("Found")) {
+    			return line;
+    		}
+    	}
+    	return null;
+    }
+
+    // @return the one .txt file in directory, or null
+    private static File textFile(File directory) {
+    	for (File file : directory.listFiles()) {
+    		if (file.getName().endsWith(".txt")) {
+    			return file;
+    		}
+    	}
+    	return null;
+    }
+
+    // @return the one .matches file in directory, or null
+    private static File matchesFile(File directory) {
+    	for (File file : directory.listFiles()) {
+    		if (file.getName().endsWith(".matches")) {
+    			return file;
+    		}
+    	}
+    	return null;
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+    	RandomAccessFile input = new RandomAccessFile(file, "r");
+    	try {
+    		byte[] bytes = new byte[(int) input.length()];
+    		input.readFully(bytes);
+    		return bytes;
+    	} finally {
+    		input.close();
+    	}
+    }
+
+    private static File tempDirectory() throws IOException {
+    	File directory = File.createTempFile("piwords", ".out");
+    	directory.delete();
+    	directory.mkdirs();
+    	return directory;
+    }
+}
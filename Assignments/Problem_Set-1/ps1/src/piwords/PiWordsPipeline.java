@@ -0,0 +1,266 @@
+package piwords;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Runs the piwords chain (compute pi in hex, translate it to another base,
+ * encode it with an alphabet, search it for words) as a pipeline: each stage
+ * runs on its own thread and hands its output to the next stage in blocks
+ * through a bounded queue, so all stages work at once and none of them holds
+ * the whole digit sequence or string.
+ */
+public class PiWordsPipeline {
+    /**
+     * The number of digits or characters in a block passed between stages.
+     */
+    static final int BLOCK_SIZE = 1024;
+
+    /**
+     * The largest number of blocks waiting between two stages. A stage that
+     * runs ahead of the next one blocks once this many are waiting.
+     */
+    static final int QUEUE_CAPACITY = 16;
+
+    /**
+     * Given the number of hex digits of pi to compute, and a base, precision
+     * and alphabet to encode them with, returns the same map as
+     *
+     *   WordFinder.getSubstrings(
+     *       DigitsToStringConverter.convertDigitsToString(
+     *           BaseTranslator.convertBase(
+     *               PiGenerator.computePiInHex(hexPrecision),
+     *               16, base, precision),
+     *           base, alphabet),
+     *       words)
+     *
+     * but computes it with the stages overlapped.
+     *
+     * If hexPrecision < 1, hexPrecision > PiGenerator.MAX_POSITION, base < 2,
+     * precision < 1, or alphabet.length != base, return null.
+     *
+     * @param hexPrecision The number of hex digits of pi to compute.
+     * @param base The base to translate the digits into.
+     * @param precision The number of digits in base to translate into.
+     * @param alphabet The mapping of digits in base to chars. This array is
+     *                 not mutated.
+     * @param words The words to search for. This array is not mutated.
+     * @return A map from each word found in the encoded digits to the lowest
+     *         index at which it was found.
+     */
+    public static Map<String, Integer> findWords(int hexPrecision, int base,
+    		int precision, char[] alphabet, String[] words) {
+    	if ((hexPrecision < 1) || (hexPrecision > PiGenerator.MAX_POSITION) ||
+    			(base < 2) || (precision < 1) || (alphabet.length != base)) {
+    		return null;
+    	}
+    	final Channel<int[]> hexDigits = new Channel<int[]>();
+    	final Channel<String> text = new Channel<String>();
+
+    	final PiDigitStream pi = new PiDigitStream(0, hexPrecision);
+    	Thread generator = startStage("pi generator", hexDigits, new Stage() {
+    		public void run() throws InterruptedException {
+    			copyBlocks(pi, hexDigits);
+    		}
+    	});
+
+    	final StreamingBaseTranslator translator = new StreamingBaseTranslator(
+    			new ChannelDigitStream(hexDigits), 16, base, precision);
+    	final char[] encodingAlphabet = alphabet.clone();
+    	final int encodingBase = base;
+    	Thread encoder = startStage("base translator", text, new Stage() {
+    		public void run() throws InterruptedException {
+    			int[] block = new int[BLOCK_SIZE];
+    			char[] chars = new char[BLOCK_SIZE];
+    			int count;
+    			while ((count = translator.read(block, 0, BLOCK_SIZE)) > 0) {
+    				// the digits are in range and the alphabet was checked
+    				DigitsToStringConverter.convertDigitsInto(block, 0, count,
+    						encodingBase, encodingAlphabet, chars, 0);
+    				text.put(new String(chars, 0, count));
+    			}
+    		}
+    	});
+
+    	try {
+    		return searchBlocks(text, words);
+    	} finally {
+    		// stops the producers early if the search failed
+    		generator.interrupt();
+    		encoder.interrupt();
+    	}
+    }
+
+    // Same as WordFinder.getSubstrings on the concatenation of the blocks of
+    // text. The search carries its automaton state from one block to the
+    // next, so that words across block boundaries are found.
+    private static Map<String, Integer> searchBlocks(Channel<String> text,
+    		String[] words) {
+    	WordMatcher.Search search = new WordMatcher(words).search();
+    	String block;
+    	while (!search.isComplete() && ((block = text.take()) != null)) {
+    		search.feed(block);
+    	}
+    	return search.result();
+    }
+
+    // Reads all digits of source into channel, in blocks of BLOCK_SIZE.
+    private static void copyBlocks(DigitStream source, Channel<int[]> channel)
+    		throws InterruptedException {
+    	while (source.hasNext()) {
+    		int[] block = new int[BLOCK_SIZE];
+    		int count = source.read(block, 0, BLOCK_SIZE);
+    		channel.put((count == BLOCK_SIZE) ? block :
+    				Arrays.copyOf(block, count));
+    	}
+    }
+
+    /**
+     * The body of a pipeline stage, which writes its output to a Channel.
+     */
+    private interface Stage {
+    	public void run() throws InterruptedException;
+    }
+
+    // Starts stage on a new daemon thread. When the stage finishes, output is
+    // closed; if it fails, the failure is passed on through output.
+    private static <T> Thread startStage(String name, final Channel<T> output,
+    		final Stage stage) {
+    	Thread thread = new Thread(new Runnable() {
+    		public void run() {
+    			try {
+    				stage.run();
+    				output.close();
+    			} catch (InterruptedException e) {
+    				// the consumer gave up; nobody is left to tell
+    			} catch (Throwable e) {
+    				output.fail(e);
+    			}
+    		}
+    	}, "PiWordsPipeline " + name);
+    	thread.setDaemon(true);
+    	thread.start();
+    	return thread;
+    }
+
+    /**
+     * A bounded queue of blocks between two stages, which also carries the
+     * end of the stream or the failure of the producing stage.
+     */
+    private static class Channel<T> {
+    	private static final Object END = new Object();
+
+    	private final BlockingQueue<Object> queue =
+    			new ArrayBlockingQueue<Object>(QUEUE_CAPACITY);
+    	private boolean ended = false;
+
+    	void put(T block) throws InterruptedException {
+    		queue.put(block);
+    	}
+
+    	void close() throws InterruptedException {
+    		queue.put(END);
+    	}
+
+    	// Hands failure to the consumer, unless the consumer has given up.
+    	void fail(Throwable failure) {
+    		try {
+    			queue.put(new Failure(failure));
+    		} catch (InterruptedException e) {
+    			// the consumer gave up; nobody is left to tell
+    		}
+    	}
+
+    	/**
+    	 * @return the next block, or null once the producer has finished.
+    	 * @throws RuntimeException if the producer failed.
+    	 */
+    	@SuppressWarnings("unchecked")
+    	T take() {
+    		if (ended) {
+    			return null;
+    		}
+    		Object item;
+    		try {
+    			item = queue.take();
+    		} catch (InterruptedException e) {
+    			Thread.currentThread().interrupt();
+    			throw new RuntimeException("PiWordsPipeline: interrupted", e);
+    		}
+    		if (item == END) {
+    			ended = true;
+    			return null;
+    		} else if (item instanceof Failure) {
+    			ended = true;
+    			Throwable cause = ((Failure) item).cause;
+    			if (cause instanceof RuntimeException) {
+    				throw (RuntimeException) cause;
+    			}
+    			throw new RuntimeException("PiWordsPipeline: stage failed", cause);
+    		}
+    		return (T) item;
+    	}
+    }
+
+    // Wraps the failure of a stage, so that it can pass through a Channel.
+    private static class Failure {
+    	final Throwable cause;
+
+    	Failure(Throwable cause) {
+    		this.cause = cause;
+    	}
+    }
+
+    /**
+     * The digits of the blocks taken from a Channel, as a DigitStream.
+     */
+    private static class ChannelDigitStream implements DigitStream {
+    	private final Channel<int[]> channel;
+    	private int[] block = new int[0];
+    	private int index = 0;
+    	private boolean ended = false;
+
+    	ChannelDigitStream(Channel<int[]> channel) {
+    		this.channel = channel;
+    	}
+
+    	public boolean hasNext() {
+    		while (!ended && (index == block.length)) {
+    			int[] next = channel.take();
+    			if (next == null) {
+    				ended = true;
+    			} else {
+    				block = next;
+    				index = 0;
+    			}
+    		}
+    		return !ended;
+    	}
+
+    	public int nextDigit() {
+    		if (!hasNext()) {
+    			throw new NoSuchElementException();
+    		}
+    		int digit = block[index];
+    		index = index + 1;
+    		return digit;
+    	}
+
+    	public int read(int[] buffer, int offset, int length) {
+    		if (length == 0) {
+    			return 0;
+    		}
+    		int read = 0;
+    		while ((read < length) && hasNext()) {
+    			int n = Math.min(block.length - index, length - read);
+    			System.arraycopy(block, index, buffer, offset + read, n);
+    			index = index + n;
+    			read = read + n;
+    		}
+    		return (read == 0) ? -1 : read;
+    	}
+    }
+}
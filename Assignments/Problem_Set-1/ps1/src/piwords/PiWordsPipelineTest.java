@@ -0,0 +1,38 @@
+package piwords;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class PiWordsPipelineTest {
+    private static final String[] WORDS = {"a", "ab", "pi", "the", "cat",
+    	"dog", "xyz", "zzz", "be", "on"};
+
+    // the pipeline finds the same words at the same indexes as the stages
+    // run one after another
+    @Test
+    public void agreesWithSequentialStagesTest() {
+    	// PiWordsPipeline.BLOCK_SIZE is smaller than the text, so words across
+    	// block boundaries are exercised too
+    	int precision = 3000;
+    	int[] hex = PiGenerator.computePiInHex(precision);
+    	int[] base26 = BaseTranslator.convertBase(hex, 16, 26, precision);
+    	String text = DigitsToStringConverter.convertDigitsToString(base26, 26,
+    			Main.BASIC_ALPHABET);
+    	Map<String, Integer> expected = WordFinder.getSubstrings(text, WORDS);
+    	
+    	assertEquals(expected, PiWordsPipeline.findWords(precision, 26, precision,
+    			Main.BASIC_ALPHABET, WORDS));
+    }
+    
+    @Test
+    public void invalidInputTest() {
+    	assertNull(PiWordsPipeline.findWords(0, 26, 10, Main.BASIC_ALPHABET, WORDS));
+    	assertNull(PiWordsPipeline.findWords(Integer.MAX_VALUE, 26, 10,
+    			Main.BASIC_ALPHABET, WORDS));
+    	assertNull(PiWordsPipeline.findWords(10, 25, 10, Main.BASIC_ALPHABET, WORDS));
+    	assertNull(PiWordsPipeline.findWords(10, 26, 0, Main.BASIC_ALPHABET, WORDS));
+    }
+}
@@ -0,0 +1,230 @@
+package piwords;
+
+import java.math.BigInteger;
+import java.util.NoSuchElementException;
+
+/**
+ * A StreamingBaseTranslator translates a stream of digits of a fraction in
+ * baseA into a stream of its digits in baseB, both most significant first.
+ * It yields the same precisionB digits as BaseTranslator.convertBase would
+ * on the whole input, but each output digit as soon as it is final, that is,
+ * as soon as no continuation of the input could change it. So a consumer can
+ * work on the first output digits while the input is still being produced.
+ *
+ * Output digits are made final in blocks of as many as fit in a long (13
+ * for base 26), so the per-block BigInteger work is shared by the block. The
+ * translator reads its input lazily, only when the next block is not final
+ * yet, and a digit of the input that is out of range is reported when it is
+ * read.
+ *
+ * A StreamingBaseTranslator is mutable and not safe for use by multiple
+ * threads.
+ */
+public class StreamingBaseTranslator implements DigitStream {
+    /*
+     * Abstraction function:
+     *     Let x in [0, 1) be the value of the input digits not read yet, as
+     *     a fraction, and let the denominator s be 2^tBits if baseA is a
+     *     power of two, and t otherwise. Then the output digits not emitted
+     *     yet are the digits of (q * x + r) / s in baseB, and once the input
+     *     is exhausted x = 0.
+     *
+     * Rep invariant:
+     *     q > 0, 0 <= r, q + r <= s (so the rest of the output is in [0, 1))
+     *     if baseA is a power of two, t is unused and the denominator is
+     *     2^tBits; otherwise tBits == 0
+     *     0 <= blockIndex <= blockLength <= block.length
+     *     0 <= delivered <= precisionB
+     *     delivered + (blockLength - blockIndex) <= precisionB
+     *
+     * Reading the input digits d of a chunk of k digits maps x to
+     * (d + x') / baseA^k; moving the m output digits e (as one number) into
+     * block maps the value v to baseB^m * v - e. Both keep the rest of the
+     * output in the form above.
+     */
+    private final DigitStream input;
+    private final int baseA;
+    private final long precisionB;
+    private final int baseB;
+    private final int[] chunk;
+    private final int[] block;
+    // log2(baseA) if baseA is a power of two, -1 otherwise
+    private final int bitsPerDigitA;
+
+    private BigInteger q = BigInteger.ONE;
+    private BigInteger r = BigInteger.ZERO;
+    private BigInteger t = BigInteger.ONE;
+    private long tBits = 0;
+    private boolean inputDone = false;
+    private int blockLength = 0;
+    private int blockIndex = 0;
+    private long delivered = 0;
+
+    /**
+     * Creates a translator of the digits of input from baseA into
+     * precisionB digits in baseB.
+     *
+     * @param input The digits to translate, in baseA.
+     * @param baseA The base that the input is expressed in.
+     * @param baseB The base to translate into.
+     * @param precisionB The number of digits the output should have.
+     * @throws IllegalArgumentException if baseA < 2, baseB < 2, or
+     *         precisionB < 1.
+     */
+    public StreamingBaseTranslator(DigitStream input, int baseA, int baseB,
+    		long precisionB) {
+    	if ((baseA < 2) || (baseB < 2) || (precisionB < 1)) {
+    		throw new IllegalArgumentException(
+    				"StreamingBaseTranslator: invalid bases or precision");
+    	}
+    	this.input = input;
+    	this.baseA = baseA;
+    	this.precisionB = precisionB;
+    	this.baseB = baseB;
+    	this.bitsPerDigitA = (Integer.bitCount(baseA) == 1) ?
+    			Integer.numberOfTrailingZeros(baseA) : -1;
+
+    	// as many digits per input chunk and output block as always fit in a
+    	// long
+    	this.chunk = new int[digitsPerLong(baseA)];
+    	this.block = new int[digitsPerLong(baseB)];
+    }
+
+    @Override
+    public boolean hasNext() {
+    	return delivered < precisionB;
+    }
+
+    /**
+     * Returns the next output digit, reading as much input as it takes to
+     * make it final, and advances past it.
+     *
+     * @return the next digit in baseB.
+     * @throws NoSuchElementException if all precisionB digits were returned.
+     * @throws IllegalArgumentException if an input digit read is < 0 or
+     *         >= baseA.
+     */
+    @Override
+    public int nextDigit() {
+    	if (!hasNext()) {
+    		throw new NoSuchElementException();
+    	}
+    	if (blockIndex == blockLength) {
+    		fillBlock();
+    	}
+    	int digit = block[blockIndex];
+    	blockIndex = blockIndex + 1;
+    	delivered = delivered + 1;
+    	return digit;
+    }
+
+    @Override
+    public int read(int[] buffer, int offset, int length) {
+    	if ((offset < 0) || (length < 0) || (offset > buffer.length - length)) {
+    		throw new IndexOutOfBoundsException();
+    	}
+    	if (length == 0) {
+    		return 0;
+    	}
+    	if (!hasNext()) {
+    		return -1;
+    	}
+    	int read = 0;
+    	while ((read < length) && hasNext()) {
+    		buffer[offset + read] = nextDigit();
+    		read = read + 1;
+    	}
+    	return read;
+    }
+
+    // Makes the next block of output digits final, reading as much input as
+    // that takes, and moves them into block. Requires the block to be used
+    // up and hasNext().
+    private void fillBlock() {
+    	int count = (int) Math.min(block.length, precisionB - delivered);
+    	BigInteger power = BigInteger.valueOf(baseB).pow(count);
+    	while (true) {
+    		// e = floor(baseB^count * r / s), the block for x = 0
+    		BigInteger scaled = r.multiply(power);
+    		BigInteger digits;
+    		BigInteger remainder;
+    		if (bitsPerDigitA >= 0) {
+    			digits = scaled.shiftRight((int) tBits);
+    			remainder = scaled.subtract(digits.shiftLeft((int) tBits));
+    		} else {
+    			BigInteger[] quotientAndRemainder = scaled.divideAndRemainder(t);
+    			digits = quotientAndRemainder[0];
+    			remainder = quotientAndRemainder[1];
+    		}
+    		// the block is the same for all x < 1 iff
+    		// baseB^count * (q + r) <= (e + 1) * s, i.e.
+    		// baseB^count * q + remainder <= s
+    		BigInteger nextQ = inputDone ? q : q.multiply(power);
+    		if (inputDone || isAtMostDenominator(nextQ.add(remainder))) {
+    			q = nextQ;
+    			r = remainder;
+    			long value = digits.longValue();
+    			for (int i = count - 1; i >= 0; i = i - 1) {
+    				block[i] = (int) (value % baseB);
+    				value = value / baseB;
+    			}
+    			blockLength = count;
+    			blockIndex = 0;
+    			return;
+    		}
+    		readChunk();
+    	}
+    }
+
+    // Reads the next chunk of input digits into the state, or marks the input
+    // as done if there are none.
+    private void readChunk() {
+    	int count = input.hasNext() ? input.read(chunk, 0, chunk.length) : -1;
+    	if (count <= 0) {
+    		inputDone = true;
+    		return;
+    	}
+    	long value = 0;
+    	for (int i = 0; i < count; i = i + 1) {
+    		if ((chunk[i] < 0) || (chunk[i] >= baseA)) {
+    			throw new IllegalArgumentException(
+    					"StreamingBaseTranslator: digit " + chunk[i] +
+    					" out of range for base " + baseA);
+    		}
+    		value = value * baseA + chunk[i];
+    	}
+    	// (q * x + r) / s with x = (value + x') / baseA^count
+    	BigInteger bigValue = BigInteger.valueOf(value);
+    	if (bitsPerDigitA >= 0) {
+    		int shift = bitsPerDigitA * count;
+    		r = r.shiftLeft(shift).add(q.multiply(bigValue));
+    		tBits = tBits + shift;
+    	} else {
+    		BigInteger scale = BigInteger.valueOf(baseA).pow(count);
+    		r = r.multiply(scale).add(q.multiply(bigValue));
+    		t = t.multiply(scale);
+    	}
+    }
+
+    // Returns the largest number of digits in base whose value always fits
+    // in a long.
+    private static int digitsPerLong(int base) {
+    	int d = 0;
+    	for (long power = 1; power <= Long.MAX_VALUE / base;
+    			power = power * base) {
+    		d = d + 1;
+    	}
+    	return d;
+    }
+
+    // Returns true iff x <= s, the denominator.
+    private boolean isAtMostDenominator(BigInteger x) {
+    	if (bitsPerDigitA < 0) {
+    		return x.compareTo(t) <= 0;
+    	}
+    	// x <= 2^tBits iff x < 2^tBits, or x is exactly 2^tBits
+    	int bitLength = x.bitLength();
+    	return (bitLength <= tBits) ||
+    			((bitLength == tBits + 1) && (x.getLowestSetBit() == tBits));
+    }
+}
@@ -0,0 +1,98 @@
+package piwords;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class StreamingBaseTranslatorTest {
+    @Test
+    public void basicStreamingTest() {
+        // Expect that .01 in base-2 is .25 in base-10
+        StreamingBaseTranslator translator = new StreamingBaseTranslator(
+        		new ArrayDigitStream(new int[]{0, 1}), 2, 10, 2);
+        int[] output = new int[3];
+        assertEquals(2, translator.read(output, 0, 3));
+        assertArrayEquals(new int[]{2, 5, 0}, output);
+        assertFalse(translator.hasNext());
+    }
+    
+    // the streaming translation agrees with convertBase, for bases that are
+    // and are not powers of two, and more or fewer output than input digits
+    @Test
+    public void agreesWithConvertBaseTest() {
+    	Random random = new Random(6005);
+    	int[][] bases = {{2, 10}, {16, 26}, {16, 100}, {10, 16}, {3, 7}, {100, 2}};
+    	int[] lengths = {0, 1, 20, 300};
+    	for (int[] base : bases) {
+    		for (int length : lengths) {
+    			int[] input = new int[length];
+    			for (int i = 0; i < length; i = i + 1) {
+    				input[i] = random.nextInt(base[0]);
+    			}
+    			int precision = 1 + random.nextInt(400);
+    			StreamingBaseTranslator translator = new StreamingBaseTranslator(
+    					new ArrayDigitStream(input), base[0], base[1], precision);
+    			int[] output = new int[precision];
+    			for (int i = 0; i < precision; i = i + 1) {
+    				output[i] = translator.nextDigit();
+    			}
+    			assertFalse(translator.hasNext());
+    			assertArrayEquals(BaseTranslator.convertBase(input, base[0], base[1], precision),
+    					output);
+    		}
+    	}
+    }
+    
+    // output digits are final, and so emitted, long before the input ends
+    @Test
+    public void emitsEarlyTest() {
+    	PiDigitStream pi = new PiDigitStream(0, 1000);
+    	StreamingBaseTranslator translator = new StreamingBaseTranslator(pi, 16, 10, 10);
+    	// pi = 3.1415926535...
+    	int[] expected = {1, 4, 1, 5, 9, 2, 6, 5, 3, 5};
+    	for (int i = 0; i < expected.length; i = i + 1) {
+    		assertEquals(expected[i], translator.nextDigit());
+    	}
+    	assertTrue(pi.position() < 100);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void invalidDigitTest() {
+    	new StreamingBaseTranslator(new ArrayDigitStream(new int[]{1, 16}),
+    			16, 10, 5).nextDigit();
+    }
+    
+    // A DigitStream over the digits of an array.
+    private static class ArrayDigitStream implements DigitStream {
+    	private final int[] digits;
+    	private int index = 0;
+    	
+    	ArrayDigitStream(int[] digits) {
+    		this.digits = digits;
+    	}
+    	
+    	public boolean hasNext() {
+    		return index < digits.length;
+    	}
+    	
+    	public int nextDigit() {
+    		index = index + 1;
+    		return digits[index - 1];
+    	}
+    	
+    	public int read(int[] buffer, int offset, int length) {
+    		if (length == 0) {
+    			return 0;
+    		}
+    		int n = Math.min(length, digits.length - index);
+    		if (n == 0) {
+    			return -1;
+    		}
+    		System.arraycopy(digits, index, buffer, offset, n);
+    		index = index + n;
+    		return n;
+    	}
+    }
+}
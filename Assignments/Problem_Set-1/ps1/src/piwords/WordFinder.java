@@ -11,6 +11,10 @@ public class WordFinder {
      * value for each key is the lowest index of haystack at which that needle
      * was found. A needle that was not found in the haystack should not be
      * returned in the output map.
+     *
+     * The needles are compiled into a WordMatcher, which finds all of them in
+     * a single pass over the haystack. To search several haystacks for the
+     * same needles, build the WordMatcher once and reuse it.
      * 
      * @param haystack The string to search into.
      * @param needles The array of strings to search for. This array is not
@@ -19,15 +23,125 @@ public class WordFinder {
      */
     public static Map<String, Integer> getSubstrings(String haystack,
                                                      String[] needles) {
-    	Map<String, Integer> needlesHaystackMap = new HashMap<String, Integer>();
-    	int needlesLength = needles.length;
-    	int needleMatchIndex = 0;
-    	for (int i = 0; i < needlesLength; i = i + 1) {
-    		needleMatchIndex = haystack.indexOf(needles[i]);
-    		if (needleMatchIndex != -1) {
-    			needlesHaystackMap.put(needles[i], needleMatchIndex);
+    	return new WordMatcher(needles).getSubstrings(haystack);
+    }
+
+    /**
+     * Same as getSubstrings(haystack, dictionary.words()), but with the
+     * automaton of the dictionary already built.
+     *
+     * @param haystack The string to search into.
+     * @param dictionary The compiled words to search for.
+     * @return The list of words of dictionary that were found in the
+     *         haystack.
+     */
+    public static Map<String, Integer> getSubstrings(String haystack,
+                                                     CompiledDictionary dictionary) {
+    	return dictionary.getSubstrings(haystack);
+    }
+
+    /**
+     * Same as getSubstrings(haystack, needles), but scans the haystack in
+     * chunks on all available processors.
+     *
+     * @param haystack The string to search into.
+     * @param needles The array of strings to search for. This array is not
+     *                mutated.
+     * @return The list of needles that were found in the haystack.
+     */
+    public static Map<String, Integer> getSubstringsParallel(String haystack,
+                                                             String[] needles) {
+    	return new WordMatcher(needles).getSubstringsParallel(haystack);
+    }
+
+    /**
+     * Same as getSubstrings(haystack, dictionary), but scans the haystack in
+     * chunks on all available processors.
+     *
+     * @param haystack The string to search into.
+     * @param dictionary The compiled words to search for.
+     * @return The list of words of dictionary that were found in the
+     *         haystack.
+     */
+    public static Map<String, Integer> getSubstringsParallel(String haystack,
+                                                             CompiledDictionary dictionary) {
+    	return dictionary.matcher().getSubstringsParallel(haystack);
+    }
+
+    /**
+     * Given a String (the haystack) and an array of Strings (the needles),
+     * return a Map<String, Integer> from each needle found in haystack to
+     * the number of times it occurs there, overlapping occurrences included.
+     * A needle that was not found in the haystack is not in the output map.
+     *
+     * The haystack is scanned once, and only one int per needle is kept
+     * while scanning, however many occurrences there are.
+     *
+     * @param haystack The string to search into.
+     * @param needles The array of strings to search for. This array is not
+     *                mutated.
+     * @return The number of occurrences of each needle found.
+     */
+    public static Map<String, Integer> getSubstringCounts(String haystack,
+                                                          String[] needles) {
+    	return counts(new WordMatcher(needles), haystack);
+    }
+
+    /**
+     * Same as getSubstringCounts(haystack, dictionary.words()), but with the
+     * automaton of the dictionary already built.
+     *
+     * @param haystack The string to search into.
+     * @param dictionary The compiled words to search for.
+     * @return The number of occurrences of each word of dictionary found.
+     */
+    public static Map<String, Integer> getSubstringCounts(String haystack,
+                                                          CompiledDictionary dictionary) {
+    	return counts(dictionary.matcher(), haystack);
+    }
+
+    /**
+     * Given a String (the haystack) and an array of Strings (the needles),
+     * return every index of haystack at which each needle occurs,
+     * overlapping occurrences included, in a single pass over the haystack.
+     * The indexes are kept in a compact form, one int per occurrence (see
+     * WordOccurrences); its words are the distinct needles, in order of
+     * first appearance.
+     *
+     * @param haystack The string to search into.
+     * @param needles The array of strings to search for. This array is not
+     *                mutated.
+     * @return The occurrences of all needles.
+     */
+    public static WordOccurrences getAllSubstrings(String haystack,
+                                                   String[] needles) {
+    	return new WordMatcher(needles).findAll(haystack);
+    }
+
+    /**
+     * Same as getAllSubstrings(haystack, dictionary.words()), but with the
+     * automaton of the dictionary already built.
+     *
+     * @param haystack The string to search into.
+     * @param dictionary The compiled words to search for.
+     * @return The occurrences of all words of dictionary.
+     */
+    public static WordOccurrences getAllSubstrings(String haystack,
+                                                   CompiledDictionary dictionary) {
+    	return dictionary.findAll(haystack);
+    }
+
+    // Returns the map from each word of matcher that occurs in haystack to
+    // its number of occurrences.
+    private static Map<String, Integer> counts(WordMatcher matcher,
+    		String haystack) {
+    	int[] counts = matcher.countOccurrences(haystack);
+    	Map<String, Integer> result = new HashMap<String, Integer>();
+    	for (int w = 0; w < counts.length; w = w + 1) {
+    		if (counts[w] > 0) {
+    			result.put(matcher.word(w), counts[w]);
     		}
     	}
-        return needlesHaystackMap;
+    	return result;
     }
 }
@@ -246,4 +246,49 @@ public class WordFinderTest {
     	assertEquals(expectedOutput, WordFinder.getSubstrings(haystack,
                 needles));
     }
+
+    @Test
+    public void getSubstringCountsTest() {
+        String haystack = "abababa";
+        String[] needles = {"aba", "b", "ba", "c", "aba"};
+
+        Map<String, Integer> expectedOutput = new HashMap<String, Integer>();
+        expectedOutput.put("aba", 3);
+        expectedOutput.put("b", 3);
+        expectedOutput.put("ba", 3);
+        assertEquals(expectedOutput, WordFinder.getSubstringCounts(haystack,
+                needles));
+        assertEquals(expectedOutput, WordFinder.getSubstringCounts(haystack,
+                new CompiledDictionary(needles)));
+    }
+
+    @Test
+    public void getAllSubstringsTest() {
+        String haystack = "abababa";
+        String[] needles = {"aba", "c", ""};
+
+        WordOccurrences all = WordFinder.getAllSubstrings(haystack, needles);
+        assertEquals(3, all.wordCount());
+        assertEquals("aba", all.word(0));
+        assertArrayEquals(new int[] {0, 2, 4}, all.offsets(0));
+        assertEquals(0, all.count(1));
+        // the empty needle occurs at every index, the end included
+        assertEquals(8, all.count(2));
+        assertEquals(7, all.offset(2, 7));
+        assertEquals(11, all.totalCount());
+
+        Map<String, Integer> expectedCounts = new HashMap<String, Integer>();
+        expectedCounts.put("aba", 3);
+        expectedCounts.put("", 8);
+        assertEquals(expectedCounts, all.counts());
+        assertEquals(expectedCounts, WordFinder.getSubstringCounts(haystack,
+                needles));
+        assertEquals(expectedCounts, WordFinder.getAllSubstrings(haystack,
+                new CompiledDictionary(needles)).counts());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void occurrenceOutOfRangeTest() {
+        WordFinder.getAllSubstrings("abc", new String[] {"b"}).offset(0, 1);
+    }
 }
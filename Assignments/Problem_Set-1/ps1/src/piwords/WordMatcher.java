@@ -0,0 +1,633 @@
+package piwords;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A WordMatcher is an Aho-Corasick automaton over a fixed set of words. It is
+ * built once per set of words, and then finds the lowest index of every word
+ * in a text in a single pass over the text, whatever the number of words. It
+ * can also count, or list, every occurrence of every word in one pass.
+ *
+ * The automaton is stored as arrays indexed by state: a dense transition
+ * table over the characters that occur in the words (failure transitions
+ * already folded in, so every character of the text costs one array lookup),
+ * the word that ends at each state, and a link from each state to the
+ * nearest state of a proper suffix at which a word ends.
+ *
+ * A WordMatcher is immutable and safe for use by multiple threads; each
+ * search keeps its own state in a Search.
+ */
+public class WordMatcher {
+    /**
+     * The number of starting positions of the haystack that a parallel search
+     * scans on one thread.
+     */
+    static final int PARALLEL_LEAF_CHARS = 1 << 16;
+
+    /*
+     * Rep invariant:
+     *     states >= 1; state 0 is the root (the empty prefix)
+     *     transitions.length >= states * symbols, and for every state s and
+     *     symbol c, transitions[s * symbols + c] is the state of the longest
+     *     suffix of (prefix(s) + c) that is a prefix of a word
+     *     symbolOfChar[ch] is the symbol of ch, or -1 if ch occurs in no word
+     *     wordAt[s] is the index in words of prefix(s), or -1 if it is none
+     *     outputLink[s] is the state of the longest proper suffix of
+     *     prefix(s) that is a word, or -1 if there is none
+     *     words has no duplicates
+     */
+    private final String[] words;
+    private final int[] symbolOfChar;
+    private final int symbols;
+    private final int states;
+    private final int[] transitions;
+    private final int[] wordAt;
+    private final int[] outputLink;
+
+    /**
+     * Builds the automaton for the given words. Words that occur more than
+     * once are only matched once.
+     *
+     * @param words The words to search for. This array is not mutated.
+     * @throws IllegalArgumentException if a word is null.
+     */
+    public WordMatcher(String[] words) {
+    	// distinct words, in order of first appearance
+    	Map<String, Integer> index = new HashMap<String, Integer>();
+    	int maxChar = -1;
+    	int totalLength = 0;
+    	for (String word : words) {
+    		if (word == null) {
+    			throw new IllegalArgumentException("WordMatcher: null word");
+    		}
+    		if (!index.containsKey(word)) {
+    			index.put(word, index.size());
+    			totalLength = totalLength + word.length();
+    			for (int i = 0; i < word.length(); i = i + 1) {
+    				maxChar = Math.max(maxChar, word.charAt(i));
+    			}
+    		}
+    	}
+    	this.words = new String[index.size()];
+    	for (Map.Entry<String, Integer> entry : index.entrySet()) {
+    		this.words[entry.getValue()] = entry.getKey();
+    	}
+
+    	// compact the characters of the words into symbols 0 .. symbols - 1
+    	this.symbolOfChar = new int[maxChar + 1];
+    	Arrays.fill(symbolOfChar, -1);
+    	int symbolCount = 0;
+    	for (String word : this.words) {
+    		for (int i = 0; i < word.length(); i = i + 1) {
+    			if (symbolOfChar[word.charAt(i)] == -1) {
+    				symbolOfChar[word.charAt(i)] = symbolCount;
+    				symbolCount = symbolCount + 1;
+    			}
+    		}
+    	}
+    	this.symbols = symbolCount;
+
+    	// The trie. A transition to 0 means "no child", since the root is
+    	// nobody's child. There are at most totalLength + 1 states.
+    	int maxStates = totalLength + 1;
+    	int[] next = new int[maxStates * symbols];
+    	int[] word = new int[maxStates];
+    	Arrays.fill(word, -1);
+    	int count = 1;
+    	for (int w = 0; w < this.words.length; w = w + 1) {
+    		int state = 0;
+    		String s = this.words[w];
+    		for (int i = 0; i < s.length(); i = i + 1) {
+    			int slot = state * symbols + symbolOfChar[s.charAt(i)];
+    			if (next[slot] == 0) {
+    				next[slot] = count;
+    				count = count + 1;
+    			}
+    			state = next[slot];
+    		}
+    		word[state] = w;
+    	}
+    	this.states = count;
+    	this.transitions = next;
+    	this.wordAt = word;
+
+    	// Failure links, in breadth-first order so that the row of a state's
+    	// failure state is complete before the state itself is handled. A
+    	// missing child is replaced by the failure state's transition.
+    	int[] failure = new int[states];
+    	int[] link = new int[states];
+    	int[] queue = new int[states];
+    	link[0] = -1;
+    	int head = 0;
+    	int tail = 0;
+    	for (int c = 0; c < symbols; c = c + 1) {
+    		int child = next[c];
+    		if (child != 0) {
+    			failure[child] = 0;
+    			link[child] = (word[0] != -1) ? 0 : -1;
+    			queue[tail] = child;
+    			tail = tail + 1;
+    		}
+    	}
+    	while (head < tail) {
+    		int state = queue[head];
+    		head = head + 1;
+    		int row = state * symbols;
+    		int failureRow = failure[state] * symbols;
+    		for (int c = 0; c < symbols; c = c + 1) {
+    			int child = next[row + c];
+    			if (child == 0) {
+    				next[row + c] = next[failureRow + c];
+    			} else {
+    				int f = next[failureRow + c];
+    				failure[child] = f;
+    				link[child] = (word[f] != -1) ? f : link[f];
+    				queue[tail] = child;
+    				tail = tail + 1;
+    			}
+    		}
+    	}
+    	this.outputLink = link;
+    }
+
+    // Creates the matcher with the given rep, which must satisfy the rep
+    // invariant.
+    private WordMatcher(String[] words, int[] symbolOfChar, int symbols,
+    		int states, int[] transitions, int[] wordAt, int[] outputLink) {
+    	this.words = words;
+    	this.symbolOfChar = symbolOfChar;
+    	this.symbols = symbols;
+    	this.states = states;
+    	this.transitions = transitions;
+    	this.wordAt = wordAt;
+    	this.outputLink = outputLink;
+    }
+
+    /**
+     * @return the number of distinct words of this matcher.
+     */
+    public int wordCount() {
+    	return words.length;
+    }
+
+    /**
+     * @return the number of states of the automaton, including the root.
+     */
+    public int stateCount() {
+    	return states;
+    }
+
+    /**
+     * @param index The index of a word, between 0 and wordCount() - 1.
+     * @return the distinct word with that index. Words are numbered in the
+     *         order of their first appearance in the array they were built
+     *         from.
+     */
+    public String word(int index) {
+    	return words[index];
+    }
+
+    /**
+     * @return the length of the longest word, or 0 if there are no words.
+     */
+    public int maxLength() {
+    	int maxLength = 0;
+    	for (String word : words) {
+    		maxLength = Math.max(maxLength, word.length());
+    	}
+    	return maxLength;
+    }
+
+    // The automaton itself, for callers in this package that run it over a
+    // text of symbols rather than chars.
+
+    /**
+     * @return the number of distinct characters in the words.
+     */
+    int symbolCount() {
+    	return symbols;
+    }
+
+    /**
+     * @return the symbol of ch, between 0 and symbolCount() - 1, or -1 if ch
+     *         occurs in no word.
+     */
+    int symbolOf(char ch) {
+    	return (ch < symbolOfChar.length) ? symbolOfChar[ch] : -1;
+    }
+
+    /**
+     * @return the state after reading symbol in state; symbol -1 (a
+     *         character that occurs in no word) leads back to the root, 0.
+     */
+    int next(int state, int symbol) {
+    	return (symbol < 0) ? 0 : transitions[state * symbols + symbol];
+    }
+
+    /**
+     * @return the first state on the chain of states whose words end at
+     *         state (state itself, or its output link), or -1 if no word
+     *         ends at state. The chain continues with outputLink(u).
+     */
+    int output(int state) {
+    	return (wordAt[state] != -1) ? state : outputLink[state];
+    }
+
+    /**
+     * @return the next state on a chain of output states after u, or -1.
+     */
+    int outputLink(int u) {
+    	return outputLink[u];
+    }
+
+    /**
+     * @return the index of the word that ends at output state u.
+     */
+    int wordOf(int u) {
+    	return wordAt[u];
+    }
+
+    /**
+     * @return the number of bytes that write(buffer) puts into buffer.
+     */
+    long serializedSize() {
+    	long chars = 0;
+    	for (String word : words) {
+    		chars = chars + word.length();
+    	}
+    	long ints = 4 + words.length + symbolOfChar.length +
+    			(long) states * symbols + 2L * states;
+    	return 4 * ints + 2 * chars;
+    }
+
+    /**
+     * Writes the automaton into buffer, starting at its position, in the
+     * format that read(ByteBuffer) reads, in the byte order of buffer.
+     *
+     * Requires buffer.remaining() >= serializedSize().
+     */
+    void write(ByteBuffer buffer) {
+    	buffer.putInt(words.length);
+    	for (String word : words) {
+    		buffer.putInt(word.length());
+    	}
+    	for (String word : words) {
+    		for (int i = 0; i < word.length(); i = i + 1) {
+    			buffer.putChar(word.charAt(i));
+    		}
+    	}
+    	buffer.putInt(symbolOfChar.length);
+    	putInts(buffer, symbolOfChar, symbolOfChar.length);
+    	buffer.putInt(symbols);
+    	buffer.putInt(states);
+    	putInts(buffer, transitions, states * symbols);
+    	putInts(buffer, wordAt, states);
+    	putInts(buffer, outputLink, states);
+    }
+
+    /**
+     * Reads an automaton that write(ByteBuffer) wrote, starting at the
+     * position of buffer, and advances the position past it. The tables are
+     * copied out of buffer in bulk and checked for consistency, so a corrupt
+     * buffer cannot make a search fail later.
+     *
+     * @throws IOException if buffer does not hold a valid automaton.
+     */
+    static WordMatcher read(ByteBuffer buffer) throws IOException {
+    	try {
+    		int wordCount = checkedLength(buffer.getInt(), buffer.remaining() / 4);
+    		int[] lengths = getInts(buffer, wordCount);
+    		String[] words = new String[wordCount];
+    		char[] chars = new char[0];
+    		for (int w = 0; w < wordCount; w = w + 1) {
+    			int length = checkedLength(lengths[w], buffer.remaining() / 2);
+    			if (chars.length < length) {
+    				chars = new char[length];
+    			}
+    			buffer.asCharBuffer().get(chars, 0, length);
+    			buffer.position(buffer.position() + 2 * length);
+    			words[w] = new String(chars, 0, length);
+    		}
+    		int[] symbolOfChar = getInts(buffer,
+    				checkedLength(buffer.getInt(), Character.MAX_VALUE + 1));
+    		int symbols = buffer.getInt();
+    		int states = buffer.getInt();
+    		if ((symbols < 0) || (states < 1) ||
+    				((long) states * symbols > buffer.remaining() / 4)) {
+    			throw new IOException("WordMatcher: invalid table sizes");
+    		}
+    		int[] transitions = getInts(buffer, states * symbols);
+    		int[] wordAt = getInts(buffer, states);
+    		int[] outputLink = getInts(buffer, states);
+
+    		checkRange(symbolOfChar, -1, symbols);
+    		checkRange(transitions, 0, states);
+    		checkRange(wordAt, -1, wordCount);
+    		checkRange(outputLink, -1, states);
+    		return new WordMatcher(words, symbolOfChar, symbols, states,
+    				transitions, wordAt, outputLink);
+    	} catch (BufferUnderflowException e) {
+    		throw new IOException("WordMatcher: truncated automaton", e);
+    	}
+    }
+
+    // Puts the first count elements of values into buffer.
+    private static void putInts(ByteBuffer buffer, int[] values, int count) {
+    	buffer.asIntBuffer().put(values, 0, count);
+    	buffer.position(buffer.position() + 4 * count);
+    }
+
+    // Gets the next count ints of buffer in bulk.
+    private static int[] getInts(ByteBuffer buffer, int count) {
+    	if (count > buffer.remaining() / 4) {
+    		throw new BufferUnderflowException();
+    	}
+    	int[] values = new int[count];
+    	IntBuffer ints = buffer.asIntBuffer();
+    	ints.get(values);
+    	buffer.position(buffer.position() + 4 * count);
+    	return values;
+    }
+
+    // Returns length if 0 <= length <= max, and throws IOException otherwise.
+    private static int checkedLength(int length, int max) throws IOException {
+    	if ((length < 0) || (length > max)) {
+    		throw new IOException("WordMatcher: invalid length " + length);
+    	}
+    	return length;
+    }
+
+    // Throws IOException unless min <= values[i] < max for every i.
+    private static void checkRange(int[] values, int min, int max)
+    		throws IOException {
+    	for (int i = 0; i < values.length; i = i + 1) {
+    		if ((values[i] < min) || (values[i] >= max)) {
+    			throw new IOException("WordMatcher: corrupt table entry " +
+    					values[i]);
+    		}
+    	}
+    }
+
+    /**
+     * Returns the same map as WordFinder.getSubstrings(haystack, words) for
+     * the words of this matcher: each word found in haystack, mapped to the
+     * lowest index at which it was found.
+     *
+     * @param haystack The text to search.
+     * @return A map from each word found to its lowest index in haystack.
+     */
+    public Map<String, Integer> getSubstrings(CharSequence haystack) {
+    	Search search = search();
+    	search.feed(haystack);
+    	return search.result();
+    }
+
+    /**
+     * Returns the same map as getSubstrings(haystack), but splits haystack
+     * into chunks that are scanned on all available processors.
+     *
+     * Each chunk is responsible for the matches that start in it, and is
+     * scanned up to (longest word - 1) characters past its end so that those
+     * matches are complete. Merging keeps the lowest index of each word
+     * among the chunks, so the result is exactly the sequential one.
+     *
+     * @param haystack The text to search.
+     * @return A map from each word found to its lowest index in haystack.
+     */
+    public Map<String, Integer> getSubstringsParallel(CharSequence haystack) {
+    	int[] first = ParallelPool.POOL.invoke(
+    			new ChunkTask(haystack, 0, haystack.length(), maxLength()));
+    	return result(first);
+    }
+
+    // Returns the map from each word w with first[w] != -1 to first[w].
+    private Map<String, Integer> result(int[] first) {
+    	Map<String, Integer> result = new HashMap<String, Integer>();
+    	for (int w = 0; w < first.length; w = w + 1) {
+    		if (first[w] != -1) {
+    			result.put(words[w], first[w]);
+    		}
+    	}
+    	return result;
+    }
+
+    /**
+     * Counts every occurrence of each word in haystack, overlapping ones
+     * included, in a single pass. The empty word occurs at every index from
+     * 0 to haystack.length().
+     *
+     * @param haystack The text to search.
+     * @return An array that holds at index w the number of occurrences of
+     *         word(w) in haystack.
+     */
+    public int[] countOccurrences(CharSequence haystack) {
+    	int[] counts = new int[words.length];
+    	if (wordAt[0] != -1) {
+    		counts[wordAt[0]] = haystack.length() + 1;
+    	}
+    	int s = 0;
+    	for (int i = 0; i < haystack.length(); i = i + 1) {
+    		char ch = haystack.charAt(i);
+    		int symbol = (ch < symbolOfChar.length) ? symbolOfChar[ch] : -1;
+    		s = (symbol < 0) ? 0 : transitions[s * symbols + symbol];
+    		for (int u = output(s); u > 0; u = outputLink[u]) {
+    			counts[wordAt[u]] = counts[wordAt[u]] + 1;
+    		}
+    	}
+    	return counts;
+    }
+
+    /**
+     * Finds every occurrence of each word in haystack, overlapping ones
+     * included, in a single pass. The empty word occurs at every index from
+     * 0 to haystack.length().
+     *
+     * @param haystack The text to search.
+     * @return The indexes of the occurrences of every word in haystack.
+     */
+    public WordOccurrences findAll(CharSequence haystack) {
+    	// the matches in order of their end, grouped by word afterwards
+    	int[] matchWords = new int[16];
+    	int[] matchOffsets = new int[16];
+    	int matches = 0;
+    	int s = 0;
+    	for (int i = 0; i < haystack.length(); i = i + 1) {
+    		char ch = haystack.charAt(i);
+    		int symbol = (ch < symbolOfChar.length) ? symbolOfChar[ch] : -1;
+    		s = (symbol < 0) ? 0 : transitions[s * symbols + symbol];
+    		for (int u = output(s); u > 0; u = outputLink[u]) {
+    			if (matches == matchWords.length) {
+    				matchWords = Arrays.copyOf(matchWords, 2 * matches);
+    				matchOffsets = Arrays.copyOf(matchOffsets, 2 * matches);
+    			}
+    			matchWords[matches] = wordAt[u];
+    			matchOffsets[matches] = i - words[wordAt[u]].length() + 1;
+    			matches = matches + 1;
+    		}
+    	}
+    	if (wordAt[0] != -1) {
+    		int total = matches + haystack.length() + 1;
+    		matchWords = Arrays.copyOf(matchWords, total);
+    		matchOffsets = Arrays.copyOf(matchOffsets, total);
+    		for (int i = 0; i <= haystack.length(); i = i + 1) {
+    			matchWords[matches] = wordAt[0];
+    			matchOffsets[matches] = i;
+    			matches = matches + 1;
+    		}
+    	}
+    	return new WordOccurrences(this, matchWords, matchOffsets, matches);
+    }
+
+    /**
+     * Finds the lowest index of each word among the matches in haystack that
+     * start at an index in [from, to), as an array indexed by word, with -1
+     * for a word that has none.
+     */
+    private class ChunkTask extends RecursiveTask<int[]> {
+    	private static final long serialVersionUID = 1L;
+
+    	private final CharSequence haystack;
+    	private final int from;
+    	private final int to;
+    	private final int maxLength;
+
+    	ChunkTask(CharSequence haystack, int from, int to, int maxLength) {
+    		this.haystack = haystack;
+    		this.from = from;
+    		this.to = to;
+    		this.maxLength = maxLength;
+    	}
+
+    	@Override
+    	protected int[] compute() {
+    		if (to - from <= PARALLEL_LEAF_CHARS) {
+    			Search search = new Search(from, to);
+    			int end = (int) Math.min(haystack.length(),
+    					(long) to + Math.max(0, maxLength - 1));
+    			search.feed(haystack, from, end);
+    			return search.first;
+    		}
+    		int middle = from + (to - from) / 2;
+    		ChunkTask right = new ChunkTask(haystack, middle, to, maxLength);
+    		right.fork();
+    		int[] first = new ChunkTask(haystack, from, middle, maxLength)
+    				.compute();
+    		int[] rightFirst = right.join();
+    		// the left chunk's matches all come before the right chunk's
+    		for (int w = 0; w < first.length; w = w + 1) {
+    			if (first[w] == -1) {
+    				first[w] = rightFirst[w];
+    			}
+    		}
+    		return first;
+    	}
+    }
+
+    /**
+     * @return a new search over a text that is given to it in pieces.
+     */
+    public Search search() {
+    	return new Search();
+    }
+
+    /**
+     * A search of a text for the words of a WordMatcher, which is fed the
+     * text in consecutive pieces. Words that span two pieces are found just
+     * like words within a piece.
+     *
+     * A Search is mutable and not safe for use by multiple threads.
+     */
+    public class Search {
+    	/*
+    	 * Rep invariant:
+    	 *     0 <= state < states; state is the automaton state after reading
+    	 *     the first offset characters of the text
+    	 *     first[w] is the lowest index of words[w] in those characters
+    	 *     that is less than startLimit, or -1 if there is none
+    	 *     found is the number of w with first[w] != -1
+    	 *     if first[wordAt[s]] != -1, then so is first[wordAt[u]] for
+    	 *     every u on the outputLink chain of s whose match at the same
+    	 *     end starts before startLimit
+    	 */
+    	private final int[] first = new int[words.length];
+    	private final long startLimit;
+    	private int state = 0;
+    	private int offset;
+    	private int found = 0;
+
+    	private Search() {
+    		this(0, Long.MAX_VALUE);
+    	}
+
+    	// A search of a text that begins at index offset of the whole text,
+    	// for matches that start before startLimit.
+    	private Search(int offset, long startLimit) {
+    		this.offset = offset;
+    		this.startLimit = startLimit;
+    		Arrays.fill(first, -1);
+    		if (wordAt[0] != -1) {
+    			// the empty word occurs at index 0 of any text
+    			first[wordAt[0]] = 0;
+    			found = 1;
+    		}
+    	}
+
+    	/**
+    	 * Searches the next piece of the text.
+    	 *
+    	 * @param text The characters that follow the pieces fed so far.
+    	 */
+    	public void feed(CharSequence text) {
+    		feed(text, 0, text.length());
+    	}
+
+    	// Searches text[from .. to - 1] as the next piece of the text.
+    	private void feed(CharSequence text, int from, int to) {
+    		int s = state;
+    		int base = offset - from;
+    		for (int i = from; (i < to) && (found < first.length); i = i + 1) {
+    			char ch = text.charAt(i);
+    			int symbol = (ch < symbolOfChar.length) ? symbolOfChar[ch] : -1;
+    			s = (symbol < 0) ? 0 : transitions[s * symbols + symbol];
+    			int u = (wordAt[s] != -1) ? s : outputLink[s];
+    			// Stops at the first word found before: the words on its chain
+    			// were all found at the same time, or start too late. Words
+    			// further down a chain are shorter, so start later.
+    			while ((u > 0) && (first[wordAt[u]] == -1)) {
+    				int start = base + i - words[wordAt[u]].length() + 1;
+    				if (start >= startLimit) {
+    					break;
+    				}
+    				first[wordAt[u]] = start;
+    				found = found + 1;
+    				u = outputLink[u];
+    			}
+    		}
+    		state = s;
+    		offset = offset + (to - from);
+    	}
+
+    	/**
+    	 * @return true if every word was found in the text fed so far, so
+    	 *         that feeding more of it cannot change the result.
+    	 */
+    	public boolean isComplete() {
+    		return found == first.length;
+    	}
+
+    	/**
+    	 * @return A map from each word found in the text fed so far to the
+    	 *         lowest index at which it was found.
+    	 */
+    	public Map<String, Integer> result() {
+    		return WordMatcher.this.result(first);
+    	}
+    }
+}
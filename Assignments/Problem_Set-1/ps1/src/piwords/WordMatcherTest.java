@@ -0,0 +1,185 @@
+package piwords;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class WordMatcherTest {
+    // The lowest index of each needle in haystack, by String.indexOf.
+    private static Map<String, Integer> indexOfSubstrings(String haystack,
+    		String[] needles) {
+    	Map<String, Integer> result = new HashMap<String, Integer>();
+    	for (String needle : needles) {
+    		int index = haystack.indexOf(needle);
+    		if (index != -1) {
+    			result.put(needle, index);
+    		}
+    	}
+    	return result;
+    }
+
+    @Test
+    public void basicWordMatcherTest() {
+        // overlapping words, and words that are suffixes of other words
+        String[] words = {"he", "she", "his", "hers", "e"};
+        Map<String, Integer> expected = new HashMap<String, Integer>();
+        expected.put("he", 2);
+        expected.put("she", 1);
+        expected.put("hers", 2);
+        expected.put("e", 3);
+
+        WordMatcher matcher = new WordMatcher(words);
+        assertEquals(5, matcher.wordCount());
+        assertEquals(expected, matcher.getSubstrings("ushers"));
+    }
+
+    @Test
+    public void duplicateAndEmptyWordsTest() {
+        String[] words = {"ab", "", "ab", "zz"};
+        Map<String, Integer> expected = new HashMap<String, Integer>();
+        expected.put("ab", 1);
+        expected.put("", 0);
+
+        WordMatcher matcher = new WordMatcher(words);
+        assertEquals(3, matcher.wordCount());
+        assertEquals(expected, matcher.getSubstrings("xab"));
+        assertEquals(indexOfSubstrings("", words), matcher.getSubstrings(""));
+    }
+
+    @Test
+    public void compactStatesTest() {
+        // shared prefixes share states: root, a, ab, abc, abd, b
+        String[] words = {"abc", "abd", "ab", "b"};
+        assertEquals(6, new WordMatcher(words).stateCount());
+    }
+
+    @Test
+    public void agreesWithIndexOfTest() {
+        Random random = new Random(8);
+        for (int trial = 0; trial < 200; trial = trial + 1) {
+            // a small alphabet, so that words overlap often
+            String[] words = new String[1 + random.nextInt(30)];
+            for (int i = 0; i < words.length; i = i + 1) {
+                words[i] = randomString(random, 1 + random.nextInt(5), 3);
+            }
+            String haystack = randomString(random, random.nextInt(300), 4);
+
+            assertEquals(indexOfSubstrings(haystack, words),
+                         new WordMatcher(words).getSubstrings(haystack));
+        }
+    }
+
+    @Test
+    public void searchInPiecesTest() {
+        Random random = new Random(9);
+        String[] words = new String[50];
+        for (int i = 0; i < words.length; i = i + 1) {
+            words[i] = randomString(random, 1 + random.nextInt(6), 4);
+        }
+        String haystack = randomString(random, 2000, 4);
+        WordMatcher matcher = new WordMatcher(words);
+
+        WordMatcher.Search search = matcher.search();
+        int fed = 0;
+        while (fed < haystack.length()) {
+            int end = Math.min(haystack.length(), fed + random.nextInt(7));
+            search.feed(haystack.substring(fed, end));
+            fed = end;
+        }
+        assertEquals(indexOfSubstrings(haystack, words), search.result());
+    }
+
+    @Test
+    public void parallelAgreesWithSequentialTest() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 20; trial = trial + 1) {
+            String[] words = new String[1 + random.nextInt(200)];
+            for (int i = 0; i < words.length; i = i + 1) {
+                words[i] = randomString(random, 1 + random.nextInt(9), 4);
+            }
+            // several chunks, so that matches straddle chunk boundaries
+            int length = random.nextInt(5 * WordMatcher.PARALLEL_LEAF_CHARS);
+            String haystack = randomString(random, length, 6);
+            WordMatcher matcher = new WordMatcher(words);
+
+            assertEquals(matcher.getSubstrings(haystack),
+                         matcher.getSubstringsParallel(haystack));
+        }
+    }
+
+    @Test
+    public void parallelChunkBoundaryTest() {
+        // "xyz" straddles the first chunk boundary, and its only other
+        // occurrence is further on
+        int boundary = WordMatcher.PARALLEL_LEAF_CHARS * 2;
+        char[] chars = new char[boundary * 2];
+        Arrays.fill(chars, 'a');
+        "xyz".getChars(0, 3, chars, boundary - 1);
+        "xyz".getChars(0, 3, chars, boundary * 2 - 5);
+        String haystack = new String(chars);
+        String[] words = {"xyz", "", "ax", "za"};
+
+        Map<String, Integer> expected = new HashMap<String, Integer>();
+        expected.put("xyz", boundary - 1);
+        expected.put("", 0);
+        expected.put("ax", boundary - 2);
+        expected.put("za", boundary + 1);
+        assertEquals(expected,
+                     WordFinder.getSubstringsParallel(haystack, words));
+    }
+
+    @Test
+    public void findAllMatchesIndexOfTest() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round = round + 1) {
+            String haystack = randomString(random, random.nextInt(200), 3);
+            String[] words = new String[1 + random.nextInt(8)];
+            for (int w = 0; w < words.length; w = w + 1) {
+                words[w] = randomString(random, random.nextInt(5), 3);
+            }
+            WordMatcher matcher = new WordMatcher(words);
+            WordOccurrences all = matcher.findAll(haystack);
+            int[] counts = matcher.countOccurrences(haystack);
+            int total = 0;
+            for (int w = 0; w < matcher.wordCount(); w = w + 1) {
+                List<Integer> expected = new ArrayList<Integer>();
+                String word = matcher.word(w);
+                for (int i = haystack.indexOf(word); i != -1;
+                        i = (i < haystack.length()) ?
+                                haystack.indexOf(word, i + 1) : -1) {
+                    expected.add(i);
+                }
+                assertEquals(expected.size(), all.count(w));
+                assertEquals(expected.size(), counts[w]);
+                int[] offsets = all.offsets(w);
+                for (int i = 0; i < offsets.length; i = i + 1) {
+                    assertEquals((int) expected.get(i), offsets[i]);
+                    assertEquals(offsets[i], all.offset(w, i));
+                }
+                total = total + expected.size();
+            }
+            assertEquals(total, all.totalCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullWordTest() {
+        new WordMatcher(new String[] {"a", null});
+    }
+
+    // A random string of length letters among the first letters letters.
+    private static String randomString(Random random, int length, int letters) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i = i + 1) {
+            chars[i] = (char) ('a' + random.nextInt(letters));
+        }
+        return new String(chars);
+    }
+}
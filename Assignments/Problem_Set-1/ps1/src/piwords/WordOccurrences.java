@@ -0,0 +1,126 @@
+package piwords;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * WordOccurrences are all the indexes at which the words of a WordMatcher
+ * occur in a text, as found by WordMatcher.findAll.
+ *
+ * The indexes are kept in one int array, grouped by word (compressed sparse
+ * rows): the occurrences of word w are offsets[first[w] .. first[w + 1] - 1],
+ * in increasing order. This takes four bytes per occurrence, plus four per
+ * word, however the occurrences are spread among the words.
+ *
+ * WordOccurrences are immutable and safe for use by multiple threads.
+ */
+public class WordOccurrences {
+    /*
+     * Rep invariant:
+     *     first.length == matcher.wordCount() + 1, first[0] == 0, and first
+     *     is non-decreasing with first[wordCount()] == offsets.length
+     *     offsets[first[w] .. first[w + 1] - 1] is increasing for every w
+     */
+    private final WordMatcher matcher;
+    private final int[] first;
+    private final int[] offsets;
+
+    /**
+     * Groups the matches found in a text by word. Match i is word
+     * matchWords[i] at index matchOffsets[i]; the matches of each word must
+     * be in increasing order of index.
+     *
+     * @param matcher The matcher that found the matches.
+     * @param matchWords The word of each match. This array is not mutated.
+     * @param matchOffsets The index of each match. This array is not mutated.
+     * @param matches The number of matches, at the start of both arrays.
+     */
+    WordOccurrences(WordMatcher matcher, int[] matchWords, int[] matchOffsets,
+    		int matches) {
+    	this.matcher = matcher;
+    	int words = matcher.wordCount();
+    	this.first = new int[words + 1];
+    	for (int i = 0; i < matches; i = i + 1) {
+    		first[matchWords[i] + 1] = first[matchWords[i] + 1] + 1;
+    	}
+    	for (int w = 0; w < words; w = w + 1) {
+    		first[w + 1] = first[w + 1] + first[w];
+    	}
+    	// a counting sort, which keeps the order of each word's matches
+    	this.offsets = new int[matches];
+    	int[] next = Arrays.copyOf(first, words);
+    	for (int i = 0; i < matches; i = i + 1) {
+    		int w = matchWords[i];
+    		offsets[next[w]] = matchOffsets[i];
+    		next[w] = next[w] + 1;
+    	}
+    }
+
+    /**
+     * @return the number of distinct words that were searched for, found or
+     *         not.
+     */
+    public int wordCount() {
+    	return matcher.wordCount();
+    }
+
+    /**
+     * @param w The index of a word, between 0 and wordCount() - 1.
+     * @return the word with that index, as numbered by the WordMatcher.
+     */
+    public String word(int w) {
+    	return matcher.word(w);
+    }
+
+    /**
+     * @param w The index of a word, between 0 and wordCount() - 1.
+     * @return the number of times word w occurs in the text.
+     */
+    public int count(int w) {
+    	return first[w + 1] - first[w];
+    }
+
+    /**
+     * @param w The index of a word, between 0 and wordCount() - 1.
+     * @param i The number of an occurrence, between 0 and count(w) - 1.
+     * @return the index in the text of the i-th occurrence of word w, in
+     *         increasing order of index.
+     */
+    public int offset(int w, int i) {
+    	if ((i < 0) || (i >= count(w))) {
+    		throw new IndexOutOfBoundsException("WordOccurrences: " + i);
+    	}
+    	return offsets[first[w] + i];
+    }
+
+    /**
+     * @param w The index of a word, between 0 and wordCount() - 1.
+     * @return a new array of the indexes in the text of the occurrences of
+     *         word w, in increasing order.
+     */
+    public int[] offsets(int w) {
+    	return Arrays.copyOfRange(offsets, first[w], first[w + 1]);
+    }
+
+    /**
+     * @return the number of occurrences of all words.
+     */
+    public int totalCount() {
+    	return offsets.length;
+    }
+
+    /**
+     * @return A map from each word that occurs in the text to the number of
+     *         times it occurs.
+     */
+    public Map<String, Integer> counts() {
+    	Map<String, Integer> counts = new HashMap<String, Integer>();
+    	for (int w = 0; w < wordCount(); w = w + 1) {
+    		if (count(w) > 0) {
+    			counts.put(word(w), count(w));
+    		}
+    	}
+    	return counts;
+    }
+}
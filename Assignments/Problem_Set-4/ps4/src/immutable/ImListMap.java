@@ -57,6 +57,21 @@ public class ImListMap<K, V> implements ImMap<K, V> {
         checkRep();
     }
 
+    /**
+     * Make a map of the bindings keys[i] -> values[i], in time linear in
+     * their number, rather than the quadratic time of repeated puts.
+     * Requires: keys and values of the same length, with no null elements,
+     * and the keys distinct.
+     */
+    public ImListMap(K[] keys, V[] values) {
+        ImList<Binding> bindings = new EmptyImList<Binding>();
+        for (int i = keys.length - 1; i >= 0; i--) {
+            bindings = bindings.add(new Binding(keys[i], values[i]));
+        }
+        this.bindings = bindings;
+        checkRep();
+    }
+
     // Internal constructor.
     private ImListMap(ImList<Binding> bindings) {
         this.bindings = bindings;
@@ -0,0 +1,150 @@
+package sat;
+
+/**
+ * An ActivityHeap keeps the activities of the variables of a VSIDS search,
+ * and a binary max-heap on activity of some of those variables, so that the
+ * most active of them is found in logarithmic time.
+ *
+ * Bumping a variable adds an increment to its activity, and decaying
+ * divides the increment by a factor below 1, so that recent bumps count
+ * most; activities are rescaled when they grow too large, which keeps
+ * their order.
+ */
+class ActivityHeap {
+    /*
+     * Rep invariant:
+     *     0 < decay < 1, increment > 0
+     *     heap[0 .. size - 1] is a binary max-heap on activity of distinct
+     *     variables; index[v] is v's index in heap, or -1 if it is not in it
+     */
+    private final double decay;
+    private final double[] activity;
+    private double increment = 1;
+    private final int[] heap;
+    private int size = 0;
+    private final int[] index;
+
+    /**
+     * Make an empty heap over variables 0 .. vars - 1, all of activity 0.
+     *
+     * @param decay The factor the increment is divided by at each decay,
+     *        strictly between 0 and 1.
+     */
+    public ActivityHeap(int vars, double decay) {
+    	this.decay = decay;
+    	this.activity = new double[vars];
+    	this.heap = new int[vars];
+    	this.index = new int[vars];
+    	for (int v = 0; v < vars; v = v + 1) {
+    		index[v] = -1;
+    	}
+    }
+
+    /**
+     * Set the activity of variable v, which must not be in the heap.
+     */
+    public void setActivity(int v, double value) {
+    	activity[v] = value;
+    }
+
+    /**
+     * @return true iff the heap holds no variable.
+     */
+    public boolean isEmpty() {
+    	return size == 0;
+    }
+
+    /**
+     * @return true iff the heap holds variable v.
+     */
+    public boolean contains(int v) {
+    	return index[v] != -1;
+    }
+
+    /**
+     * Add variable v, which must not be in the heap.
+     */
+    public void insert(int v) {
+    	heap[size] = v;
+    	index[v] = size;
+    	size = size + 1;
+    	up(size - 1);
+    }
+
+    /**
+     * Remove the variable of highest activity from the heap, which must not
+     * be empty.
+     *
+     * @return the variable removed.
+     */
+    public int removeMax() {
+    	int max = heap[0];
+    	size = size - 1;
+    	index[max] = -1;
+    	if (size > 0) {
+    		heap[0] = heap[size];
+    		index[heap[0]] = 0;
+    		down(0);
+    	}
+    	return max;
+    }
+
+    /**
+     * Increase the activity of variable v by the increment, rescaling all
+     * activities if they grow too large.
+     */
+    public void bump(int v) {
+    	activity[v] = activity[v] + increment;
+    	if (activity[v] > 1e100) {
+    		for (int u = 0; u < activity.length; u = u + 1) {
+    			activity[u] = activity[u] * 1e-100;
+    		}
+    		increment = increment * 1e-100;
+    	}
+    	if (index[v] != -1) {
+    		up(index[v]);
+    	}
+    }
+
+    /**
+     * Grow the increment by 1 / decay, so that later bumps count more than
+     * earlier ones.
+     */
+    public void decay() {
+    	increment = increment / decay;
+    }
+
+    private void up(int i) {
+    	int v = heap[i];
+    	while (i > 0) {
+    		int parent = (i - 1) / 2;
+    		if (activity[heap[parent]] >= activity[v]) {
+    			break;
+    		}
+    		heap[i] = heap[parent];
+    		index[heap[i]] = i;
+    		i = parent;
+    	}
+    	heap[i] = v;
+    	index[v] = i;
+    }
+
+    private void down(int i) {
+    	int v = heap[i];
+    	while (2 * i + 1 < size) {
+    		int child = 2 * i + 1;
+    		if ((child + 1 < size) &&
+    				(activity[heap[child + 1]] > activity[heap[child]])) {
+    			child = child + 1;
+    		}
+    		if (activity[heap[child]] <= activity[v]) {
+    			break;
+    		}
+    		heap[i] = heap[child];
+    		index[heap[i]] = i;
+    		i = child;
+    	}
+    	heap[i] = v;
+    	index[v] = i;
+    }
+}
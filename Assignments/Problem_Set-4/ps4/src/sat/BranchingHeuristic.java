@@ -0,0 +1,43 @@
+package sat;
+
+/**
+ * A BranchingHeuristic chooses the literal on which a DPLL search branches,
+ * when propagation has nothing left to assign.
+ *
+ * The solver calls start once, before the search, and then tells the
+ * heuristic of every assignment, undo and conflict, so that heuristics that
+ * keep state, such as VSIDS, can update it incrementally. A heuristic is used
+ * by one search at a time; make a new one for each solve.
+ */
+public interface BranchingHeuristic {
+    /**
+     * Called once, before the search, with no variable assigned.
+     *
+     * @param state The view of the solver, which stays valid during the
+     *        search.
+     */
+    public void start(SolverState state);
+
+    /**
+     * Requires: some clause is unsatisfied, and none is empty or unit.
+     *
+     * @return the code of an unassigned literal to make true, before trying
+     *         its negation.
+     */
+    public int choose();
+
+    /**
+     * Called after literal is made true, by a decision or by propagation.
+     */
+    public void assigned(int literal);
+
+    /**
+     * Called after literal, which was true, is unassigned by backtracking.
+     */
+    public void unassigned(int literal);
+
+    /**
+     * Called when all the literals of clause c are false.
+     */
+    public void conflict(int c);
+}
@@ -0,0 +1,163 @@
+package sat;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import sat.env.Environment;
+import sat.formula.CompiledFormula;
+import sat.formula.Formula;
+import sudoku.Sudoku;
+import sudoku.Sudoku.ParseException;
+
+public class BranchingHeuristicTest {
+    // make sure assertions are turned on!
+    // we don't want to run test cases without assertions too.
+    // see the handout to find out how to turn them on.
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    // @return one new heuristic of each kind
+    private static BranchingHeuristic[] heuristics() {
+    	return new BranchingHeuristic[] {new SmallestClauseHeuristic(),
+    			new MomsHeuristic(), new JeroslowWangHeuristic(),
+    			new VsidsHeuristic()};
+    }
+
+    @Test
+    public void testRandomAgreesWithSATSolver() {
+    	Random random = new Random(23);
+    	for (int trial = 0; trial < 100; trial = trial + 1) {
+    		Formula f = CDCLSolverTest.randomFormula(random, 14, 60, 3);
+    		Environment expected = SATSolver.solve(f);
+    		for (BranchingHeuristic heuristic : heuristics()) {
+    			Environment env = TrailSolver.solve(f, heuristic);
+    			assertEquals(heuristic.getClass().getName(),
+    					expected == null, env == null);
+    			if (env != null) {
+    				assertTrue(CDCLSolverTest.satisfies(f, env));
+    			}
+    		}
+    	}
+    }
+
+    @Test
+    public void testSudokus() throws IOException, ParseException {
+    	String[] files = {"samples/sudoku_hard.txt", "samples/sudoku_evil.txt"};
+    	for (String file : files) {
+    		Formula f = Sudoku.fromFile(3, file).getProblem();
+    		for (BranchingHeuristic heuristic : heuristics()) {
+    			assertTrue(file + " " + heuristic.getClass().getName(),
+    					CDCLSolverTest.satisfies(f,
+    							TrailSolver.solve(f, heuristic)));
+    		}
+    	}
+    }
+
+    @Test
+    public void testStatistics() throws IOException, ParseException {
+    	CompiledFormula f = new CompiledFormula(Sudoku.fromFile(3,
+    			"samples/sudoku_evil.txt").getProblem());
+    	for (BranchingHeuristic heuristic : heuristics()) {
+    		SearchStatistics statistics = new SearchStatistics();
+    		assertNotNull(TrailSolver.solve(f, heuristic, false, statistics));
+    		// every variable is assigned by a decision or by propagation,
+    		// at least once
+    		assertTrue(statistics.getDecisions() +
+    				statistics.getPropagations() >= f.getVariableCount());
+    		assertTrue(statistics.getConflicts() <= statistics.getDecisions());
+    	}
+    	SearchStatistics statistics = new SearchStatistics();
+    	assertNotNull(CDCLSolver.solve(f, statistics));
+    	assertTrue(statistics.getDecisions() + statistics.getPropagations() >=
+    			f.getVariableCount());
+    }
+
+    @Test
+    public void testChooseFreeLiteral() {
+    	// each choice is a literal of an unassigned variable that occurs in
+    	// an unsatisfied clause, checked through a heuristic that wraps
+    	// the others
+    	Random random = new Random(5);
+    	for (final BranchingHeuristic heuristic : heuristics()) {
+    		for (int trial = 0; trial < 20; trial = trial + 1) {
+    			Formula f = CDCLSolverTest.randomFormula(random, 30, 120, 3);
+    			TrailSolver.solve(new CompiledFormula(f),
+    					new BranchingHeuristic() {
+    				private SolverState state;
+
+    				public void start(SolverState state) {
+    					this.state = state;
+    					heuristic.start(state);
+    				}
+
+    				public int choose() {
+    					int literal = heuristic.choose();
+    					assertEquals(0, state.getValue(literal));
+    					assertTrue(state.getSmallestClause() != -1);
+    					return literal;
+    				}
+
+    				public void assigned(int literal) {
+    					assertEquals(1, state.getValue(literal));
+    					heuristic.assigned(literal);
+    				}
+
+    				public void unassigned(int literal) {
+    					assertEquals(0, state.getValue(literal));
+    					heuristic.unassigned(literal);
+    				}
+
+    				public void conflict(int c) {
+    					assertFalse(state.isSatisfied(c));
+    					assertEquals(0, state.getFreeCount(c));
+    					heuristic.conflict(c);
+    				}
+    			}, false, null);
+    		}
+    	}
+    }
+
+    @Test
+    public void testVsidsSavesPhase() {
+    	// variables are tried true first, and after they are undone, with the
+    	// sign they last had
+    	final int[] value = new int[6];
+    	VsidsHeuristic vsids = new VsidsHeuristic();
+    	vsids.start(new SolverState() {
+    		public int getVariableCount() { return 3; }
+    		public int getClauseCount() { return 0; }
+    		public int getValue(int literal) { return value[literal]; }
+    		public int getClauseSize(int c) { return 0; }
+    		public int getLiteral(int c, int i) { return 0; }
+    		public boolean isSatisfied(int c) { return false; }
+    		public int getFreeCount(int c) { return 0; }
+    		public int getSmallestClause() { return -1; }
+    	});
+    	for (int i = 0; i < 3; i = i + 1) {
+    		int literal = vsids.choose();
+    		assertEquals(0, literal & 1);
+    		// decided true, then flipped to false
+    		value[literal ^ 1] = 1;
+    		value[literal] = -1;
+    		vsids.assigned(literal ^ 1);
+    	}
+    	for (int literal = 1; literal < 6; literal = literal + 2) {
+    		value[literal] = 0;
+    		value[literal ^ 1] = 0;
+    		vsids.unassigned(literal);
+    	}
+    	for (int i = 0; i < 3; i = i + 1) {
+    		int literal = vsids.choose();
+    		assertEquals(1, literal & 1);
+    		value[literal] = 1;
+    		value[literal ^ 1] = -1;
+    		vsids.assigned(literal);
+    	}
+    }
+}
@@ -0,0 +1,633 @@
+package sat;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import sat.env.Environment;
+import sat.formula.CompiledFormula;
+import sat.formula.Formula;
+
+/**
+ * A conflict-driven clause-learning (CDCL) SAT solver, with the same contract
+ * as SATSolver.solve. See http://en.wikipedia.org/wiki/Conflict-Driven_Clause_Learning
+ *
+ * Unlike SATSolver, which copies the clause list at every step, the solver
+ * keeps all clauses in one mutable int array and assigns variables on a
+ * trail that is undone on backtracking:
+ *
+ *   - unit propagation watches two literals of every clause, so assigning a
+ *     literal only visits the clauses that watch its negation;
+ *   - a conflict is analyzed back to its first unique implication point, and
+ *     the clause learned from it is added to the clause database;
+ *   - the search then jumps back to the second highest decision level of the
+ *     learned clause, rather than to the last decision;
+ *   - decisions pick the unassigned variable of highest activity (VSIDS),
+ *     bumped for the variables of each conflict, with the sign it had last;
+ *     this is built in rather than a BranchingHeuristic, since it bumps the
+ *     variables met in conflict analysis, not just the conflict clause;
+ *   - the search restarts after a number of conflicts that follows the Luby
+ *     sequence, and simplifies the clause database when it does.
+ *
+ * For PortfolioSolver, a solver can also be configured with another restart
+ * unit, initial phase and random decisions, be stopped by another thread,
+ * and exchange its short learned clauses with other solvers.
+ */
+public class CDCLSolver {
+    // conflicts before the first restart, and the unit of the Luby sequence
+    static final int RESTART_UNIT = 100;
+    // the factor by which variable activities decay after each conflict
+    private static final double ACTIVITY_DECAY = 0.95;
+    // learned clauses kept, as a fraction of the original clauses, at first;
+    // the limit grows by LEARNT_GROWTH at each simplification
+    private static final double LEARNT_FRACTION = 1.0 / 3;
+    private static final double LEARNT_GROWTH = 1.1;
+    // the fraction of decisions made at random, for a solver with a Random
+    private static final double RANDOM_FREQUENCY = 0.02;
+    // the longest learned clause published to the exchange
+    private static final int SHARE_LIMIT = 8;
+
+    // values of literals
+    private static final byte TRUE = 1;
+    private static final byte FALSE = -1;
+    private static final byte UNASSIGNED = 0;
+
+    /**
+     * Solve the problem with conflict-driven clause learning. The returned
+     * environment binds every variable of the formula, as a sat.env.Variable.
+     *
+     * @return an environment for which the problem evaluates to Bool.TRUE, or
+     *         null if no such environment exists.
+     */
+    public static Environment solve(Formula formula) {
+    	CompiledFormula compiled = new CompiledFormula(formula);
+    	boolean[] values = solve(compiled);
+    	return (values == null) ? null : compiled.toEnvironment(values);
+    }
+
+    /**
+     * Solve a compiled problem with conflict-driven clause learning.
+     *
+     * @return the value of each variable, indexed by id, in an assignment
+     *         that satisfies the problem, or null if there is none.
+     */
+    public static boolean[] solve(CompiledFormula formula) {
+    	return solve(formula, null);
+    }
+
+    /**
+     * Solve a compiled problem with conflict-driven clause learning.
+     *
+     * @param statistics If not null, the statistics to add the counts of
+     *        this search to.
+     * @return the value of each variable, indexed by id, in an assignment
+     *         that satisfies the problem, or null if there is none.
+     */
+    public static boolean[] solve(CompiledFormula formula,
+    		SearchStatistics statistics) {
+    	if (statistics == null) {
+    		statistics = new SearchStatistics();
+    	}
+    	CDCLSolver solver = new CDCLSolver(formula, statistics, RESTART_UNIT,
+    			false, null, null, null, 0);
+    	return solver.search() ? solver.getValues() : null;
+    }
+
+    /*
+     * Rep invariant:
+     *     a literal l is a CompiledFormula code, 2 * v or 2 * v + 1 for a
+     *     variable 0 <= v < vars;
+     *     values[l] == -values[l ^ 1]
+     *     a clause at index r of arena has arena[r] literals, in arena[r + 1
+     *     .. r + arena[r]]; its first two literals are its watched ones, and
+     *     r is in watches[l][0 .. watchCounts[l] - 1] for each watched l
+     *     clauseRefs[0 .. clauseCount - 1] are the clauses of the arena; the
+     *     first originalCount of them are original clauses, the rest learned
+     *     trail[0 .. trailSize - 1] are the true literals, in the order they
+     *     were assigned; trailLimits[d] is the trail size at which decision
+     *     level d + 1 begins
+     *     reasons[v] is the clause that implied variable v, whose first
+     *     literal is v's, or -1 if v was decided or assigned at level 0
+     *     heap holds the unassigned variables (and maybe others)
+     *     the clauses of exchange before exchangePosition have been read
+     */
+    private final int vars;
+    private int[] arena;
+    private int arenaSize = 0;
+    private int[] clauseRefs;
+    private int clauseCount = 0;
+    private int originalCount;
+    private final int[][] watches;
+    private final int[] watchCounts;
+
+    private final byte[] values;
+    private final int[] levels;
+    private final int[] reasons;
+    private final int[] trail;
+    private int trailSize = 0;
+    private int propagated = 0;
+    private int[] trailLimits;
+    private int level = 0;
+
+    private final ActivityHeap heap;
+    private final boolean[] phases;
+
+    // conflict analysis scratch space
+    private final boolean[] seen;
+    private int[] learnt;
+
+    private final SearchStatistics statistics;
+    private final int restartUnit;
+    private final Random random;
+    private final AtomicBoolean stop;
+    private final ClauseExchange exchange;
+    private final int source;
+    private long exchangePosition = 0;
+    private boolean unsatisfiable = false;
+    private int simplifiedTrailSize = -1;
+    private double maxLearnts;
+
+    /**
+     * Make a solver for the clauses of formula, whose literals are numbered
+     * as in the rep.
+     *
+     * @param statistics The statistics to add the counts of the search to.
+     * @param restartUnit The unit of the Luby sequence of restarts.
+     * @param phase Whether a variable never assigned is tried true first,
+     *        rather than false.
+     * @param random If not null, the source of the random decisions, and of
+     *        the small random activities that break the ties between
+     *        variables at first.
+     * @param stop If not null, a flag that stops the search once it is set.
+     * @param exchange If not null, the exchange to publish short learned
+     *        clauses to, and to read the clauses of other solvers from at
+     *        each restart.
+     * @param source The number of this solver in the exchange.
+     */
+    CDCLSolver(CompiledFormula formula, SearchStatistics statistics,
+    		int restartUnit, boolean phase, Random random, AtomicBoolean stop,
+    		ClauseExchange exchange, int source) {
+    	this.statistics = statistics;
+    	this.restartUnit = restartUnit;
+    	this.random = random;
+    	this.stop = stop;
+    	this.exchange = exchange;
+    	this.source = source;
+    	this.vars = formula.getVariableCount();
+    	int[] literals = formula.getLiterals();
+    	int[] starts = formula.getClauseStarts();
+    	int clauses = formula.getClauseCount();
+    	int size = literals.length + clauses;
+    	this.arena = new int[Math.max(16, 2 * size)];
+    	this.clauseRefs = new int[Math.max(16, 2 * clauses)];
+    	this.watches = new int[2 * vars][];
+    	this.watchCounts = new int[2 * vars];
+    	for (int l = 0; l < 2 * vars; l = l + 1) {
+    		watches[l] = new int[4];
+    	}
+    	this.values = new byte[2 * vars];
+    	this.levels = new int[vars];
+    	this.reasons = new int[vars];
+    	this.trail = new int[vars];
+    	this.trailLimits = new int[16];
+    	this.heap = new ActivityHeap(vars, ACTIVITY_DECAY);
+    	this.phases = new boolean[vars];
+    	this.seen = new boolean[vars];
+    	this.learnt = new int[16];
+    	for (int v = 0; v < vars; v = v + 1) {
+    		phases[v] = phase;
+    		if (random != null) {
+    			heap.setActivity(v, random.nextDouble() * 1e-3);
+    		}
+    		heap.insert(v);
+    	}
+
+    	for (int c = 0; c < clauses; c = c + 1) {
+    		int length = starts[c + 1] - starts[c];
+    		if (length == 0) {
+    			unsatisfiable = true;
+    		} else if (length == 1) {
+    			int literal = literals[starts[c]];
+    			if (values[literal] == FALSE) {
+    				unsatisfiable = true;
+    			} else if (values[literal] == UNASSIGNED) {
+    				statistics.addPropagation();
+    				assign(literal, -1);
+    			}
+    		} else {
+    			addClause(literals, starts[c], length);
+    		}
+    	}
+    	this.originalCount = clauseCount;
+    	this.maxLearnts = Math.max(100, originalCount * LEARNT_FRACTION);
+    }
+
+    /**
+     * Search for an assignment that satisfies the clauses. A solver
+     * searches only once.
+     *
+     * @return TRUE if the clauses are satisfiable, with a satisfying
+     *         assignment in getValues(), FALSE if they are not, and null if
+     *         the stop flag was set first.
+     */
+    Boolean search() {
+    	if (unsatisfiable) {
+    		return false;
+    	}
+    	int restart = 1;
+    	long conflictLimit = restartUnit;
+    	long conflicts = 0;
+    	while (true) {
+    		if ((stop != null) && stop.get()) {
+    			return null;
+    		}
+    		int conflict = propagate();
+    		if (conflict != -1) {
+    			if (level == 0) {
+    				return false;
+    			}
+    			conflicts = conflicts + 1;
+    			statistics.addConflict();
+    			int learntSize = analyze(conflict);
+    			int backLevel = 0;
+    			if (learntSize > 1) {
+    				// the literal of the highest level after the first goes
+    				// second, so that it is watched
+    				int max = 1;
+    				for (int i = 2; i < learntSize; i = i + 1) {
+    					if (levels[learnt[i] >> 1] > levels[learnt[max] >> 1]) {
+    						max = i;
+    					}
+    				}
+    				int swap = learnt[1];
+    				learnt[1] = learnt[max];
+    				learnt[max] = swap;
+    				backLevel = levels[learnt[1] >> 1];
+    			}
+    			if ((exchange != null) && (learntSize <= SHARE_LIMIT)) {
+    				exchange.publish(source, learnt, learntSize);
+    			}
+    			cancelUntil(backLevel);
+    			statistics.addPropagation();
+    			if (learntSize == 1) {
+    				assign(learnt[0], -1);
+    			} else {
+    				assign(learnt[0], addClause(learnt, 0, learntSize));
+    			}
+    			heap.decay();
+    		} else if (conflicts >= conflictLimit) {
+    			restart = restart + 1;
+    			conflicts = 0;
+    			conflictLimit = (long) restartUnit * luby(restart);
+    			cancelUntil(0);
+    			if (exchange != null) {
+    				if (!importClauses() || (propagate() != -1)) {
+    					return false;
+    				}
+    			}
+    			simplify();
+    		} else {
+    			int literal = decide();
+    			if (literal == -1) {
+    				return true;
+    			}
+    			if (level == trailLimits.length) {
+    				trailLimits = Arrays.copyOf(trailLimits, 2 * level);
+    			}
+    			trailLimits[level] = trailSize;
+    			level = level + 1;
+    			statistics.addDecision();
+    			assign(literal, -1);
+    		}
+    	}
+    }
+
+    /**
+     * @return the value of each variable, indexed by id, after search()
+     *         returned TRUE.
+     */
+    boolean[] getValues() {
+    	boolean[] values = new boolean[vars];
+    	for (int v = 0; v < vars; v = v + 1) {
+    		values[v] = this.values[2 * v] == TRUE;
+    	}
+    	return values;
+    }
+
+    // Returns the ith term of the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, ...
+    // (i >= 1).
+    static int luby(int i) {
+    	int power = 1;
+    	while (power * 2 - 1 < i) {
+    		power = power * 2;
+    	}
+    	while (power * 2 - 1 != i) {
+    		if (i >= power) {
+    			i = i - power + 1;
+    		}
+    		power = power / 2;
+    	}
+    	return power;
+    }
+
+    // Makes literal true at the current level, implied by clause reason (or
+    // -1 for none).
+    private void assign(int literal, int reason) {
+    	int v = literal >> 1;
+    	values[literal] = TRUE;
+    	values[literal ^ 1] = FALSE;
+    	levels[v] = level;
+    	reasons[v] = reason;
+    	trail[trailSize] = literal;
+    	trailSize = trailSize + 1;
+    }
+
+    // Undoes the assignments of the levels above level.
+    private void cancelUntil(int level) {
+    	if (this.level <= level) {
+    		return;
+    	}
+    	int limit = trailLimits[level];
+    	for (int i = trailSize - 1; i >= limit; i = i - 1) {
+    		int literal = trail[i];
+    		int v = literal >> 1;
+    		values[literal] = UNASSIGNED;
+    		values[literal ^ 1] = UNASSIGNED;
+    		phases[v] = (literal & 1) == 0;
+    		if (!heap.contains(v)) {
+    			heap.insert(v);
+    		}
+    	}
+    	trailSize = limit;
+    	propagated = limit;
+    	this.level = level;
+    }
+
+    // Propagates the assignments of the trail that are not propagated yet,
+    // and returns a clause all of whose literals are false, or -1 if there
+    // is none.
+    private int propagate() {
+    	while (propagated < trailSize) {
+    		int falseLiteral = trail[propagated] ^ 1;
+    		propagated = propagated + 1;
+    		int[] list = watches[falseLiteral];
+    		int count = watchCounts[falseLiteral];
+    		int kept = 0;
+    		int i = 0;
+    		while (i < count) {
+    			int ref = list[i];
+    			i = i + 1;
+    			// the false literal goes second
+    			if (arena[ref + 1] == falseLiteral) {
+    				arena[ref + 1] = arena[ref + 2];
+    				arena[ref + 2] = falseLiteral;
+    			}
+    			int first = arena[ref + 1];
+    			if (values[first] == TRUE) {
+    				list[kept] = ref;
+    				kept = kept + 1;
+    				continue;
+    			}
+    			// look for another literal to watch
+    			int size = arena[ref];
+    			boolean moved = false;
+    			for (int k = 3; k <= size; k = k + 1) {
+    				int other = arena[ref + k];
+    				if (values[other] != FALSE) {
+    					arena[ref + 2] = other;
+    					arena[ref + k] = falseLiteral;
+    					watch(other, ref);
+    					moved = true;
+    					break;
+    				}
+    			}
+    			if (moved) {
+    				continue;
+    			}
+    			list[kept] = ref;
+    			kept = kept + 1;
+    			if (values[first] == FALSE) {
+    				// conflict: keep the remaining watches, and stop
+    				while (i < count) {
+    					list[kept] = list[i];
+    					kept = kept + 1;
+    					i = i + 1;
+    				}
+    				watchCounts[falseLiteral] = kept;
+    				propagated = trailSize;
+    				return ref;
+    			}
+    			statistics.addPropagation();
+    			assign(first, ref);
+    		}
+    		watchCounts[falseLiteral] = kept;
+    	}
+    	return -1;
+    }
+
+    // Learns from the conflict clause the clause of its first unique
+    // implication point, into learnt[0 .. size - 1] with the asserting
+    // literal first, bumps the activity of the variables involved, and
+    // returns its size.
+    private int analyze(int conflict) {
+    	int size = 1;
+    	int pending = 0;
+    	int literal = -1;
+    	int index = trailSize - 1;
+    	int ref = conflict;
+    	do {
+    		// the implied literal of a reason clause is its first
+    		int from = (literal == -1) ? 1 : 2;
+    		for (int k = from; k <= arena[ref]; k = k + 1) {
+    			int q = arena[ref + k];
+    			int v = q >> 1;
+    			if (!seen[v] && (levels[v] > 0)) {
+    				seen[v] = true;
+    				heap.bump(v);
+    				if (levels[v] >= level) {
+    					pending = pending + 1;
+    				} else {
+    					if (size == learnt.length) {
+    						learnt = Arrays.copyOf(learnt, 2 * size);
+    					}
+    					learnt[size] = q;
+    					size = size + 1;
+    				}
+    			}
+    		}
+    		// the next literal of the trail to resolve on
+    		while (!seen[trail[index] >> 1]) {
+    			index = index - 1;
+    		}
+    		literal = trail[index];
+    		index = index - 1;
+    		ref = reasons[literal >> 1];
+    		seen[literal >> 1] = false;
+    		pending = pending - 1;
+    	} while (pending > 0);
+    	learnt[0] = literal ^ 1;
+    	for (int i = 1; i < size; i = i + 1) {
+    		seen[learnt[i] >> 1] = false;
+    	}
+    	return size;
+    }
+
+    // Returns an unassigned literal to decide, or -1 if all variables are
+    // assigned.
+    private int decide() {
+    	if ((random != null) && (vars > 0) &&
+    			(random.nextDouble() < RANDOM_FREQUENCY)) {
+    		int v = random.nextInt(vars);
+    		if (values[2 * v] == UNASSIGNED) {
+    			return 2 * v + (phases[v] ? 0 : 1);
+    		}
+    	}
+    	while (!heap.isEmpty()) {
+    		int v = heap.removeMax();
+    		if (values[2 * v] == UNASSIGNED) {
+    			return 2 * v + (phases[v] ? 0 : 1);
+    		}
+    	}
+    	return -1;
+    }
+
+    // At level 0: adds the clauses other solvers published since the last
+    // import, without their false literals, and returns false if one of
+    // them has only false literals. The units among them are assigned, and
+    // still to propagate.
+    private boolean importClauses() {
+    	long end = exchange.getPosition();
+    	long position = Math.max(exchangePosition,
+    			end - exchange.getCapacity());
+    	while (position < end) {
+    		int[] clause = exchange.get(position, source);
+    		position = position + 1;
+    		if (clause == null) {
+    			continue;
+    		}
+    		int kept = 0;
+    		boolean satisfied = false;
+    		for (int k = 0; k < clause.length; k = k + 1) {
+    			if (values[clause[k]] == TRUE) {
+    				satisfied = true;
+    				break;
+    			} else if (values[clause[k]] == UNASSIGNED) {
+    				clause[kept] = clause[k];
+    				kept = kept + 1;
+    			}
+    		}
+    		if (satisfied) {
+    			continue;
+    		} else if (kept == 0) {
+    			return false;
+    		} else if (kept == 1) {
+    			statistics.addPropagation();
+    			assign(clause[0], -1);
+    		} else {
+    			addClause(clause, 0, kept);
+    		}
+    	}
+    	exchangePosition = end;
+    	return true;
+    }
+
+    // At level 0, after propagation: drops the clauses that are satisfied,
+    // removes the false literals of the others, keeps the shorter half of
+    // the learned clauses if there are too many, and rebuilds the arena and
+    // the watches.
+    private void simplify() {
+    	int learnts = clauseCount - originalCount;
+    	boolean reduce = learnts > maxLearnts;
+    	if ((trailSize == simplifiedTrailSize) && !reduce) {
+    		return;
+    	}
+    	int maxLength = Integer.MAX_VALUE;
+    	if (reduce) {
+    		// the median length of the learned clauses
+    		int[] lengths = new int[learnts];
+    		for (int c = originalCount; c < clauseCount; c = c + 1) {
+    			lengths[c - originalCount] = arena[clauseRefs[c]];
+    		}
+    		Arrays.sort(lengths);
+    		maxLength = Math.max(2, lengths[learnts / 2]);
+    		maxLearnts = maxLearnts * LEARNT_GROWTH;
+    	}
+
+    	int[] oldArena = arena;
+    	int[] oldRefs = clauseRefs;
+    	int oldCount = clauseCount;
+    	int oldOriginals = originalCount;
+    	arena = new int[oldArena.length];
+    	arenaSize = 0;
+    	clauseRefs = new int[oldRefs.length];
+    	clauseCount = 0;
+    	Arrays.fill(watchCounts, 0);
+    	int[] literals = new int[16];
+    	for (int c = 0; c < oldCount; c = c + 1) {
+    		if (c == oldOriginals) {
+    			originalCount = clauseCount;
+    		}
+    		int ref = oldRefs[c];
+    		int size = oldArena[ref];
+    		if ((c >= oldOriginals) && (size > maxLength)) {
+    			continue;
+    		}
+    		if (literals.length < size) {
+    			literals = new int[size];
+    		}
+    		int kept = 0;
+    		boolean satisfied = false;
+    		for (int k = 1; k <= size; k = k + 1) {
+    			int literal = oldArena[ref + k];
+    			if (values[literal] == TRUE) {
+    				satisfied = true;
+    				break;
+    			} else if (values[literal] == UNASSIGNED) {
+    				literals[kept] = literal;
+    				kept = kept + 1;
+    			}
+    		}
+    		// after propagation at level 0, an unsatisfied clause has at
+    		// least two unassigned literals
+    		if (!satisfied) {
+    			addClause(literals, 0, kept);
+    		}
+    	}
+    	if (oldCount == oldOriginals) {
+    		originalCount = clauseCount;
+    	}
+    	for (int v = 0; v < vars; v = v + 1) {
+    		reasons[v] = -1;
+    	}
+    	simplifiedTrailSize = trailSize;
+    }
+
+    // Adds the clause of literals[from .. from + size - 1], watching the
+    // first two, and returns its index in the arena. Requires size >= 2.
+    private int addClause(int[] literals, int from, int size) {
+    	if (arenaSize + size + 1 > arena.length) {
+    		arena = Arrays.copyOf(arena, 2 * (arenaSize + size + 1));
+    	}
+    	int ref = arenaSize;
+    	arena[ref] = size;
+    	System.arraycopy(literals, from, arena, ref + 1, size);
+    	arenaSize = arenaSize + size + 1;
+    	if (clauseCount == clauseRefs.length) {
+    		clauseRefs = Arrays.copyOf(clauseRefs, 2 * clauseCount);
+    	}
+    	clauseRefs[clauseCount] = ref;
+    	clauseCount = clauseCount + 1;
+    	watch(literals[from], ref);
+    	watch(literals[from + 1], ref);
+    	return ref;
+    }
+
+    private void watch(int literal, int ref) {
+    	int count = watchCounts[literal];
+    	if (count == watches[literal].length) {
+    		watches[literal] = Arrays.copyOf(watches[literal], 2 * count);
+    	}
+    	watches[literal][count] = ref;
+    	watchCounts[literal] = count + 1;
+    }
+}
@@ -0,0 +1,235 @@
+package sat;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import sat.env.Bool;
+import sat.env.Environment;
+import sat.env.Variable;
+import sat.formula.Clause;
+import sat.formula.Formula;
+import sat.formula.Literal;
+import sat.formula.PosLiteral;
+import sudoku.Sudoku;
+import sudoku.Sudoku.ParseException;
+
+public class CDCLSolverTest {
+    Literal a = PosLiteral.make("a");
+    Literal b = PosLiteral.make("b");
+    Literal c = PosLiteral.make("c");
+    Literal na = a.getNegation();
+    Literal nb = b.getNegation();
+    Literal nc = c.getNegation();
+
+    // make sure assertions are turned on!
+    // we don't want to run test cases without assertions too.
+    // see the handout to find out how to turn them on.
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    @Test
+    public void testSolveTwoClauses() {
+    	Formula f = makeFormula(makeClause(a, nb), makeClause(a, b));
+    	Environment env = CDCLSolver.solve(f);
+    	assertEquals(Bool.TRUE, env.get(a.getVariable()));
+    	assertTrue(satisfies(f, env));
+    }
+
+    @Test
+    public void testSolveContradictoryUnits() {
+    	Formula f = makeFormula(makeClause(a), makeClause(b), makeClause(nb));
+    	assertNull(CDCLSolver.solve(f));
+    	assertNull(CDCLSolver.solve(makeFormula(makeClause(a),
+    			makeClause(na))));
+    }
+
+    @Test
+    public void testSolveUnitChain() {
+    	Formula f = makeFormula(makeClause(a), makeClause(b),
+    			makeClause(nb, c));
+    	Environment env = CDCLSolver.solve(f);
+    	assertEquals(Bool.TRUE, env.get(a.getVariable()));
+    	assertEquals(Bool.TRUE, env.get(b.getVariable()));
+    	assertEquals(Bool.TRUE, env.get(c.getVariable()));
+    }
+
+    @Test
+    public void testSolveEmpty() {
+    	assertNotNull(CDCLSolver.solve(new Formula()));
+    	assertNull(CDCLSolver.solve(makeFormula(new Clause())));
+    }
+
+    @Test
+    public void testSolveBindsAllVariables() {
+    	Formula f = makeFormula(makeClause(a, b, c), makeClause(na, nb),
+    			makeClause(nb, nc), makeClause(na, nc));
+    	Environment env = CDCLSolver.solve(f);
+    	assertTrue(satisfies(f, env));
+    	for (Literal l : new Literal[] {a, b, c}) {
+    		assertTrue(env.get(l.getVariable()) != Bool.UNDEFINED);
+    	}
+    }
+
+    @Test
+    public void testSolvePigeonhole() {
+    	// 4 pigeons do not fit in 3 holes; this takes learning and
+    	// backjumping, not just propagation
+    	assertNull(CDCLSolver.solve(pigeonhole(4, 3)));
+    	Formula f = pigeonhole(3, 3);
+    	assertTrue(satisfies(f, CDCLSolver.solve(f)));
+    }
+
+    @Test
+    public void testSolveRandomAgreesWithSATSolver() {
+    	Random random = new Random(6005);
+    	int satisfiable = 0;
+    	for (int trial = 0; trial < 200; trial = trial + 1) {
+    		Formula f = randomFormula(random, 14, 60, 3);
+    		Environment expected = SATSolver.solve(f);
+    		Environment env = CDCLSolver.solve(f);
+    		assertEquals(expected == null, env == null);
+    		if (env != null) {
+    			assertTrue(satisfies(f, env));
+    			satisfiable = satisfiable + 1;
+    		}
+    	}
+    	// near the threshold, both answers occur
+    	assertTrue(satisfiable > 0);
+    	assertTrue(satisfiable < 200);
+    }
+
+    @Test
+    public void testSolveLargeRandom() {
+    	// enough conflicts for restarts and clause database reductions
+    	Random random = new Random(1);
+    	for (int trial = 0; trial < 10; trial = trial + 1) {
+    		Formula f = randomFormula(random, 150, 600, 3);
+    		Environment env = CDCLSolver.solve(f);
+    		if (env != null) {
+    			assertTrue(satisfies(f, env));
+    		}
+    	}
+    }
+
+    @Test
+    public void testSolveSudokus() throws IOException, ParseException {
+    	String[] files = {"samples/sudoku_easy.txt", "samples/sudoku_easy2.txt",
+    			"samples/sudoku_hard.txt", "samples/sudoku_hard2.txt",
+    			"samples/sudoku_evil.txt"};
+    	for (String file : files) {
+    		Formula f = Sudoku.fromFile(3, file).getProblem();
+    		Environment env = CDCLSolver.solve(f);
+    		assertTrue(file, satisfies(f, env));
+    	}
+    	Formula empty = new Sudoku(3).getProblem();
+    	assertTrue(satisfies(empty, CDCLSolver.solve(empty)));
+    }
+
+    @Test
+    public void testLuby() {
+    	int[] expected = {1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, 1};
+    	for (int i = 0; i < expected.length; i = i + 1) {
+    		assertEquals(expected[i], CDCLSolver.luby(i + 1));
+    	}
+    }
+
+    // @return true iff env makes a literal of every clause of f true
+    static boolean satisfies(Formula f, Environment env) {
+    	if (env == null) {
+    		return false;
+    	}
+    	for (Clause clause : f.getClauses()) {
+    		boolean satisfied = false;
+    		for (Literal l : clause) {
+    			Bool value = env.get(l.getVariable());
+    			if ((l instanceof PosLiteral) ? (value == Bool.TRUE)
+    					: (value == Bool.FALSE)) {
+    				satisfied = true;
+    			}
+    		}
+    		if (!satisfied) {
+    			return false;
+    		}
+    	}
+    	return true;
+    }
+
+    // @return a formula of clauses random clauses, each of width distinct
+    //         variables among vars, with random signs
+    static Formula randomFormula(Random random, int vars, int clauses,
+    		int width) {
+    	Formula f = new Formula();
+    	for (int i = 0; i < clauses; i = i + 1) {
+    		Clause clause = new Clause();
+    		while (clause.size() < width) {
+    			Literal l = PosLiteral.make(new Variable("x" +
+    					random.nextInt(vars)));
+    			if (random.nextBoolean()) {
+    				l = l.getNegation();
+    			}
+    			if (!clause.contains(l) && !clause.contains(l.getNegation())) {
+    				clause = clause.add(l);
+    			}
+    		}
+    		f = f.addClause(clause);
+    	}
+    	return f;
+    }
+
+    // @return the formula that each of pigeons pigeons sits in one of holes
+    //         holes, and no two share a hole; it is unsatisfiable iff
+    //         pigeons > holes, and hard to refute by resolution
+    static Formula pigeonhole(int pigeons, int holes) {
+    	Formula f = new Formula();
+    	for (int p = 0; p < pigeons; p = p + 1) {
+    		Clause somewhere = new Clause();
+    		for (int h = 0; h < holes; h = h + 1) {
+    			somewhere = somewhere.add(PosLiteral.make("p" + p + "h" + h));
+    		}
+    		f = f.addClause(somewhere);
+    	}
+    	for (int h = 0; h < holes; h = h + 1) {
+    		for (int p = 0; p < pigeons; p = p + 1) {
+    			for (int q = p + 1; q < pigeons; q = q + 1) {
+    				f = f.addClause(new Clause(
+    						PosLiteral.make("p" + p + "h" + h).getNegation())
+    						.add(PosLiteral.make("p" + q + "h" + h)
+    						.getNegation()));
+    			}
+    		}
+    	}
+    	return f;
+    }
+
+    // Helper function for constructing a formula.  Takes
+    // a variable number of arguments, e.g.
+    // makeFormula(a, b, c) will make the formula (a and b and c)
+    // @param e,...   clause in the formula
+    // @return formula containing e,...
+    private Formula makeFormula(Clause... e) {
+        Formula f = new Formula();
+        for (int i = 0; i < e.length; ++i) {
+            f = f.addClause(e[i]);
+        }
+        return f;
+    }
+
+    // Helper function for constructing a clause.  Takes
+    // a variable number of arguments, e.g.
+    // make(a, b, c) will make the clause (a or b or c)
+    // @param e,...   literals in the clause
+    // @return clause containing e,...
+    private Clause makeClause(Literal... e) {
+        Clause c = new Clause();
+        for (int i = 0; i < e.length; ++i) {
+            c = c.add(e[i]);
+        }
+        return c;
+    }
+}
@@ -0,0 +1,87 @@
+package sat;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A ClauseExchange lets the solvers of a portfolio share the short clauses
+ * they learn, without locks.
+ *
+ * Published clauses go into a ring buffer of a fixed number of slots, which
+ * the publishers claim in turn with an atomic counter; once the buffer is
+ * full, each new clause overwrites the oldest. Every reader keeps its own
+ * position, and reads the clauses published since. A reader that falls more
+ * than a buffer behind loses the clauses overwritten in between, and one that
+ * reads a slot claimed but not written yet skips it: learned clauses are
+ * only hints, so losing some is harmless.
+ *
+ * ClauseExchanges are safe for use by multiple threads.
+ */
+class ClauseExchange {
+    /*
+     * Rep invariant:
+     *     published is the number of slots claimed so far
+     *     slots.get(p % slots.length()), if not null, is the entry of the
+     *     clause published at position p, for some p < published: an array
+     *     of (int) p, the source of the clause, and then its literals
+     */
+    private final AtomicReferenceArray<int[]> slots;
+    private final AtomicLong published = new AtomicLong();
+
+    /**
+     * Make an empty exchange.
+     *
+     * @param capacity The number of clauses kept, at least 1.
+     */
+    public ClauseExchange(int capacity) {
+    	this.slots = new AtomicReferenceArray<int[]>(capacity);
+    }
+
+    /**
+     * Publish a clause.
+     *
+     * @param source The number of the publishing solver.
+     * @param literals An array that holds the literal codes of the clause in
+     *        literals[0 .. size - 1]. It is copied, not kept.
+     */
+    public void publish(int source, int[] literals, int size) {
+    	long position = published.getAndIncrement();
+    	int[] entry = new int[size + 2];
+    	entry[0] = (int) position;
+    	entry[1] = source;
+    	System.arraycopy(literals, 0, entry, 2, size);
+    	slots.set((int) (position % slots.length()), entry);
+    }
+
+    /**
+     * @return the position of the next clause to be published.
+     */
+    public long getPosition() {
+    	return published.get();
+    }
+
+    /**
+     * @param position A position, less than getPosition().
+     * @param reader The number of the reading solver.
+     * @return the literal codes of the clause published at position, or null
+     *         if it was published by reader, was overwritten, or is not
+     *         written yet.
+     */
+    public int[] get(long position, int reader) {
+    	int[] entry = slots.get((int) (position % slots.length()));
+    	if ((entry == null) || (entry[0] != (int) position) ||
+    			(entry[1] == reader)) {
+    		return null;
+    	}
+    	int[] literals = new int[entry.length - 2];
+    	System.arraycopy(entry, 2, literals, 0, literals.length);
+    	return literals;
+    }
+
+    /**
+     * @return the number of clauses the exchange keeps.
+     */
+    public int getCapacity() {
+    	return slots.length();
+    }
+}
@@ -0,0 +1,268 @@
+package sat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import sat.env.Environment;
+import sat.formula.CompiledFormula;
+import sat.formula.Formula;
+
+/**
+ * A cube-and-conquer SAT solver, with the same contract as SATSolver.solve.
+ * See Heule et al., "Cube and Conquer: Guiding CDCL SAT Solvers by
+ * Lookaheads".
+ *
+ * First a lookahead splits the problem into cubes: partial assignments that
+ * together cover every assignment the problem may have. At each split, the
+ * most promising variables are each assumed true and false in turn, and the
+ * one whose two assumptions imply the most assignments is split on; a
+ * variable whose assumption fails is assigned the other way instead, and a
+ * cube both of whose sides fail is dropped as unsatisfiable.
+ *
+ * Then the cubes are solved by CDCLSolvers, each given the cube as unit
+ * clauses, on a number of threads that take the next cube as they finish
+ * the last, so that a thread stuck on a hard cube does not hold up the
+ * others. A satisfiable cube gives a solution, and stops the solvers of the
+ * other cubes; the problem is unsatisfiable once every cube is.
+ */
+public class CubeSolver {
+    // cubes made per thread, so that threads finishing easy cubes early find
+    // more work
+    private static final int CUBES_PER_THREAD = 8;
+    // the variables looked ahead on at each split, of the highest
+    // Jeroslow-Wang weight
+    private static final int CANDIDATES = 20;
+
+    /**
+     * Solve the problem with as many threads as there are processors.
+     *
+     * @return an environment for which the problem evaluates to Bool.TRUE, or
+     *         null if no such environment exists.
+     */
+    public static Environment solve(Formula formula) {
+    	return solve(formula, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Solve the problem with a number of threads.
+     *
+     * @param threads The number of threads; at least 1.
+     * @return an environment for which the problem evaluates to Bool.TRUE, or
+     *         null if no such environment exists.
+     */
+    public static Environment solve(Formula formula, int threads) {
+    	CompiledFormula compiled = new CompiledFormula(formula);
+    	boolean[] values = solve(compiled, threads);
+    	return (values == null) ? null : compiled.toEnvironment(values);
+    }
+
+    /**
+     * Solve a compiled problem with a number of threads. One of them is the
+     * calling thread, and the others are all finished on return.
+     *
+     * @param threads The number of threads; at least 1.
+     * @return the value of each variable, indexed by id, in an assignment
+     *         that satisfies the problem, or null if there is none.
+     * @throws IllegalArgumentException if threads < 1.
+     * @throws IllegalStateException if the calling thread is interrupted, or
+     *         the solver of a cube fails, before a cube is found
+     *         satisfiable.
+     */
+    public static boolean[] solve(final CompiledFormula formula,
+    		int threads) {
+    	if (threads < 1) {
+    		throw new IllegalArgumentException("CubeSolver: " + threads +
+    				" threads");
+    	}
+    	final List<int[]> cubes = split(formula, threads * CUBES_PER_THREAD);
+    	final AtomicInteger next = new AtomicInteger(0);
+    	final AtomicInteger refuted = new AtomicInteger(0);
+    	final AtomicBoolean done = new AtomicBoolean(false);
+    	final boolean[][] solution = new boolean[1][];
+    	final AtomicReference<RuntimeException> failure =
+    			new AtomicReference<RuntimeException>();
+
+    	Thread[] workers = new Thread[Math.max(0,
+    			Math.min(threads, cubes.size()) - 1)];
+    	for (int i = 0; i < workers.length; i = i + 1) {
+    		workers[i] = new Thread(new Runnable() {
+    			public void run() {
+    				work(formula, cubes, next, refuted, done, solution,
+    						failure);
+    			}
+    		}, "CubeSolver-" + (i + 1));
+    		workers[i].start();
+    	}
+    	work(formula, cubes, next, refuted, done, solution, failure);
+    	boolean interrupted = false;
+    	for (Thread worker : workers) {
+    		while (true) {
+    			try {
+    				worker.join();
+    				break;
+    			} catch (InterruptedException e) {
+    				// stop the solvers, and still wait for them
+    				interrupted = true;
+    				done.set(true);
+    			}
+    		}
+    	}
+    	if (interrupted) {
+    		Thread.currentThread().interrupt();
+    	}
+
+    	if (solution[0] != null) {
+    		return solution[0];
+    	} else if (refuted.get() == cubes.size()) {
+    		return null;
+    	}
+    	throw new IllegalStateException("CubeSolver: not every cube solved",
+    			failure.get());
+    }
+
+    // Solves the cubes not taken yet by another thread, one at a time, until
+    // there are none left or done is set. The first satisfiable cube found
+    // sets done, and its assignment goes in solution[0]; each unsatisfiable
+    // cube adds 1 to refuted. A failure is recorded in failure, if it is the
+    // first.
+    private static void work(CompiledFormula formula, List<int[]> cubes,
+    		AtomicInteger next, AtomicInteger refuted, AtomicBoolean done,
+    		boolean[][] solution, AtomicReference<RuntimeException> failure) {
+    	try {
+    		int i = next.getAndIncrement();
+    		while ((i < cubes.size()) && !done.get()) {
+    			CDCLSolver solver = new CDCLSolver(
+    					formula.addUnits(cubes.get(i)), new SearchStatistics(),
+    					CDCLSolver.RESTART_UNIT, false, null, done, null, 0);
+    			Boolean result = solver.search();
+    			if (result == null) {
+    				return;
+    			} else if (!result) {
+    				refuted.incrementAndGet();
+    			} else if (done.compareAndSet(false, true)) {
+    				// visible to the calling thread once it joins this one
+    				solution[0] = solver.getValues();
+    				return;
+    			}
+    			i = next.getAndIncrement();
+    		}
+    	} catch (RuntimeException e) {
+    		failure.compareAndSet(null, e);
+    	}
+    }
+
+    /**
+     * Split a problem into cubes by lookahead.
+     *
+     * @param limit The number of cubes to aim for; the split goes
+     *        ceil(log2(limit)) decisions deep, unless a cube is solved or
+     *        refuted before.
+     * @return the cubes, as arrays of literal codes, such that every
+     *         assignment that satisfies the problem extends one of them; no
+     *         cube if the lookahead refutes the problem.
+     */
+    static List<int[]> split(CompiledFormula formula, int limit) {
+    	int depth = 0;
+    	while ((1 << depth) < limit) {
+    		depth = depth + 1;
+    	}
+    	SmallestClauseHeuristic heuristic = new SmallestClauseHeuristic();
+    	TrailSolver lookahead = new TrailSolver(formula, heuristic, false,
+    			new SearchStatistics());
+    	heuristic.start(lookahead);
+    	List<int[]> cubes = new ArrayList<int[]>();
+    	if (lookahead.propagateUnits()) {
+    		split(lookahead, new int[formula.getVariableCount()], 0, depth,
+    				cubes);
+    	}
+    	return cubes;
+    }
+
+    // Adds to cubes the cubes that extend cube[0 .. size - 1], which is
+    // assumed in lookahead, split depth decisions deeper.
+    private static void split(TrailSolver lookahead, int[] cube, int size,
+    		int depth, List<int[]> cubes) {
+    	if ((depth == 0) || lookahead.isSolved()) {
+    		cubes.add(Arrays.copyOf(cube, size));
+    		return;
+    	}
+    	int base = lookahead.getAssignedCount();
+    	int best = -1;
+    	long bestScore = -1;
+    	for (int v : candidates(lookahead)) {
+    		int[] implied = new int[2];
+    		for (int sign = 0; sign < 2; sign = sign + 1) {
+    			boolean consistent = lookahead.assume(2 * v + sign);
+    			implied[sign] = lookahead.getAssignedCount() - base;
+    			lookahead.retract();
+    			if (!consistent) {
+    				// a failed literal: its negation holds in every solution
+    				// that extends the cube
+    				int literal = (2 * v + sign) ^ 1;
+    				cube[size] = literal;
+    				if (lookahead.assume(literal)) {
+    					split(lookahead, cube, size + 1, depth, cubes);
+    				}
+    				lookahead.retract();
+    				return;
+    			}
+    		}
+    		// favour balanced splits, as march does
+    		long score = 1024L * implied[0] * implied[1] + implied[0] +
+    				implied[1];
+    		if (score > bestScore) {
+    			best = v;
+    			bestScore = score;
+    		}
+    	}
+    	for (int sign = 0; sign < 2; sign = sign + 1) {
+    		cube[size] = 2 * best + sign;
+    		if (lookahead.assume(2 * best + sign)) {
+    			split(lookahead, cube, size + 1, depth - 1, cubes);
+    		}
+    		lookahead.retract();
+    	}
+    }
+
+    // Returns up to CANDIDATES unassigned variables of unsatisfied clauses,
+    // those of highest two-sided Jeroslow-Wang weight first. Requires an
+    // unsatisfied clause.
+    private static int[] candidates(SolverState state) {
+    	double[] weights = new double[state.getVariableCount()];
+    	int count = 0;
+    	for (int c = 0; c < state.getClauseCount(); c = c + 1) {
+    		if (state.isSatisfied(c)) {
+    			continue;
+    		}
+    		double weight = Math.scalb(1.0, -state.getFreeCount(c));
+    		for (int i = 0; i < state.getClauseSize(c); i = i + 1) {
+    			int literal = state.getLiteral(c, i);
+    			if (state.getValue(literal) == 0) {
+    				int v = literal >> 1;
+    				if (weights[v] == 0) {
+    					count = count + 1;
+    				}
+    				weights[v] = weights[v] + weight;
+    			}
+    		}
+    	}
+    	// selection of the heaviest, fine for so few
+    	int[] chosen = new int[Math.min(CANDIDATES, count)];
+    	for (int k = 0; k < chosen.length; k = k + 1) {
+    		int max = -1;
+    		for (int v = 0; v < weights.length; v = v + 1) {
+    			if ((weights[v] > 0) &&
+    					((max == -1) || (weights[v] > weights[max]))) {
+    				max = v;
+    			}
+    		}
+    		chosen[k] = max;
+    		weights[max] = 0;
+    	}
+    	return chosen;
+    }
+}
@@ -0,0 +1,174 @@
+package sat;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import sat.env.Environment;
+import sat.formula.Clause;
+import sat.formula.CompiledFormula;
+import sat.formula.Formula;
+import sat.formula.Literal;
+import sat.formula.PosLiteral;
+import sudoku.Sudoku;
+
+public class CubeSolverTest {
+    // make sure assertions are turned on!
+    // we don't want to run test cases without assertions too.
+    // see the handout to find out how to turn them on.
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    @Test
+    public void testSolveRandomAgreesWithCDCLSolver() {
+    	Random random = new Random(25);
+    	for (int trial = 0; trial < 60; trial = trial + 1) {
+    		Formula f = CDCLSolverTest.randomFormula(random, 14, 60, 3);
+    		Environment expected = CDCLSolver.solve(f);
+    		for (int threads = 1; threads <= 4; threads = threads * 2) {
+    			Environment env = CubeSolver.solve(f, threads);
+    			assertEquals(expected == null, env == null);
+    			if (env != null) {
+    				assertTrue(CDCLSolverTest.satisfies(f, env));
+    			}
+    		}
+    	}
+    }
+
+    @Test
+    public void testPigeonholeRefutesEveryCube() {
+    	// the lookahead cannot refute 6 pigeons in 5 holes by itself, so
+    	// the problem is split, and each cube is refuted by a solver
+    	CompiledFormula f = new CompiledFormula(
+    			CDCLSolverTest.pigeonhole(6, 5));
+    	List<int[]> cubes = CubeSolver.split(f, 16);
+    	assertTrue(cubes.size() > 1);
+    	assertTrue(cubes.size() <= 16);
+    	for (int[] cube : cubes) {
+    		CDCLSolver solver = new CDCLSolver(f.addUnits(cube),
+    				new SearchStatistics(), CDCLSolver.RESTART_UNIT, false,
+    				null, new AtomicBoolean(false), null, 0);
+    		assertEquals(Boolean.FALSE, solver.search());
+    	}
+    	assertNull(CubeSolver.solve(f, 4));
+    }
+
+    @Test
+    public void testSplitAssignsFailedLiteral() {
+    	// a is true in every solution, though no clause says so alone:
+    	// assuming it false fails, so every cube assigns it true
+    	Literal a = PosLiteral.make("a");
+    	Literal b = PosLiteral.make("b");
+    	Literal c = PosLiteral.make("c");
+    	Literal d = PosLiteral.make("d");
+    	Formula f = new Formula()
+    			.addClause(new Clause(a).add(b))
+    			.addClause(new Clause(a).add(b.getNegation()))
+    			.addClause(new Clause(c).add(d))
+    			.addClause(new Clause(c.getNegation()).add(d.getNegation()));
+    	CompiledFormula compiled = new CompiledFormula(f);
+    	int literal = CompiledFormula.encode(
+    			compiled.getId(a.getVariable()), false);
+    	List<int[]> cubes = CubeSolver.split(compiled, 4);
+    	assertFalse(cubes.isEmpty());
+    	for (int[] cube : cubes) {
+    		boolean assigned = false;
+    		for (int l : cube) {
+    			if (l == literal) {
+    				assigned = true;
+    			}
+    		}
+    		assertTrue(assigned);
+    	}
+    }
+
+    @Test
+    public void testSplitCoversSolutions() {
+    	// every solution extends exactly one cube, found by enumerating all
+    	// assignments of small formulas
+    	Random random = new Random(8);
+    	int vars = 10;
+    	for (int trial = 0; trial < 20; trial = trial + 1) {
+    		CompiledFormula f = new CompiledFormula(
+    				CDCLSolverTest.randomFormula(random, vars, 30, 3));
+    		List<int[]> cubes = CubeSolver.split(f, 8);
+    		assertTrue(cubes.size() <= 8);
+    		int n = f.getVariableCount();
+    		for (int bits = 0; bits < (1 << n); bits = bits + 1) {
+    			if (!satisfies(f, bits)) {
+    				continue;
+    			}
+    			int extended = 0;
+    			for (int[] cube : cubes) {
+    				boolean consistent = true;
+    				for (int literal : cube) {
+    					boolean value = ((bits >> (literal >> 1)) & 1) == 1;
+    					if (value == CompiledFormula.isNegative(literal)) {
+    						consistent = false;
+    					}
+    				}
+    				if (consistent) {
+    					extended = extended + 1;
+    				}
+    			}
+    			assertEquals(1, extended);
+    		}
+    	}
+    }
+
+    @Test
+    public void testSplitTrivial() {
+    	// refuted by propagation: no cubes
+    	CompiledFormula empty = new CompiledFormula(new Formula(new Clause()));
+    	assertTrue(CubeSolver.split(empty, 8).isEmpty());
+    	assertNull(CubeSolver.solve(new Formula(new Clause()), 2));
+    	// solved without a decision, or asked for one cube: one empty cube
+    	List<int[]> cubes = CubeSolver.split(
+    			new CompiledFormula(new Formula()), 8);
+    	assertEquals(1, cubes.size());
+    	assertEquals(0, cubes.get(0).length);
+    	assertNotNull(CubeSolver.solve(new Formula(), 2));
+    	cubes = CubeSolver.split(
+    			new CompiledFormula(CDCLSolverTest.pigeonhole(6, 5)), 1);
+    	assertEquals(1, cubes.size());
+    	assertEquals(0, cubes.get(0).length);
+    }
+
+    @Test
+    public void testSolveEmptySudoku() {
+    	// an empty puzzle has many solutions in many cubes; the first found
+    	// stops the others
+    	Formula f = new Sudoku(3).getProblem();
+    	assertTrue(CubeSolver.split(new CompiledFormula(f), 8).size() > 1);
+    	assertTrue(CDCLSolverTest.satisfies(f, CubeSolver.solve(f, 2)));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSolveNoThreads() {
+    	CubeSolver.solve(new Formula(), 0);
+    }
+
+    // @return true iff the assignment of bit v of bits to each variable v
+    //         satisfies f
+    private static boolean satisfies(CompiledFormula f, int bits) {
+    	for (int c = 0; c < f.getClauseCount(); c = c + 1) {
+    		boolean satisfied = false;
+    		for (int literal : f.getClause(c)) {
+    			boolean value = ((bits >> (literal >> 1)) & 1) == 1;
+    			if (value != CompiledFormula.isNegative(literal)) {
+    				satisfied = true;
+    			}
+    		}
+    		if (!satisfied) {
+    			return false;
+    		}
+    	}
+    	return true;
+    }
+}
@@ -0,0 +1,56 @@
+package sat;
+
+/**
+ * The two-sided Jeroslow-Wang rule: literal l weighs J(l), the sum over the
+ * unsatisfied clauses that contain it of 2^-n, where n is the number of
+ * unassigned literals of the clause, so that short clauses count most.
+ * Branch on the variable x with the greatest J(x) + J(~x), with the sign
+ * of greater weight.
+ *
+ * Each choice scans all the clauses.
+ */
+public class JeroslowWangHeuristic implements BranchingHeuristic {
+    private SolverState state;
+    // weights of the literals, cleared after each choice
+    private double[] weights;
+
+    public void start(SolverState state) {
+    	this.state = state;
+    	this.weights = new double[2 * state.getVariableCount()];
+    }
+
+    public int choose() {
+    	for (int c = 0; c < state.getClauseCount(); c = c + 1) {
+    		if (!state.isSatisfied(c)) {
+    			double weight = Math.scalb(1.0, -state.getFreeCount(c));
+    			for (int i = 0; i < state.getClauseSize(c); i = i + 1) {
+    				int literal = state.getLiteral(c, i);
+    				if (state.getValue(literal) == 0) {
+    					weights[literal] = weights[literal] + weight;
+    				}
+    			}
+    		}
+    	}
+    	int best = -1;
+    	double bestWeight = 0;
+    	for (int v = 0; v < state.getVariableCount(); v = v + 1) {
+    		double weight = weights[2 * v] + weights[2 * v + 1];
+    		if (weight > bestWeight) {
+    			bestWeight = weight;
+    			best = (weights[2 * v] >= weights[2 * v + 1]) ? 2 * v : 2 * v + 1;
+    		}
+    		weights[2 * v] = 0;
+    		weights[2 * v + 1] = 0;
+    	}
+    	return best;
+    }
+
+    public void assigned(int literal) {
+    }
+
+    public void unassigned(int literal) {
+    }
+
+    public void conflict(int c) {
+    }
+}
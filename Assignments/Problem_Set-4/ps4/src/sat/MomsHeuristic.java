@@ -0,0 +1,64 @@
+package sat;
+
+/**
+ * The MOMS rule (Maximum Occurrences in clauses of Minimum Size): among the
+ * unsatisfied clauses with the fewest unassigned literals, branch on the
+ * variable that occurs in most of them, preferring one that occurs in both
+ * signs, with the sign that occurs more often.
+ *
+ * With f(l) the number of those clauses that contain literal l, variable x
+ * scores (f(x) + f(~x)) * 2^SCALE + f(x) * f(~x), as in Freeman's POSIT.
+ * Each choice scans all the clauses.
+ */
+public class MomsHeuristic implements BranchingHeuristic {
+    private static final int SCALE = 10;
+
+    private SolverState state;
+    // occurrence counts of the literals, cleared after each choice
+    private int[] counts;
+
+    public void start(SolverState state) {
+    	this.state = state;
+    	this.counts = new int[2 * state.getVariableCount()];
+    }
+
+    public int choose() {
+    	int size = state.getFreeCount(state.getSmallestClause());
+    	for (int c = 0; c < state.getClauseCount(); c = c + 1) {
+    		if (!state.isSatisfied(c) && (state.getFreeCount(c) == size)) {
+    			for (int i = 0; i < state.getClauseSize(c); i = i + 1) {
+    				int literal = state.getLiteral(c, i);
+    				if (state.getValue(literal) == 0) {
+    					counts[literal] = counts[literal] + 1;
+    				}
+    			}
+    		}
+    	}
+    	int best = -1;
+    	long bestScore = -1;
+    	for (int v = 0; v < state.getVariableCount(); v = v + 1) {
+    		long positive = counts[2 * v];
+    		long negative = counts[2 * v + 1];
+    		if (positive + negative > 0) {
+    			long score = ((positive + negative) << SCALE) +
+    					positive * negative;
+    			if (score > bestScore) {
+    				bestScore = score;
+    				best = (positive >= negative) ? 2 * v : 2 * v + 1;
+    			}
+    			counts[2 * v] = 0;
+    			counts[2 * v + 1] = 0;
+    		}
+    	}
+    	return best;
+    }
+
+    public void assigned(int literal) {
+    }
+
+    public void unassigned(int literal) {
+    }
+
+    public void conflict(int c) {
+    }
+}
@@ -0,0 +1,147 @@
+package sat;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import sat.env.Environment;
+import sat.formula.CompiledFormula;
+import sat.formula.Formula;
+
+/**
+ * A portfolio SAT solver, with the same contract as SATSolver.solve: it runs
+ * several differently configured CDCLSolvers on the same problem, one per
+ * thread, and answers with the first of them to finish. The others are then
+ * stopped: each polls a shared flag between its steps.
+ *
+ * The solvers differ in restart unit, in the sign they try first, and in a
+ * seed for random decisions; solver 0 is configured as CDCLSolver.solve is.
+ * The solvers share the learned clauses of at most a few literals through a
+ * lock-free ClauseExchange, and read those of the others at each restart.
+ */
+public class PortfolioSolver {
+    // the number of shared clauses kept for the solvers to read
+    private static final int EXCHANGE_CAPACITY = 4096;
+    // the restart unit of solver i, as a factor of CDCLSolver's, is
+    // RESTART_FACTORS[i % RESTART_FACTORS.length]
+    private static final double[] RESTART_FACTORS = {1, 0.5, 2, 4};
+
+    /**
+     * Solve the problem with as many solvers as there are processors.
+     *
+     * @return an environment for which the problem evaluates to Bool.TRUE, or
+     *         null if no such environment exists.
+     */
+    public static Environment solve(Formula formula) {
+    	return solve(formula, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Solve the problem with a number of solvers.
+     *
+     * @param threads The number of solvers, each on its own thread; at
+     *        least 1.
+     * @return an environment for which the problem evaluates to Bool.TRUE, or
+     *         null if no such environment exists.
+     */
+    public static Environment solve(Formula formula, int threads) {
+    	CompiledFormula compiled = new CompiledFormula(formula);
+    	boolean[] values = solve(compiled, threads, null);
+    	return (values == null) ? null : compiled.toEnvironment(values);
+    }
+
+    /**
+     * Solve a compiled problem with a number of solvers. One of them runs on
+     * the calling thread, and the others on threads of their own, which are
+     * all finished on return.
+     *
+     * @param threads The number of solvers; at least 1.
+     * @param statistics If not null, the statistics to add the counts of the
+     *        search of the first solver to finish to.
+     * @return the value of each variable, indexed by id, in an assignment
+     *         that satisfies the problem, or null if there is none.
+     * @throws IllegalArgumentException if threads < 1.
+     * @throws IllegalStateException if the calling thread is interrupted, or
+     *         every solver fails, before one of them finishes.
+     */
+    public static boolean[] solve(CompiledFormula formula, int threads,
+    		SearchStatistics statistics) {
+    	if (threads < 1) {
+    		throw new IllegalArgumentException("PortfolioSolver: " + threads +
+    				" threads");
+    	}
+    	final AtomicBoolean done = new AtomicBoolean(false);
+    	final ClauseExchange exchange = (threads == 1) ? null
+    			: new ClauseExchange(EXCHANGE_CAPACITY);
+    	final CDCLSolver[] solvers = new CDCLSolver[threads];
+    	final SearchStatistics[] counts = new SearchStatistics[threads];
+    	final Boolean[] results = new Boolean[threads];
+    	final AtomicReference<RuntimeException> failure =
+    			new AtomicReference<RuntimeException>();
+    	for (int i = 0; i < threads; i = i + 1) {
+    		counts[i] = new SearchStatistics();
+    		solvers[i] = new CDCLSolver(formula, counts[i],
+    				(int) Math.max(1, CDCLSolver.RESTART_UNIT *
+    						RESTART_FACTORS[i % RESTART_FACTORS.length]),
+    				i % 2 == 1, (i == 0) ? null : new Random(i), done,
+    				exchange, i);
+    	}
+
+    	Thread[] workers = new Thread[threads - 1];
+    	for (int i = 1; i < threads; i = i + 1) {
+    		final int id = i;
+    		workers[i - 1] = new Thread(new Runnable() {
+    			public void run() {
+    				work(solvers[id], id, done, results, failure);
+    			}
+    		}, "PortfolioSolver-" + i);
+    		workers[i - 1].start();
+    	}
+    	work(solvers[0], 0, done, results, failure);
+    	boolean interrupted = false;
+    	for (Thread worker : workers) {
+    		while (true) {
+    			try {
+    				worker.join();
+    				break;
+    			} catch (InterruptedException e) {
+    				// stop the solvers, and still wait for them
+    				interrupted = true;
+    				done.set(true);
+    			}
+    		}
+    	}
+    	if (interrupted) {
+    		Thread.currentThread().interrupt();
+    	}
+
+    	// only the first solver to finish has a result: the others were
+    	// stopped, or lost the race to claim the answer
+    	for (int i = 0; i < threads; i = i + 1) {
+    		if (results[i] != null) {
+    			if (statistics != null) {
+    				statistics.add(counts[i]);
+    			}
+    			return results[i] ? solvers[i].getValues() : null;
+    		}
+    	}
+    	throw new IllegalStateException("PortfolioSolver: no solver finished",
+    			failure.get());
+    }
+
+    // Runs solver number id, and if it finishes first, records its result in
+    // results[id] and stops the others; a failure is recorded in failure,
+    // if it is the first.
+    private static void work(CDCLSolver solver, int id, AtomicBoolean done,
+    		Boolean[] results, AtomicReference<RuntimeException> failure) {
+    	try {
+    		Boolean result = solver.search();
+    		if ((result != null) && done.compareAndSet(false, true)) {
+    			// visible to the calling thread once it joins this one
+    			results[id] = result;
+    		}
+    	} catch (RuntimeException e) {
+    		failure.compareAndSet(null, e);
+    	}
+    }
+}
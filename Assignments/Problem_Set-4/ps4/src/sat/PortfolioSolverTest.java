@@ -0,0 +1,150 @@
+package sat;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import sat.env.Environment;
+import sat.formula.CompiledFormula;
+import sat.formula.Formula;
+import sudoku.Sudoku;
+import sudoku.Sudoku.ParseException;
+
+public class PortfolioSolverTest {
+    // make sure assertions are turned on!
+    // we don't want to run test cases without assertions too.
+    // see the handout to find out how to turn them on.
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    @Test
+    public void testSolveRandomAgreesWithSATSolver() {
+    	Random random = new Random(24);
+    	for (int trial = 0; trial < 60; trial = trial + 1) {
+    		Formula f = CDCLSolverTest.randomFormula(random, 14, 60, 3);
+    		Environment expected = SATSolver.solve(f);
+    		for (int threads = 1; threads <= 4; threads = threads * 2) {
+    			Environment env = PortfolioSolver.solve(f, threads);
+    			assertEquals(expected == null, env == null);
+    			if (env != null) {
+    				assertTrue(CDCLSolverTest.satisfies(f, env));
+    			}
+    		}
+    	}
+    }
+
+    @Test
+    public void testSolveLargeRandom() {
+    	// enough conflicts for restarts, so for clauses to be exchanged
+    	Random random = new Random(2);
+    	for (int trial = 0; trial < 6; trial = trial + 1) {
+    		Formula f = CDCLSolverTest.randomFormula(random, 150, 640, 3);
+    		Environment expected = CDCLSolver.solve(f);
+    		Environment env = PortfolioSolver.solve(f, 4);
+    		assertEquals(expected == null, env == null);
+    		if (env != null) {
+    			assertTrue(CDCLSolverTest.satisfies(f, env));
+    		}
+    	}
+    }
+
+    @Test
+    public void testSolvePigeonhole() {
+    	// 6 pigeons do not fit in 5 holes
+    	SearchStatistics statistics = new SearchStatistics();
+    	assertNull(PortfolioSolver.solve(
+    			new CompiledFormula(CDCLSolverTest.pigeonhole(6, 5)), 4,
+    			statistics));
+    	assertTrue(statistics.getConflicts() > 0);
+    }
+
+    @Test
+    public void testSolveSudokus() throws IOException, ParseException {
+    	String[] files = {"samples/sudoku_hard.txt", "samples/sudoku_evil.txt"};
+    	for (String file : files) {
+    		Formula f = Sudoku.fromFile(3, file).getProblem();
+    		assertTrue(file, CDCLSolverTest.satisfies(f,
+    				PortfolioSolver.solve(f, 3)));
+    	}
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSolveNoThreads() {
+    	PortfolioSolver.solve(new Formula(), 0);
+    }
+
+    @Test
+    public void testStop() {
+    	// a solver whose stop flag is set gives up without an answer
+    	CompiledFormula f = new CompiledFormula(
+    			CDCLSolverTest.randomFormula(new Random(3), 50, 100, 3));
+    	CDCLSolver solver = new CDCLSolver(f, new SearchStatistics(),
+    			CDCLSolver.RESTART_UNIT, false, null, new AtomicBoolean(true),
+    			null, 0);
+    	assertNull(solver.search());
+    }
+
+    @Test
+    public void testExchange() {
+    	ClauseExchange exchange = new ClauseExchange(4);
+    	assertEquals(0, exchange.getPosition());
+    	exchange.publish(0, new int[] {2, 5, 7}, 2);
+    	exchange.publish(1, new int[] {9}, 1);
+    	assertEquals(2, exchange.getPosition());
+    	// a solver does not read its own clauses
+    	assertNull(exchange.get(0, 0));
+    	assertArrayEquals(new int[] {2, 5}, exchange.get(0, 1));
+    	assertArrayEquals(new int[] {9}, exchange.get(1, 0));
+    	assertNull(exchange.get(1, 1));
+    }
+
+    @Test
+    public void testExchangeOverwrites() {
+    	ClauseExchange exchange = new ClauseExchange(2);
+    	for (int i = 0; i < 5; i = i + 1) {
+    		exchange.publish(0, new int[] {i}, 1);
+    	}
+    	// only the last two are kept
+    	assertNull(exchange.get(2, 1));
+    	assertArrayEquals(new int[] {3}, exchange.get(3, 1));
+    	assertArrayEquals(new int[] {4}, exchange.get(4, 1));
+    }
+
+    @Test
+    public void testExchangeConcurrent() throws InterruptedException {
+    	// clauses published from several threads at once all arrive, whole
+    	final ClauseExchange exchange = new ClauseExchange(4000);
+    	Thread[] threads = new Thread[4];
+    	for (int t = 0; t < threads.length; t = t + 1) {
+    		final int source = t;
+    		threads[t] = new Thread(new Runnable() {
+    			public void run() {
+    				for (int i = 0; i < 1000; i = i + 1) {
+    					exchange.publish(source, new int[] {source, i, i}, 3);
+    				}
+    			}
+    		});
+    		threads[t].start();
+    	}
+    	for (Thread thread : threads) {
+    		thread.join();
+    	}
+    	assertEquals(4000, exchange.getPosition());
+    	int[] received = new int[threads.length];
+    	for (int p = 0; p < 4000; p = p + 1) {
+    		int[] clause = exchange.get(p, -1);
+    		assertEquals(3, clause.length);
+    		assertEquals(clause[1], clause[2]);
+    		received[clause[0]] = received[clause[0]] + 1;
+    	}
+    	for (int t = 0; t < threads.length; t = t + 1) {
+    		assertEquals(1000, received[t]);
+    	}
+    }
+}
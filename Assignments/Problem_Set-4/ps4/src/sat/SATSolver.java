@@ -29,6 +29,31 @@ public class SATSolver {
 		return solve (clauses, new Environment());
 	}
 
+    /**
+     * Solve the problem in parallel, on as many threads as there are
+     * processors, by cube and conquer: a lookahead splits the problem into
+     * partial assignments, which are then solved concurrently. See
+     * CubeSolver.
+     *
+     * @return an environment for which the problem evaluates to Bool.TRUE, or
+     *         null if no such environment exists.
+     */
+    public static Environment solveParallel(Formula formula) {
+    	return CubeSolver.solve(formula);
+    }
+
+    /**
+     * Solve the problem in parallel by cube and conquer, on a number of
+     * threads. See CubeSolver.
+     *
+     * @param threads The number of threads; at least 1.
+     * @return an environment for which the problem evaluates to Bool.TRUE, or
+     *         null if no such environment exists.
+     */
+    public static Environment solveParallel(Formula formula, int threads) {
+    	return CubeSolver.solve(formula, threads);
+    }
+
     /**
      * Takes a partial assignment of variables to values, and recursively
      * searches for a complete satisfying assignment.
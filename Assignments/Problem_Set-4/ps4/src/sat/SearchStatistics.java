@@ -0,0 +1,59 @@
+package sat;
+
+/**
+ * SearchStatistics count the work of a search, for comparing solvers and
+ * branching heuristics. A solver given a SearchStatistics adds to its counts.
+ *
+ * SearchStatistics are mutable, and not safe for use by multiple threads.
+ */
+public class SearchStatistics {
+    private long decisions = 0;
+    private long conflicts = 0;
+    private long propagations = 0;
+
+    /**
+     * @return the number of decisions: literals assigned by branching,
+     *         including the second branch of a DPLL decision.
+     */
+    public long getDecisions() {
+    	return decisions;
+    }
+
+    /**
+     * @return the number of times a clause had all its literals false.
+     */
+    public long getConflicts() {
+    	return conflicts;
+    }
+
+    /**
+     * @return the number of literals assigned by propagation, rather than
+     *         by branching.
+     */
+    public long getPropagations() {
+    	return propagations;
+    }
+
+    void addDecision() {
+    	decisions = decisions + 1;
+    }
+
+    void addConflict() {
+    	conflicts = conflicts + 1;
+    }
+
+    void addPropagation() {
+    	propagations = propagations + 1;
+    }
+
+    void add(SearchStatistics other) {
+    	decisions = decisions + other.decisions;
+    	conflicts = conflicts + other.conflicts;
+    	propagations = propagations + other.propagations;
+    }
+
+    public String toString() {
+    	return "decisions:" + decisions + ", conflicts:" + conflicts +
+    			", propagations:" + propagations;
+    }
+}
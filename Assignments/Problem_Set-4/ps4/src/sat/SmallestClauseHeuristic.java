@@ -0,0 +1,33 @@
+package sat;
+
+/**
+ * The branching rule of SATSolver: the first unassigned variable of the
+ * first smallest unsatisfied clause, tried true first.
+ */
+public class SmallestClauseHeuristic implements BranchingHeuristic {
+    private SolverState state;
+
+    public void start(SolverState state) {
+    	this.state = state;
+    }
+
+    public int choose() {
+    	int c = state.getSmallestClause();
+    	for (int i = 0; i < state.getClauseSize(c); i = i + 1) {
+    		int literal = state.getLiteral(c, i);
+    		if (state.getValue(literal) == 0) {
+    			return literal & ~1;
+    		}
+    	}
+    	throw new IllegalStateException("SmallestClauseHeuristic: no free literal");
+    }
+
+    public void assigned(int literal) {
+    }
+
+    public void unassigned(int literal) {
+    }
+
+    public void conflict(int c) {
+    }
+}
@@ -0,0 +1,60 @@
+package sat;
+
+/**
+ * A SolverState is a read-only view of a solver in the middle of a search,
+ * through which a BranchingHeuristic inspects the clauses and the current
+ * partial assignment.
+ *
+ * Variables and literals are numbered as in CompiledFormula: literal 2 * v
+ * is variable v, and 2 * v + 1 its negation.
+ */
+public interface SolverState {
+    /**
+     * @return the number of variables, numbered 0 to getVariableCount() - 1.
+     */
+    public int getVariableCount();
+
+    /**
+     * @return the number of clauses, numbered 0 to getClauseCount() - 1.
+     */
+    public int getClauseCount();
+
+    /**
+     * @param literal The code of a literal.
+     * @return 1 if the literal is true, -1 if it is false, and 0 if its
+     *         variable is unassigned.
+     */
+    public int getValue(int literal);
+
+    /**
+     * @param c The index of a clause.
+     * @return the number of literals of clause c.
+     */
+    public int getClauseSize(int c);
+
+    /**
+     * @param c The index of a clause.
+     * @param i The index of a literal in the clause, between 0 and
+     *        getClauseSize(c) - 1.
+     * @return the code of the i-th literal of clause c.
+     */
+    public int getLiteral(int c, int i);
+
+    /**
+     * @param c The index of a clause.
+     * @return true iff some literal of clause c is true.
+     */
+    public boolean isSatisfied(int c);
+
+    /**
+     * @param c The index of a clause.
+     * @return the number of unassigned literals of clause c.
+     */
+    public int getFreeCount(int c);
+
+    /**
+     * @return the index of the first unsatisfied clause with the fewest
+     *         unassigned literals, or -1 if all clauses are satisfied.
+     */
+    public int getSmallestClause();
+}
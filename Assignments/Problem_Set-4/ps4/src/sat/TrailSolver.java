@@ -0,0 +1,525 @@
+package sat;
+
+import sat.env.Environment;
+import sat.formula.CompiledFormula;
+import sat.formula.Formula;
+
+/**
+ * A DPLL SAT solver that searches like SATSolver, branching by default on a
+ * smallest clause, but assigns variables in place rather than substituting
+ * them into a new formula. Other branching rules can be plugged in as a
+ * BranchingHeuristic, which sees the solver as a SolverState.
+ *
+ * SATSolver copies every clause into a new list at each decision and each
+ * unit propagation, so it allocates memory in proportion to the depth of the
+ * search times the size of the formula. TrailSolver keeps one clause
+ * database, in which each clause counts its true and its unassigned
+ * literals, and a trail of the literals assigned. Assigning a literal updates
+ * only the clauses that contain it or its negation, found through occurrence
+ * lists, and backtracking undoes the assignments of the trail in reverse.
+ * Apart from its arrays, which are allocated once, a solve allocates nothing.
+ *
+ * A clause whose unassigned literals drop to one is queued as it does, and
+ * the first whose literals are all false (a conflict) is recorded, so that
+ * propagation finds each in constant time, and backtracking has nothing to
+ * undo for them. A smallest clause to branch on is found by scanning the
+ * clauses in the order of the formula, which takes time linear in their
+ * number once per decision; after propagation no unsatisfied clause has
+ * fewer than two unassigned literals, so the scan stops at the first that
+ * has two. Branching on the first smallest clause matters: branching on
+ * whichever clause shrank last makes a much larger search, an empty 9x9
+ * Sudoku taking over a minute rather than a second. Keeping the clauses in
+ * buckets by size would find it without a scan, but moving clauses between
+ * buckets at every assignment and its undoing costs more than the scan.
+ *
+ * Optionally, each literal also counts the unsatisfied clauses it occurs in,
+ * so that a pure literal, whose negation occurs in none, is found as soon as
+ * it becomes pure, and assigned: this cannot make a satisfiable formula
+ * unsatisfiable. The counts cost an update per literal of every clause that
+ * is satisfied or unsatisfied, which about doubles the time of each
+ * assignment, so this is off by default: Sudoku encodings have no pure
+ * literals, and on random formulas they save few decisions.
+ *
+ * For CubeSolver, a solver can also be driven from outside, as a lookahead:
+ * it assumes literals one level at a time, propagating each, and retracts
+ * them.
+ */
+public class TrailSolver implements SolverState {
+    /**
+     * Solve the problem using DPLL with backtracking and unit propagation.
+     * The returned environment binds every variable of the formula; those
+     * that the search never had to assign are bound to Bool.FALSE.
+     *
+     * @return an environment for which the problem evaluates to Bool.TRUE, or
+     *         null if no such environment exists.
+     */
+    public static Environment solve(Formula formula) {
+    	return solve(formula, false);
+    }
+
+    /**
+     * Solve the problem using DPLL with backtracking, unit propagation and,
+     * if eliminatePures, pure literal elimination. The returned environment
+     * binds every variable of the formula; those that the search never had
+     * to assign are bound to Bool.FALSE.
+     *
+     * @return an environment for which the problem evaluates to Bool.TRUE, or
+     *         null if no such environment exists.
+     */
+    public static Environment solve(Formula formula, boolean eliminatePures) {
+    	CompiledFormula compiled = new CompiledFormula(formula);
+    	boolean[] values = solve(compiled, eliminatePures);
+    	return (values == null) ? null : compiled.toEnvironment(values);
+    }
+
+    /**
+     * Solve the problem using DPLL with backtracking and unit propagation,
+     * branching as heuristic chooses. The returned environment binds every
+     * variable of the formula; those that the search never had to assign
+     * are bound to Bool.FALSE.
+     *
+     * @param heuristic A heuristic not used by any other search.
+     * @return an environment for which the problem evaluates to Bool.TRUE, or
+     *         null if no such environment exists.
+     */
+    public static Environment solve(Formula formula,
+    		BranchingHeuristic heuristic) {
+    	CompiledFormula compiled = new CompiledFormula(formula);
+    	boolean[] values = solve(compiled, heuristic, false, null);
+    	return (values == null) ? null : compiled.toEnvironment(values);
+    }
+
+    /**
+     * Solve a compiled problem using DPLL with backtracking and unit
+     * propagation.
+     *
+     * @return the value of each variable, indexed by id, in an assignment
+     *         that satisfies the problem, or null if there is none.
+     */
+    public static boolean[] solve(CompiledFormula formula) {
+    	return solve(formula, false);
+    }
+
+    /**
+     * Solve a compiled problem using DPLL with backtracking, unit propagation
+     * and, if eliminatePures, pure literal elimination.
+     *
+     * @return the value of each variable, indexed by id, in an assignment
+     *         that satisfies the problem, or null if there is none.
+     */
+    public static boolean[] solve(CompiledFormula formula,
+    		boolean eliminatePures) {
+    	return solve(formula, new SmallestClauseHeuristic(), eliminatePures,
+    			null);
+    }
+
+    /**
+     * Solve a compiled problem using DPLL with backtracking, unit propagation
+     * and, if eliminatePures, pure literal elimination, branching as
+     * heuristic chooses.
+     *
+     * @param heuristic A heuristic not used by any other search.
+     * @param statistics If not null, the statistics to add the counts of
+     *        this search to.
+     * @return the value of each variable, indexed by id, in an assignment
+     *         that satisfies the problem, or null if there is none.
+     */
+    public static boolean[] solve(CompiledFormula formula,
+    		BranchingHeuristic heuristic, boolean eliminatePures,
+    		SearchStatistics statistics) {
+    	if (statistics == null) {
+    		statistics = new SearchStatistics();
+    	}
+    	TrailSolver solver = new TrailSolver(formula, heuristic,
+    			eliminatePures, statistics);
+    	heuristic.start(solver);
+    	if (!solver.search()) {
+    		return null;
+    	}
+    	boolean[] values = new boolean[solver.vars];
+    	for (int v = 0; v < solver.vars; v = v + 1) {
+    		values[v] = solver.values[2 * v] == TRUE;
+    	}
+    	return values;
+    }
+
+    // values of literals
+    private static final byte TRUE = 1;
+    private static final byte FALSE = -1;
+    private static final byte UNASSIGNED = 0;
+
+    /*
+     * Rep invariant:
+     *     literals are CompiledFormula codes; values[l] == -values[l ^ 1]
+     *     the literals of clause c are literals[starts[c] .. starts[c + 1] - 1]
+     *     the clauses that contain literal l are occurrences[occurrenceStarts[l]
+     *     .. occurrenceStarts[l + 1] - 1]
+     *     trueCounts[c] and freeCounts[c] are the numbers of true and of
+     *     unassigned literals of clause c; satisfied is the number of
+     *     clauses c with trueCounts[c] > 0
+     *     units[unitHead .. unitTail - 1] are clauses that became unit since
+     *     the last propagation, and conflict is the first clause that had
+     *     all its literals false since then, or -1 if none did
+     *     if eliminatePures, activeCounts[l] is the number of unsatisfied
+     *     clauses that contain l, pures[0 .. pureCount - 1] are the literals
+     *     that may have become pure since the last propagation, and
+     *     pureQueued[l] is true iff l is one
+     *     trail[0 .. trailSize - 1] are the true literals, in the order they
+     *     were assigned; decision level d + 1 begins at trailLimits[d], with
+     *     the decision literal, and flipped[d] is true iff that literal is
+     *     the negation of the one first decided at that level
+     */
+    private final int vars;
+    private final int clauseCount;
+    private final int[] literals;
+    private final int[] starts;
+    private final int[] occurrences;
+    private final int[] occurrenceStarts;
+    private final int[] trueCounts;
+    private final int[] freeCounts;
+    private int satisfied = 0;
+
+    private final BranchingHeuristic heuristic;
+    private final SearchStatistics statistics;
+    private final boolean eliminatePures;
+    private final int[] units;
+    private int unitHead = 0;
+    private int unitTail = 0;
+    private int conflict = -1;
+    private final int[] activeCounts;
+    private final int[] pures;
+    private int pureCount = 0;
+    private final boolean[] pureQueued;
+
+    private final byte[] values;
+    private final int[] trail;
+    private int trailSize = 0;
+    private final int[] trailLimits;
+    private final boolean[] flipped;
+    private int level = 0;
+
+    // Creates a solver for the clauses of formula, with no variable assigned.
+    TrailSolver(CompiledFormula formula, BranchingHeuristic heuristic,
+    		boolean eliminatePures, SearchStatistics statistics) {
+    	this.heuristic = heuristic;
+    	this.statistics = statistics;
+    	this.eliminatePures = eliminatePures;
+    	this.vars = formula.getVariableCount();
+    	this.clauseCount = formula.getClauseCount();
+    	this.literals = formula.getLiterals();
+    	this.starts = formula.getClauseStarts();
+    	this.trueCounts = new int[clauseCount];
+    	this.freeCounts = new int[clauseCount];
+
+    	// occurrence lists, by a counting sort of the literals on their codes
+    	this.occurrenceStarts = new int[2 * vars + 1];
+    	for (int i = 0; i < literals.length; i = i + 1) {
+    		occurrenceStarts[literals[i] + 1] = occurrenceStarts[literals[i] + 1] + 1;
+    	}
+    	for (int l = 0; l < 2 * vars; l = l + 1) {
+    		occurrenceStarts[l + 1] = occurrenceStarts[l + 1] + occurrenceStarts[l];
+    	}
+    	this.occurrences = new int[literals.length];
+    	int[] next = new int[2 * vars];
+    	System.arraycopy(occurrenceStarts, 0, next, 0, 2 * vars);
+    	for (int c = 0; c < clauseCount; c = c + 1) {
+    		freeCounts[c] = starts[c + 1] - starts[c];
+    		for (int i = starts[c]; i < starts[c + 1]; i = i + 1) {
+    			occurrences[next[literals[i]]] = c;
+    			next[literals[i]] = next[literals[i]] + 1;
+    		}
+    	}
+
+    	this.units = new int[clauseCount];
+    	for (int c = 0; c < clauseCount; c = c + 1) {
+    		if ((freeCounts[c] == 0) && (conflict == -1)) {
+    			conflict = c;
+    		} else if (freeCounts[c] == 1) {
+    			units[unitTail] = c;
+    			unitTail = unitTail + 1;
+    		}
+    	}
+    	this.activeCounts = new int[2 * vars];
+    	this.pures = new int[2 * vars];
+    	this.pureQueued = new boolean[2 * vars];
+    	for (int l = 0; l < 2 * vars; l = l + 1) {
+    		activeCounts[l] = occurrenceStarts[l + 1] - occurrenceStarts[l];
+    	}
+    	for (int l = 0; l < 2 * vars; l = l + 1) {
+    		if (eliminatePures && (activeCounts[l ^ 1] == 0)) {
+    			queuePure(l);
+    		}
+    	}
+
+    	this.values = new byte[2 * vars];
+    	this.trail = new int[vars];
+    	this.trailLimits = new int[vars];
+    	this.flipped = new boolean[vars];
+    }
+
+    // Returns true if the clauses are satisfiable, with a satisfying
+    // assignment in values, and false otherwise.
+    private boolean search() {
+    	while (true) {
+    		if (!propagate()) {
+    			// undo to the last decision whose negation is untried, and
+    			// try it
+    			int literal = -1;
+    			while (literal == -1) {
+    				if (level == 0) {
+    					return false;
+    				}
+    				int decision = trail[trailLimits[level - 1]];
+    				boolean wasFlipped = flipped[level - 1];
+    				cancelLevel();
+    				if (!wasFlipped) {
+    					literal = decision ^ 1;
+    				}
+    			}
+    			decide(literal, true);
+    		} else if (satisfied == clauseCount) {
+    			return true;
+    		} else {
+    			decide(heuristic.choose(), false);
+    		}
+    	}
+    }
+
+    // Returns the first unassigned literal of clause c, or -1 if none.
+    private int freeLiteral(int c) {
+    	for (int i = starts[c]; i < starts[c + 1]; i = i + 1) {
+    		if (values[literals[i]] == UNASSIGNED) {
+    			return literals[i];
+    		}
+    	}
+    	return -1;
+    }
+
+    // Starts a new decision level with literal.
+    private void decide(int literal, boolean isFlipped) {
+    	trailLimits[level] = trailSize;
+    	flipped[level] = isFlipped;
+    	level = level + 1;
+    	statistics.addDecision();
+    	assign(literal);
+    }
+
+    // Assigns the literals of unit clauses, then pure literals, until there
+    // are none left, and returns true, or until a clause has all its
+    // literals false, and returns false.
+    private boolean propagate() {
+    	while (true) {
+    		if (conflict != -1) {
+    			statistics.addConflict();
+    			heuristic.conflict(conflict);
+    			conflict = -1;
+    			unitHead = 0;
+    			unitTail = 0;
+    			while (pureCount > 0) {
+    				pureCount = pureCount - 1;
+    				pureQueued[pures[pureCount]] = false;
+    			}
+    			return false;
+    		} else if (unitHead < unitTail) {
+    			int c = units[unitHead];
+    			unitHead = unitHead + 1;
+    			// the clause may have been satisfied since it became unit
+    			if (trueCounts[c] == 0) {
+    				statistics.addPropagation();
+    				assign(freeLiteral(c));
+    			}
+    		} else if (pureCount > 0) {
+    			pureCount = pureCount - 1;
+    			int literal = pures[pureCount];
+    			pureQueued[literal] = false;
+    			if ((values[literal] == UNASSIGNED) &&
+    					(activeCounts[literal ^ 1] == 0) &&
+    					(activeCounts[literal] > 0)) {
+    				statistics.addPropagation();
+    				assign(literal);
+    			}
+    		} else {
+    			unitHead = 0;
+    			unitTail = 0;
+    			return true;
+    		}
+    	}
+    }
+
+    // Makes literal true, updating the clauses that contain it or its
+    // negation, and queues those that become unit. Records a clause that
+    // has all its literals false as the conflict, unless there is one.
+    private void assign(int literal) {
+    	values[literal] = TRUE;
+    	values[literal ^ 1] = FALSE;
+    	trail[trailSize] = literal;
+    	trailSize = trailSize + 1;
+    	heuristic.assigned(literal);
+    	for (int i = occurrenceStarts[literal]; i < occurrenceStarts[literal + 1]; i = i + 1) {
+    		int c = occurrences[i];
+    		if (trueCounts[c] == 0) {
+    			satisfied = satisfied + 1;
+    			if (eliminatePures) {
+    				for (int k = starts[c]; k < starts[c + 1]; k = k + 1) {
+    					int other = literals[k];
+    					activeCounts[other] = activeCounts[other] - 1;
+    					if (activeCounts[other] == 0) {
+    						queuePure(other ^ 1);
+    					}
+    				}
+    			}
+    		}
+    		trueCounts[c] = trueCounts[c] + 1;
+    		freeCounts[c] = freeCounts[c] - 1;
+    	}
+    	int negation = literal ^ 1;
+    	for (int i = occurrenceStarts[negation]; i < occurrenceStarts[negation + 1]; i = i + 1) {
+    		int c = occurrences[i];
+    		freeCounts[c] = freeCounts[c] - 1;
+    		if (trueCounts[c] == 0) {
+    			if (freeCounts[c] == 0) {
+    				if (conflict == -1) {
+    					conflict = c;
+    				}
+    			} else if (freeCounts[c] == 1) {
+    				units[unitTail] = c;
+    				unitTail = unitTail + 1;
+    			}
+    		}
+    	}
+    }
+
+    // Undoes the assignments of the last decision level.
+    private void cancelLevel() {
+    	level = level - 1;
+    	int limit = trailLimits[level];
+    	while (trailSize > limit) {
+    		trailSize = trailSize - 1;
+    		int literal = trail[trailSize];
+    		values[literal] = UNASSIGNED;
+    		values[literal ^ 1] = UNASSIGNED;
+    		int negation = literal ^ 1;
+    		for (int i = occurrenceStarts[negation]; i < occurrenceStarts[negation + 1]; i = i + 1) {
+    			int c = occurrences[i];
+    			freeCounts[c] = freeCounts[c] + 1;
+    		}
+    		for (int i = occurrenceStarts[literal]; i < occurrenceStarts[literal + 1]; i = i + 1) {
+    			int c = occurrences[i];
+    			trueCounts[c] = trueCounts[c] - 1;
+    			freeCounts[c] = freeCounts[c] + 1;
+    			if (trueCounts[c] == 0) {
+    				satisfied = satisfied - 1;
+    				if (eliminatePures) {
+    					for (int k = starts[c]; k < starts[c + 1]; k = k + 1) {
+    						activeCounts[literals[k]] = activeCounts[literals[k]] + 1;
+    					}
+    				}
+    			}
+    		}
+    		heuristic.unassigned(literal);
+    	}
+    }
+
+    public int getVariableCount() {
+    	return vars;
+    }
+
+    public int getClauseCount() {
+    	return clauseCount;
+    }
+
+    public int getValue(int literal) {
+    	return values[literal];
+    }
+
+    public int getClauseSize(int c) {
+    	return starts[c + 1] - starts[c];
+    }
+
+    public int getLiteral(int c, int i) {
+    	if ((i < 0) || (i >= getClauseSize(c))) {
+    		throw new IndexOutOfBoundsException("TrailSolver: " + i);
+    	}
+    	return literals[starts[c] + i];
+    }
+
+    public boolean isSatisfied(int c) {
+    	return trueCounts[c] > 0;
+    }
+
+    public int getFreeCount(int c) {
+    	return freeCounts[c];
+    }
+
+    public int getSmallestClause() {
+    	if (satisfied == clauseCount) {
+    		return -1;
+    	}
+    	// after propagation no unsatisfied clause has fewer than two
+    	// unassigned literals, so the first with two is a smallest
+    	int least = ((conflict == -1) && (unitHead == unitTail)) ? 2 : 0;
+    	int smallest = -1;
+    	for (int c = 0; c < clauseCount; c = c + 1) {
+    		if ((trueCounts[c] == 0) &&
+    				((smallest == -1) || (freeCounts[c] < freeCounts[smallest]))) {
+    			smallest = c;
+    			if (freeCounts[c] <= least) {
+    				break;
+    			}
+    		}
+    	}
+    	return smallest;
+    }
+
+    /**
+     * Assign the literals of the unit clauses of the formula, and those they
+     * imply, before any assumption.
+     *
+     * @return false if this makes a clause false.
+     */
+    boolean propagateUnits() {
+    	return propagate();
+    }
+
+    /**
+     * Start a new decision level with literal, and propagate it.
+     *
+     * @param literal An unassigned literal.
+     * @return false if this makes a clause false; the level must be
+     *         retracted all the same.
+     */
+    boolean assume(int literal) {
+    	decide(literal, false);
+    	return propagate();
+    }
+
+    /**
+     * Undo the assignments of the last decision level.
+     */
+    void retract() {
+    	cancelLevel();
+    }
+
+    /**
+     * @return the number of variables assigned.
+     */
+    int getAssignedCount() {
+    	return trailSize;
+    }
+
+    /**
+     * @return true iff every clause is satisfied.
+     */
+    boolean isSolved() {
+    	return satisfied == clauseCount;
+    }
+
+    // Queues literal to be checked for purity, if it is not queued already.
+    private void queuePure(int literal) {
+    	if (!pureQueued[literal]) {
+    		pureQueued[literal] = true;
+    		pures[pureCount] = literal;
+    		pureCount = pureCount + 1;
+    	}
+    }
+}
@@ -0,0 +1,165 @@
+package sat;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import sat.env.Bool;
+import sat.env.Environment;
+import sat.formula.Clause;
+import sat.formula.Formula;
+import sat.formula.Literal;
+import sat.formula.PosLiteral;
+import sudoku.Sudoku;
+import sudoku.Sudoku.ParseException;
+
+public class TrailSolverTest {
+    Literal a = PosLiteral.make("a");
+    Literal b = PosLiteral.make("b");
+    Literal c = PosLiteral.make("c");
+    Literal na = a.getNegation();
+    Literal nb = b.getNegation();
+    Literal nc = c.getNegation();
+
+    // make sure assertions are turned on!
+    // we don't want to run test cases without assertions too.
+    // see the handout to find out how to turn them on.
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    @Test
+    public void testSolveTwoClauses() {
+    	Formula f = makeFormula(makeClause(a, nb), makeClause(a, b));
+    	Environment env = TrailSolver.solve(f);
+    	assertEquals(Bool.TRUE, env.get(a.getVariable()));
+    	assertTrue(CDCLSolverTest.satisfies(f, env));
+    }
+
+    @Test
+    public void testSolveContradictoryUnits() {
+    	Formula f = makeFormula(makeClause(a), makeClause(b), makeClause(nb));
+    	assertNull(TrailSolver.solve(f));
+    	assertNull(TrailSolver.solve(makeFormula(makeClause(a),
+    			makeClause(na))));
+    }
+
+    @Test
+    public void testSolveUnitChain() {
+    	Formula f = makeFormula(makeClause(a), makeClause(b),
+    			makeClause(nb, c));
+    	Environment env = TrailSolver.solve(f);
+    	assertEquals(Bool.TRUE, env.get(a.getVariable()));
+    	assertEquals(Bool.TRUE, env.get(b.getVariable()));
+    	assertEquals(Bool.TRUE, env.get(c.getVariable()));
+    }
+
+    @Test
+    public void testSolveEmpty() {
+    	assertNotNull(TrailSolver.solve(new Formula()));
+    	assertNull(TrailSolver.solve(makeFormula(new Clause())));
+    }
+
+    @Test
+    public void testSolveBacktracks() {
+    	// the positive decision on a fails, so the search must undo it and
+    	// everything it implied
+    	Formula f = makeFormula(makeClause(a, b, c), makeClause(na, nb),
+    			makeClause(na, b), makeClause(nb, nc), makeClause(b, c));
+    	Environment env = TrailSolver.solve(f);
+    	assertEquals(Bool.FALSE, env.get(a.getVariable()));
+    	assertTrue(CDCLSolverTest.satisfies(f, env));
+    }
+
+    @Test
+    public void testSolvePureLiterals() {
+    	// a is pure, and only a satisfies both of the first two clauses;
+    	// then c, or nb, is pure too, and nothing is left to decide
+    	Formula f = makeFormula(makeClause(a, b), makeClause(a, nb),
+    			makeClause(c, nb), makeClause(a, c));
+    	Environment env = TrailSolver.solve(f, true);
+    	assertEquals(Bool.TRUE, env.get(a.getVariable()));
+    	assertTrue(CDCLSolverTest.satisfies(f, env));
+    	assertTrue(CDCLSolverTest.satisfies(f, TrailSolver.solve(f, false)));
+    }
+
+    @Test
+    public void testSolveMixedWidthsAgreesWithCDCLSolver() {
+    	// clauses of 1 to 4 literals, some unit from the start
+    	Random random = new Random(22);
+    	for (int trial = 0; trial < 100; trial = trial + 1) {
+    		Formula f = new Formula();
+    		for (int width = 1; width <= 4; width = width + 1) {
+    			int clauses = (width == 1) ? random.nextInt(3) : 25;
+    			for (Clause clause : CDCLSolverTest.randomFormula(random, 25,
+    					clauses, width).getClauses()) {
+    				f = f.addClause(clause);
+    			}
+    		}
+    		Environment expected = CDCLSolver.solve(f);
+    		for (boolean eliminatePures : new boolean[] {false, true}) {
+    			Environment env = TrailSolver.solve(f, eliminatePures);
+    			assertEquals(expected == null, env == null);
+    			if (env != null) {
+    				assertTrue(CDCLSolverTest.satisfies(f, env));
+    			}
+    		}
+    	}
+    }
+
+    @Test
+    public void testSolveRandomAgreesWithSATSolver() {
+    	Random random = new Random(6005);
+    	for (int trial = 0; trial < 200; trial = trial + 1) {
+    		Formula f = CDCLSolverTest.randomFormula(random, 14, 60, 3);
+    		Environment expected = SATSolver.solve(f);
+    		for (boolean eliminatePures : new boolean[] {false, true}) {
+    			Environment env = TrailSolver.solve(f, eliminatePures);
+    			assertEquals(expected == null, env == null);
+    			if (env != null) {
+    				assertTrue(CDCLSolverTest.satisfies(f, env));
+    			}
+    		}
+    	}
+    }
+
+    @Test
+    public void testSolveSudokus() throws IOException, ParseException {
+    	String[] files = {"samples/sudoku_easy.txt", "samples/sudoku_hard.txt",
+    			"samples/sudoku_evil.txt"};
+    	for (String file : files) {
+    		Formula f = Sudoku.fromFile(3, file).getProblem();
+    		assertTrue(file, CDCLSolverTest.satisfies(f, TrailSolver.solve(f)));
+    	}
+    }
+
+    // Helper function for constructing a formula.  Takes
+    // a variable number of arguments, e.g.
+    // makeFormula(a, b, c) will make the formula (a and b and c)
+    // @param e,...   clause in the formula
+    // @return formula containing e,...
+    private Formula makeFormula(Clause... e) {
+        Formula f = new Formula();
+        for (int i = 0; i < e.length; ++i) {
+            f = f.addClause(e[i]);
+        }
+        return f;
+    }
+
+    // Helper function for constructing a clause.  Takes
+    // a variable number of arguments, e.g.
+    // make(a, b, c) will make the clause (a or b or c)
+    // @param e,...   literals in the clause
+    // @return clause containing e,...
+    private Clause makeClause(Literal... e) {
+        Clause c = new Clause();
+        for (int i = 0; i < e.length; ++i) {
+            c = c.add(e[i]);
+        }
+        return c;
+    }
+}
@@ -0,0 +1,73 @@
+package sat;
+
+/**
+ * The VSIDS rule (Variable State Independent Decaying Sum) of Chaff, with
+ * phase saving: branch on the unassigned variable of highest activity, with
+ * the sign it last had.
+ *
+ * A variable's activity starts as its number of occurrences in the clauses,
+ * and grows each time it occurs in a clause all of whose literals are false,
+ * by an increment that itself grows by 1 / DECAY at each such conflict, so
+ * that recent conflicts count most. The unassigned variables are kept in an
+ * ActivityHeap, so that a choice takes logarithmic time. A variable never
+ * assigned is tried true first, as in SATSolver.
+ */
+public class VsidsHeuristic implements BranchingHeuristic {
+    private static final double DECAY = 0.95;
+
+    /*
+     * Rep invariant:
+     *     heap holds every unassigned variable (and maybe assigned ones)
+     *     phases[v] is true iff v was last assigned true, or never assigned
+     */
+    private SolverState state;
+    private ActivityHeap heap;
+    private boolean[] phases;
+
+    public void start(SolverState state) {
+    	this.state = state;
+    	int vars = state.getVariableCount();
+    	this.heap = new ActivityHeap(vars, DECAY);
+    	this.phases = new boolean[vars];
+    	int[] occurrences = new int[vars];
+    	for (int c = 0; c < state.getClauseCount(); c = c + 1) {
+    		for (int i = 0; i < state.getClauseSize(c); i = i + 1) {
+    			int v = state.getLiteral(c, i) >> 1;
+    			occurrences[v] = occurrences[v] + 1;
+    		}
+    	}
+    	for (int v = 0; v < vars; v = v + 1) {
+    		phases[v] = true;
+    		heap.setActivity(v, occurrences[v]);
+    		heap.insert(v);
+    	}
+    }
+
+    public int choose() {
+    	while (!heap.isEmpty()) {
+    		int v = heap.removeMax();
+    		if (state.getValue(2 * v) == 0) {
+    			return phases[v] ? 2 * v : 2 * v + 1;
+    		}
+    	}
+    	throw new IllegalStateException("VsidsHeuristic: no free variable");
+    }
+
+    public void assigned(int literal) {
+    }
+
+    public void unassigned(int literal) {
+    	int v = literal >> 1;
+    	phases[v] = (literal & 1) == 0;
+    	if (!heap.contains(v)) {
+    		heap.insert(v);
+    	}
+    }
+
+    public void conflict(int c) {
+    	for (int i = 0; i < state.getClauseSize(c); i = i + 1) {
+    		heap.bump(state.getLiteral(c, i) >> 1);
+    	}
+    	heap.decay();
+    }
+}
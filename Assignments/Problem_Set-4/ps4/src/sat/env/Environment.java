@@ -34,6 +34,17 @@ public class Environment {
         this (new ImListMap<Variable, Bool> ());
     }
 
+    /**
+     * Make an environment that binds each variable vars[i] to values[i].
+     * Takes time linear in the number of variables, whereas many puts
+     * would take quadratic time.
+     * Requires: vars and values of the same length, with no null elements,
+     * and the variables distinct.
+     */
+    public Environment(Variable[] vars, Bool[] values) {
+        this (new ImListMap<Variable, Bool> (vars, values));
+    }
+
     /**
      * @return a new environment in which l has the value b
      * if a binding for l already exists, overwrites it
@@ -43,4 +43,12 @@ public class Variable {
         Variable v = (Variable) o;
         return v.name.equals(name); 
     }
+
+    /**
+     * @return a hash code consistent with equals, so that variables can be
+     * keys of hash tables
+     */
+    public int hashCode () {
+        return name.hashCode();
+    }
 }
@@ -0,0 +1,77 @@
+package sat.env;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A VariableTable numbers variables densely: the first variable added gets
+ * id 0, the next id 1, and so on, so that solvers can index arrays by
+ * variable rather than look variables up by name.
+ *
+ * VariableTables are mutable, and not safe for use by multiple threads while
+ * variables are being added.
+ */
+public class VariableTable {
+    /*
+     * Rep invariant:
+     *     ids.size() == size, and ids.get(variables[i]) == i for every
+     *     0 <= i < size
+     */
+    private final Map<Variable, Integer> ids = new HashMap<Variable, Integer>();
+    private Variable[] variables = new Variable[16];
+    private int size = 0;
+
+    /**
+     * Make an empty table.
+     */
+    public VariableTable() {
+    }
+
+    /**
+     * Add a variable to the table, if it is not in it already.
+     *
+     * @param v The variable to add.
+     * @return the id of v.
+     */
+    public int add(Variable v) {
+    	Integer id = ids.get(v);
+    	if (id != null) {
+    		return id;
+    	}
+    	if (size == variables.length) {
+    		variables = Arrays.copyOf(variables, 2 * size);
+    	}
+    	variables[size] = v;
+    	ids.put(v, size);
+    	size = size + 1;
+    	return size - 1;
+    }
+
+    /**
+     * @param v A variable.
+     * @return the id of v, or -1 if v is not in the table.
+     */
+    public int getId(Variable v) {
+    	Integer id = ids.get(v);
+    	return (id == null) ? -1 : id;
+    }
+
+    /**
+     * @param id The id of a variable, between 0 and size() - 1.
+     * @return the variable with that id.
+     */
+    public Variable getVariable(int id) {
+    	if ((id < 0) || (id >= size)) {
+    		throw new IndexOutOfBoundsException("VariableTable: " + id);
+    	}
+    	return variables[id];
+    }
+
+    /**
+     * @return the number of variables in the table.
+     */
+    public int size() {
+    	return size;
+    }
+}
@@ -0,0 +1,212 @@
+package sat.formula;
+
+import java.util.Arrays;
+
+import sat.env.Bool;
+import sat.env.Environment;
+import sat.env.Variable;
+import sat.env.VariableTable;
+
+/**
+ * A CompiledFormula is a Formula translated into primitive data, for solvers
+ * to work on.
+ *
+ * Each variable of the formula gets a dense id, from 0 to
+ * getVariableCount() - 1, in the order of first occurrence. The literal of
+ * variable id is numbered 2 * id, and its negation 2 * id + 1, so that the
+ * code of a literal's negation is code ^ 1, and its variable is code >> 1.
+ *
+ * The clauses are kept in one int array of literal codes (compressed sparse
+ * rows): the literals of clause c are getLiterals()[getClauseStarts()[c] ..
+ * getClauseStarts()[c + 1] - 1].
+ *
+ * CompiledFormulas are immutable and safe for use by multiple threads.
+ */
+public class CompiledFormula {
+    /*
+     * Rep invariant:
+     *     starts.length == clause count + 1, starts[0] == 0, starts is
+     *     non-decreasing, and starts[clause count] == literals.length
+     *     0 <= literals[i] < 2 * variables.size() for every i
+     *     positives[id] is the positive literal of variables.getVariable(id)
+     */
+    private final VariableTable variables;
+    private final Literal[] positives;
+    private final int[] literals;
+    private final int[] starts;
+
+    /**
+     * Compile a formula. The clauses keep the order of formula.getClauses(),
+     * and the literals of each clause the order of its iterator.
+     *
+     * @param formula The formula to compile.
+     */
+    public CompiledFormula(Formula formula) {
+    	this.variables = new VariableTable();
+    	Literal[] positives = new Literal[16];
+    	int clauseCount = formula.getSize();
+    	this.starts = new int[clauseCount + 1];
+    	int[] literals = new int[4 * clauseCount + 16];
+    	int size = 0;
+    	int c = 0;
+    	for (Clause clause : formula.getClauses()) {
+    		if (size + clause.size() > literals.length) {
+    			literals = Arrays.copyOf(literals,
+    					2 * (size + clause.size()));
+    		}
+    		for (Literal literal : clause) {
+    			boolean negative = literal instanceof NegLiteral;
+    			int id = variables.add(literal.getVariable());
+    			if (id == positives.length) {
+    				positives = Arrays.copyOf(positives, 2 * id);
+    			}
+    			positives[id] = negative ? literal.getNegation() : literal;
+    			literals[size] = encode(id, negative);
+    			size = size + 1;
+    		}
+    		c = c + 1;
+    		starts[c] = size;
+    	}
+    	this.positives = positives;
+    	this.literals = Arrays.copyOf(literals, size);
+    }
+
+    // Creates a formula of the given parts, satisfying the rep invariant.
+    private CompiledFormula(VariableTable variables, Literal[] positives,
+    		int[] literals, int[] starts) {
+    	this.variables = variables;
+    	this.positives = positives;
+    	this.literals = literals;
+    	this.starts = starts;
+    }
+
+    /**
+     * @param units Literal codes of the formula.
+     * @return a formula of the clauses of this one followed by a unit clause
+     *         for each of units, in order, with the same variable ids.
+     */
+    public CompiledFormula addUnits(int[] units) {
+    	int clauseCount = getClauseCount();
+    	int[] literals = Arrays.copyOf(this.literals,
+    			this.literals.length + units.length);
+    	int[] starts = Arrays.copyOf(this.starts, clauseCount + 1 + units.length);
+    	for (int i = 0; i < units.length; i = i + 1) {
+    		if ((units[i] < 0) || (variableOf(units[i]) >= variables.size())) {
+    			throw new IndexOutOfBoundsException("CompiledFormula: " +
+    					units[i]);
+    		}
+    		literals[this.literals.length + i] = units[i];
+    		starts[clauseCount + 1 + i] = this.literals.length + i + 1;
+    	}
+    	// the variable table is never added to after construction
+    	return new CompiledFormula(variables, positives, literals, starts);
+    }
+
+    /**
+     * @param id The id of a variable.
+     * @param negative Whether the literal is the negation of the variable.
+     * @return the code of the literal.
+     */
+    public static int encode(int id, boolean negative) {
+    	return 2 * id + (negative ? 1 : 0);
+    }
+
+    /**
+     * @param code The code of a literal.
+     * @return the id of its variable.
+     */
+    public static int variableOf(int code) {
+    	return code >> 1;
+    }
+
+    /**
+     * @param code The code of a literal.
+     * @return true iff the literal is the negation of its variable.
+     */
+    public static boolean isNegative(int code) {
+    	return (code & 1) != 0;
+    }
+
+    /**
+     * @return the number of distinct variables in the formula.
+     */
+    public int getVariableCount() {
+    	return variables.size();
+    }
+
+    /**
+     * @return the number of clauses in the formula.
+     */
+    public int getClauseCount() {
+    	return starts.length - 1;
+    }
+
+    /**
+     * @param id The id of a variable, between 0 and getVariableCount() - 1.
+     * @return the variable with that id.
+     */
+    public Variable getVariable(int id) {
+    	return variables.getVariable(id);
+    }
+
+    /**
+     * @param v A variable.
+     * @return the id of v, or -1 if v does not occur in the formula.
+     */
+    public int getId(Variable v) {
+    	return variables.getId(v);
+    }
+
+    /**
+     * @param code The code of a literal of the formula.
+     * @return the interned literal with that code.
+     */
+    public Literal getLiteral(int code) {
+    	if ((code < 0) || (variableOf(code) >= variables.size())) {
+    		throw new IndexOutOfBoundsException("CompiledFormula: " + code);
+    	}
+    	Literal positive = positives[variableOf(code)];
+    	return isNegative(code) ? positive.getNegation() : positive;
+    }
+
+    /**
+     * @return a new array of the literal codes of all the clauses, one clause
+     *         after the other.
+     */
+    public int[] getLiterals() {
+    	return literals.clone();
+    }
+
+    /**
+     * @return a new array of getClauseCount() + 1 indexes into getLiterals():
+     *         clause c is the literals from index c up to but not including
+     *         index c + 1.
+     */
+    public int[] getClauseStarts() {
+    	return starts.clone();
+    }
+
+    /**
+     * @param c The index of a clause, between 0 and getClauseCount() - 1.
+     * @return a new array of the literal codes of clause c.
+     */
+    public int[] getClause(int c) {
+    	return Arrays.copyOfRange(literals, starts[c], starts[c + 1]);
+    }
+
+    /**
+     * @param values The value of each variable, indexed by id; its length must
+     *        be getVariableCount(). This array is not mutated.
+     * @return an environment that binds each variable of the formula to its
+     *         value.
+     */
+    public Environment toEnvironment(boolean[] values) {
+    	Variable[] vars = new Variable[values.length];
+    	Bool[] bools = new Bool[values.length];
+    	for (int id = 0; id < values.length; id = id + 1) {
+    		vars[id] = variables.getVariable(id);
+    		bools[id] = values[id] ? Bool.TRUE : Bool.FALSE;
+    	}
+    	return new Environment(vars, bools);
+    }
+}
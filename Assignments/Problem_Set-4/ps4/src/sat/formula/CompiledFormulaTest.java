@@ -0,0 +1,136 @@
+package sat.formula;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import sat.env.Bool;
+import sat.env.Environment;
+import sat.env.Variable;
+
+public class CompiledFormulaTest {
+    Literal p = PosLiteral.make("P");
+    Literal q = PosLiteral.make("Q");
+    Literal r = PosLiteral.make("R");
+    Literal np = p.getNegation();
+    Literal nq = q.getNegation();
+    Literal nr = r.getNegation();
+
+    // make sure assertions are turned on!
+    // we don't want to run test cases without assertions too.
+    // see the handout to find out how to turn them on.
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false;
+    }
+
+    @Test
+    public void testEncoding() {
+    	assertEquals(0, CompiledFormula.encode(0, false));
+    	assertEquals(7, CompiledFormula.encode(3, true));
+    	assertEquals(3, CompiledFormula.variableOf(7));
+    	assertTrue(CompiledFormula.isNegative(7));
+    	assertFalse(CompiledFormula.isNegative(6));
+    }
+
+    @Test
+    public void testCompile() {
+    	Formula f = new Formula(make(p, nq)).addClause(make(nr))
+    			.addClause(make(q, r, np));
+    	CompiledFormula compiled = new CompiledFormula(f);
+    	assertEquals(3, compiled.getVariableCount());
+    	assertEquals(3, compiled.getClauseCount());
+    	int[] starts = compiled.getClauseStarts();
+    	int[] literals = compiled.getLiterals();
+    	assertEquals(4, starts.length);
+    	assertEquals(0, starts[0]);
+    	assertEquals(literals.length, starts[3]);
+    	assertEquals(6, literals.length);
+
+    	// every clause decodes back to the literals it was compiled from
+    	int c = 0;
+    	for (Clause clause : f.getClauses()) {
+    		int[] codes = compiled.getClause(c);
+    		assertEquals(clause.size(), codes.length);
+    		int i = 0;
+    		for (Literal l : clause) {
+    			assertSame(l, compiled.getLiteral(codes[i]));
+    			assertSame(l.getNegation(), compiled.getLiteral(codes[i] ^ 1));
+    			assertEquals(compiled.getId(l.getVariable()),
+    					CompiledFormula.variableOf(codes[i]));
+    			i = i + 1;
+    		}
+    		c = c + 1;
+    	}
+    	assertEquals(-1, compiled.getId(new Variable("S")));
+    	for (int id = 0; id < 3; id = id + 1) {
+    		assertEquals(id, compiled.getId(compiled.getVariable(id)));
+    	}
+    }
+
+    @Test
+    public void testCompileEmpty() {
+    	CompiledFormula compiled = new CompiledFormula(new Formula());
+    	assertEquals(0, compiled.getVariableCount());
+    	assertEquals(0, compiled.getClauseCount());
+    	assertEquals(0, compiled.getLiterals().length);
+
+    	compiled = new CompiledFormula(new Formula(new Clause()));
+    	assertEquals(1, compiled.getClauseCount());
+    	assertEquals(0, compiled.getClause(0).length);
+    }
+
+    @Test
+    public void testToEnvironment() {
+    	CompiledFormula compiled = new CompiledFormula(new Formula(make(p, nq)));
+    	boolean[] values = new boolean[2];
+    	values[compiled.getId(p.getVariable())] = true;
+    	Environment env = compiled.toEnvironment(values);
+    	assertEquals(Bool.TRUE, env.get(p.getVariable()));
+    	assertEquals(Bool.FALSE, env.get(q.getVariable()));
+    	assertEquals(Bool.UNDEFINED, env.get(r.getVariable()));
+    }
+
+    @Test
+    public void testAddUnits() {
+    	CompiledFormula compiled = new CompiledFormula(new Formula(make(p, nq)));
+    	int[] units = {
+    			CompiledFormula.encode(compiled.getId(q.getVariable()), false),
+    			CompiledFormula.encode(compiled.getId(p.getVariable()), true)};
+    	CompiledFormula extended = compiled.addUnits(units);
+    	assertEquals(3, extended.getClauseCount());
+    	assertEquals(2, extended.getVariableCount());
+    	assertArrayEquals(compiled.getClause(0), extended.getClause(0));
+    	assertArrayEquals(new int[] {units[0]}, extended.getClause(1));
+    	assertArrayEquals(new int[] {units[1]}, extended.getClause(2));
+    	assertSame(np, extended.getLiteral(units[1]));
+    	assertEquals(compiled.getId(p.getVariable()),
+    			extended.getId(p.getVariable()));
+    	// the original is unchanged
+    	assertEquals(1, compiled.getClauseCount());
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testGetLiteralOutOfRange() {
+    	new CompiledFormula(new Formula(make(p))).getLiteral(2);
+    }
+
+    @Test
+    public void testVariablesEqualByName() {
+    	// equal variables share an id, and so a hash code
+    	Variable v = new Variable("P");
+    	assertEquals(p.getVariable(), v);
+    	assertEquals(p.getVariable().hashCode(), v.hashCode());
+    	CompiledFormula compiled = new CompiledFormula(new Formula(make(p, q)));
+    	assertEquals(compiled.getId(p.getVariable()), compiled.getId(v));
+    	assertSame(p, PosLiteral.make(v));
+    }
+
+    private Clause make(Literal... e) {
+        Clause c = new Clause();
+        for (int i = 0; i < e.length; ++i) {
+            c = c.add(e[i]);
+        }
+        return c;
+    }
+}
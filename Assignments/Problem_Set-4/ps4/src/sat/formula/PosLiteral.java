@@ -6,9 +6,10 @@
  */
 package sat.formula;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import sat.env.Variable;
-import immutable.ImListMap;
-import immutable.ImMap;
 
 /**
  * Class representing positive literals.
@@ -19,8 +20,11 @@ public class PosLiteral extends Literal {
     /* 
      * Mapping of positive literals that have already been allocated, keyed on their names
      * Invariant: non null, and no key or value is null
+     * A hash table rather than an ImListMap, so that interning a literal does not
+     * take time linear in the number of literals; it is only accessed while
+     * holding the PosLiteral class lock.
      */
-    static ImMap<String,PosLiteral> allocatedPosLiterals = new ImListMap<String,PosLiteral>();
+    private static final Map<String,PosLiteral> allocatedPosLiterals = new HashMap<String,PosLiteral>();
 
     private PosLiteral (String name) {
         super (name);
@@ -35,14 +39,14 @@ public class PosLiteral extends Literal {
      * will exist to represent a literal of a given name. 
      * @return the positive literal with the given name
      */
-    public static PosLiteral make (String name) {
+    public static synchronized PosLiteral make (String name) {
         PosLiteral literal = allocatedPosLiterals.get(name);
         if (literal==null) {
             literal = new PosLiteral(name);
             NegLiteral negated = new NegLiteral(name);
             literal.negation = negated;
             negated.negation = literal;
-            allocatedPosLiterals = allocatedPosLiterals.put(name, literal);
+            allocatedPosLiterals.put(name, literal);
         }
         literal.checkRep(); 
         return literal;
@@ -1,19 +1,58 @@
 package sudoku;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 
+import sat.BranchingHeuristic;
+import sat.CDCLSolver;
+import sat.JeroslowWangHeuristic;
+import sat.MomsHeuristic;
+import sat.PortfolioSolver;
 import sat.SATSolver;
+import sat.SearchStatistics;
+import sat.SmallestClauseHeuristic;
+import sat.TrailSolver;
+import sat.VsidsHeuristic;
 import sat.env.Environment;
+import sat.formula.CompiledFormula;
 import sat.formula.Formula;
 import sudoku.Sudoku.ParseException;
 
 public class Main {
 
+    // the SAT solver to use: "dpll" for the original SATSolver, "trail" for
+    // TrailSolver, "cdcl" for CDCLSolver, "portfolio" for PortfolioSolver
+    // with a solver per processor, or "cube" for the cube-and-conquer
+    // SATSolver.solveParallel
+    private static String solver = "cdcl";
+    // the branching heuristic of the trail solver: "smallest", "moms", "jw"
+    // or "vsids"
+    private static String heuristic = "smallest";
 
     /*
      * Uncomment line(s) below to test your implementation! 
+     *
+     * Usage: Main [dpll | trail | cdcl | portfolio | cube]
+     *             [smallest | moms | jw | vsids]
+     * The first argument selects the SAT solver; the default is cdcl. The
+     * second selects the branching heuristic of the trail solver; the
+     * default is smallest, the rule of SATSolver.
      */
     public static void main (String[] args) {
+        if (args.length > 0) {
+            solver = args[0];
+        }
+        if (args.length > 1) {
+            heuristic = args[1];
+        }
+        if ((!solver.equals("dpll") && !solver.equals("trail") &&
+                !solver.equals("cdcl") && !solver.equals("portfolio") &&
+                !solver.equals("cube")) || (makeHeuristic() == null)) {
+            System.err.println("Usage: Main [dpll | trail | cdcl | portfolio " +
+                    "| cube] [smallest | moms | jw | vsids]");
+            return;
+        }
     	timedSolve (new Sudoku(2));
         timedSolve (new Sudoku(2, new int[][] { 
                     new int[] { 0, 1, 0, 4 }, 
@@ -39,7 +78,41 @@ public class Main {
         Formula f = sudoku.getProblem();
         
         System.out.println ("Solving...");
-        Environment e = SATSolver.solve(f);
+        // the counts of the worker threads of portfolio and cube are lost
+        // once they finish, so allocation is only shown for the others,
+        // which solve on this thread alone
+        boolean oneThread = !solver.equals("portfolio") &&
+                !solver.equals("cube");
+        long allocatedBefore = oneThread ? allocatedBytes() : -1;
+        long solveStarted = System.nanoTime();
+        Environment e;
+        SearchStatistics statistics = null;
+        if (solver.equals("dpll")) {
+            e = SATSolver.solve(f);
+        } else if (solver.equals("cube")) {
+            e = SATSolver.solveParallel(f);
+        } else {
+            statistics = new SearchStatistics();
+            CompiledFormula compiled = new CompiledFormula(f);
+            boolean[] values;
+            if (solver.equals("trail")) {
+                values = TrailSolver.solve(compiled, makeHeuristic(), false,
+                        statistics);
+            } else if (solver.equals("portfolio")) {
+                values = PortfolioSolver.solve(compiled,
+                        Runtime.getRuntime().availableProcessors(), statistics);
+            } else {
+                values = CDCLSolver.solve(compiled, statistics);
+            }
+            e = (values == null) ? null : compiled.toEnvironment(values);
+        }
+        long solveTime = System.nanoTime() - solveStarted;
+        long allocated = allocatedBytes() - allocatedBefore;
+        System.out.println ("Solve time:" + solveTime/1000000 + "ms" +
+                ((allocatedBefore < 0) ? "" : ", allocated:" + allocated/1024 + "KB"));
+        if (statistics != null) {
+            System.out.println ("Search: " + statistics);
+        }
         
         System.out.println ("Interpreting solution...");
         Sudoku solution = sudoku.interpretSolution(e);
@@ -51,6 +124,41 @@ public class Main {
         System.out.println ("Time:" + timeTaken/1000000 + "ms");
     }
 
+    /**
+     * @return a new branching heuristic of the name in heuristic, or null if
+     * there is none of that name
+     */
+    private static BranchingHeuristic makeHeuristic () {
+        if (heuristic.equals("smallest")) {
+            return new SmallestClauseHeuristic();
+        } else if (heuristic.equals("moms")) {
+            return new MomsHeuristic();
+        } else if (heuristic.equals("jw")) {
+            return new JeroslowWangHeuristic();
+        } else if (heuristic.equals("vsids")) {
+            return new VsidsHeuristic();
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of bytes allocated so far by the current thread, or
+     * a negative number if the JVM does not measure it
+     */
+    private static long allocatedBytes () {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreads =
+                (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() &&
+                    sunThreads.isThreadAllocatedMemoryEnabled()) {
+                return sunThreads.getThreadAllocatedBytes(
+                        Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
     /**
      * Solve a puzzle loaded from a file and display the solution and the time it took.
      * @param dim  dimension of puzzle